@@ -3,11 +3,30 @@ package com.example.demo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.ClassUtils;
 
 @SpringBootApplication
 @EnableScheduling
 public class DemoApplication {
+
+  private static final String STREAM_PROVIDER_PROPERTY = "jakarta.mail.util.StreamProvider";
+  private static final String ANGUS_STREAM_PROVIDER = "org.eclipse.angus.mail.util.MailStreamProvider";
+
   public static void main(String[] args) {
+    configureMailStreamProvider();
     SpringApplication.run(DemoApplication.class, args);
   }
+
+  /**
+   * Jakarta Mail looks up its StreamProvider with a ServiceLoader scan in every body part and
+   * multipart it constructs, which made building an alert email cost several times more than
+   * sending it. Naming the implementation skips the scan. The property is JVM-wide, so it is set
+   * once at startup rather than by the mail code; a value given with -D wins.
+   */
+  static void configureMailStreamProvider() {
+    if (System.getProperty(STREAM_PROVIDER_PROPERTY) == null
+        && ClassUtils.isPresent(ANGUS_STREAM_PROVIDER, DemoApplication.class.getClassLoader())) {
+      System.setProperty(STREAM_PROVIDER_PROPERTY, ANGUS_STREAM_PROVIDER);
+    }
+  }
 }
@@ -5,6 +5,7 @@ import java.util.Date;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import com.example.demo.service.AlertOutboxRelay;
 import com.example.demo.service.AlertSchedulerService;
 
 /**
@@ -29,11 +30,18 @@ public class ManualAlertTest {
         System.out.println("Manual Alert Test - Starting at: " + new Date());
         System.out.println("==========================================");
 
-        // Manually trigger the scheduled method
+        // Manually trigger the scheduled method; it only queues the emails
         scheduler.checkAndSendAlerts();
 
+        // Send what was queued now instead of at each user's send time, and wait for it before closing
+        AlertOutboxRelay.DrainResult result = context.getBean(AlertOutboxRelay.class).drainNow();
+
         System.out.println("==========================================");
         System.out.println("Alert check completed!");
+        System.out.println("Sent: " + result.sent() + ", queued for retry: " + result.retrying() + ", failed: " + result.failed());
+        if (!result.complete()) {
+            System.out.println("Some alerts are still queued; they will be sent on the next relay pass");
+        }
         System.out.println("Check the logs above for email sending status");
         System.out.println("==========================================");
 
@@ -0,0 +1,120 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Tuning for the scheduled alert run, bound from {@code alerts.*} in application.properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "alerts")
+@Data
+public class AlertProperties {
+
+    // When the daily run queues the day's alerts that AlertTimerService hasn't; just after midnight, so each is
+    // queued before its send window
+    private String cron = "0 5 0 * * *";
+
+    // Number of due appliances loaded (and kept managed) at a time during a run
+    private int chunkSize = 500;
+
+    // Owners a run keeps between chunks, so one with due appliances in many chunks is read once; past this
+    // the least recently used are dropped and read again if needed
+    private int maxOwnersPerRun = 10000;
+
+    // Maximum alert emails being sent concurrently (size of the dispatch pool)
+    private int maxInFlight = 8;
+
+    // Base URL of the web app, for the appliance and snooze links in alert emails
+    private String appUrl = "http://localhost:3000";
+
+    private final Outbox outbox = new Outbox();
+
+    private final Delivery delivery = new Delivery();
+
+    private final Partitions partitions = new Partitions();
+
+    private final MailBreaker mailBreaker = new MailBreaker();
+
+    private final Timer timer = new Timer();
+
+    @Data
+    public static class Outbox {
+
+        // Failed sends are retried until an entry has this many attempts, then marked FAILED (the dead letters)
+        private int maxAttempts = 5;
+
+        // Wait before the first retry of a failed send; doubles with each further attempt, up to max-retry-backoff-ms
+        private long retryBackoffMs = 60000;
+
+        private long maxRetryBackoffMs = 3600000;
+
+        // How often AlertOutboxRelay picks up entries whose send time has come; also the granularity of send windows
+        private long relayIntervalMs = 60000;
+
+        // How long a relay's claim on the entries it is sending lasts; entries of a node that stopped mid-send
+        // go out again once it lapses, so it must outlast sending one chunk
+        private long claimMs = 600000;
+    }
+
+    @Data
+    public static class Delivery {
+
+        // Local hour alert emails are sent at for users who haven't chosen one (User.alertHour)
+        private int defaultHour = 9;
+
+        // Each user's emails go out a fixed number of minutes (derived from the user id) into this window
+        // after their hour, so users sharing an hour are spread over it instead of all sent at once
+        private int jitterMinutes = 60;
+
+        // Ceiling on alert emails sent per minute; the rest wait for the next relay pass
+        private int maxPerMinute = 600;
+
+        // Most emails sent at once after a quiet spell; the allowance then refills at max-per-minute
+        private int burst = 100;
+
+        // Most emails sent over one SMTP connection; the relay opens at most max-in-flight connections at once
+        private int batchSize = 50;
+    }
+
+    @Data
+    public static class Partitions {
+
+        // Users are split into this many partitions (userId mod count), each run by whichever node leases it
+        private int count = 1;
+
+        // A lease (and a node's liveness) lapses this long after its last heartbeat, letting other nodes take over
+        private long leaseMs = 90000;
+
+        // How often leases are renewed and rebalanced; well under lease-ms
+        private long heartbeatMs = 30000;
+    }
+
+    @Data
+    public static class MailBreaker {
+
+        // Sends in a row with nothing delivered before EmailService stops trying the mail server
+        private int failureThreshold = 5;
+
+        // How long sends are refused once the breaker opens, before one probe is let through
+        private long openMs = 30000;
+
+        // How often an open breaker checks whether the server is reachable again, without waiting for a real send
+        private long probeIntervalMs = 10000;
+    }
+
+    @Data
+    public static class Timer {
+
+        // How often AlertTimerService checks for alerts whose send time has come; an alert fires at most this late
+        private long tickMs = 30000;
+
+        // Days after today whose alerts are kept in the timer queue; each date change adds the day entering it
+        private int horizonDays = 1;
+
+        // Wait before firing alerts again after queuing them failed (e.g. the database was busy)
+        private long retryMs = 60000;
+    }
+}
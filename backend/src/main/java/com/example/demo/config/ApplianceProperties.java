@@ -0,0 +1,68 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Tuning for the appliance list endpoints, bound from {@code appliances.*} in application.properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "appliances")
+@Data
+public class ApplianceProperties {
+
+    private final Page page = new Page();
+
+    private final Suggestions suggestions = new Suggestions();
+
+    private final Cache cache = new Cache();
+
+    private final Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class Page {
+
+        // Appliances per page of GET /api/{userId}/appliances/page when the request doesn't say
+        private int defaultSize = 50;
+
+        // Largest page a request may ask for; bigger sizes are cut down to this
+        private int maxSize = 500;
+    }
+
+    @Data
+    public static class Suggestions {
+
+        // Most completions GET /api/{userId}/appliances/suggestions returns, and how many it returns
+        // when the request doesn't say; the index keeps this many per prefix
+        private int maxResults = 10;
+    }
+
+    @Data
+    public static class Cache {
+
+        // Most appliances (counted across all users' cached lists) the per-user read cache holds before
+        // dropping the least recently used users; 0 turns it off
+        private long maxAppliances = 100000;
+
+        // How long a user's cached list is served before it is read again
+        private long ttlMs = 600000;
+    }
+
+    @Data
+    public static class Invalidation {
+
+        // How nodes tell each other about appliance changes (an InvalidationTransport name): none for a
+        // single node; change-log, through a table in the shared database, when running several
+        private String transport = "none";
+
+        // How often each node writes its own changes and reads the others'; they reach the other
+        // nodes within about twice this
+        private long pollMs = 500;
+
+        // How long change log entries are kept; a node that can't poll for longer falls back on the
+        // read cache TTL
+        private long retentionMs = 3600000;
+    }
+}
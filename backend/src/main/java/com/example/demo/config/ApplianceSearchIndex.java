@@ -0,0 +1,79 @@
+package com.example.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The full-text index behind GET /api/{userId}/appliances/search: appliances_fts, an FTS5 table over
+ * the searchable columns of appliances, and the triggers that keep it in step with every write to
+ * the table, whichever code path makes it. Created here rather than in schema.sql because the script
+ * runner splits on every semicolon, including the ones inside a trigger body.
+ *
+ * <p>The index stores no copy of the text (content='appliances'). user_id is indexed too so a search
+ * intersects the query with one user's rows inside the index (ApplianceRepositoryImpl.search); its
+ * weight in the ranking is 0.
+ */
+@Component
+public class ApplianceSearchIndex implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplianceSearchIndex.class);
+
+    private static final String CREATE_TABLE = """
+            CREATE VIRTUAL TABLE IF NOT EXISTS appliances_fts USING fts5(
+                user_id, name, brand, model, description, notes,
+                content = 'appliances', content_rowid = 'id',
+                tokenize = 'porter unicode61 remove_diacritics 2')""";
+
+    private static final String CREATE_INSERT_TRIGGER = """
+            CREATE TRIGGER IF NOT EXISTS appliances_fts_insert AFTER INSERT ON appliances BEGIN
+                INSERT INTO appliances_fts (rowid, user_id, name, brand, model, description, notes)
+                VALUES (new.id, new.user_id, new.name, new.brand, new.model, new.description, new.notes);
+            END""";
+
+    private static final String CREATE_DELETE_TRIGGER = """
+            CREATE TRIGGER IF NOT EXISTS appliances_fts_delete AFTER DELETE ON appliances BEGIN
+                INSERT INTO appliances_fts (appliances_fts, rowid, user_id, name, brand, model, description, notes)
+                VALUES ('delete', old.id, old.user_id, old.name, old.brand, old.model, old.description, old.notes);
+            END""";
+
+    // Hibernate's updates set every column, so only re-index when the text actually changed; alert
+    // reschedules and status changes leave the index alone
+    private static final String CREATE_UPDATE_TRIGGER = """
+            CREATE TRIGGER IF NOT EXISTS appliances_fts_update AFTER UPDATE ON appliances
+            WHEN old.user_id IS NOT new.user_id OR old.name IS NOT new.name OR old.brand IS NOT new.brand
+                OR old.model IS NOT new.model OR old.description IS NOT new.description OR old.notes IS NOT new.notes
+            BEGIN
+                INSERT INTO appliances_fts (appliances_fts, rowid, user_id, name, brand, model, description, notes)
+                VALUES ('delete', old.id, old.user_id, old.name, old.brand, old.model, old.description, old.notes);
+                INSERT INTO appliances_fts (rowid, user_id, name, brand, model, description, notes)
+                VALUES (new.id, new.user_id, new.name, new.brand, new.model, new.description, new.notes);
+            END""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ApplianceSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        boolean created = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'appliances_fts'", Integer.class) == 0;
+
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.execute(CREATE_INSERT_TRIGGER);
+        jdbcTemplate.execute(CREATE_DELETE_TRIGGER);
+        jdbcTemplate.execute(CREATE_UPDATE_TRIGGER);
+
+        // First start with the index: fill it from the rows already there; from now on the triggers keep it up to date
+        if (created) {
+            jdbcTemplate.execute("INSERT INTO appliances_fts (appliances_fts) VALUES ('rebuild')");
+            log.info("Built the appliance search index");
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.example.demo.config;
 
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import com.example.demo.model.Appliance;
 import com.example.demo.model.User;
+import com.example.demo.repository.ApplianceRepository;
 import com.example.demo.repository.UserRepository;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
     private final UserRepository userRepository;
+    private final ApplianceRepository applianceRepository;
 
-    public DataInitializer(UserRepository userRepository) {
+    public DataInitializer(UserRepository userRepository, ApplianceRepository applianceRepository) {
         this.userRepository = userRepository;
+        this.applianceRepository = applianceRepository;
     }
 
     @Override
@@ -33,5 +43,19 @@ public class DataInitializer implements CommandLineRunner {
             System.out.println("Password: dev123");
             System.out.println("===========================================");
         }
+
+        backfillWarrantyExpires();
+    }
+
+    // One-time fill of appliances.warranty_expires for rows written before the column existed; saving
+    // sets it (Appliance.refreshDerivedDates). Done here rather than in schema.sql because the column
+    // holds the JVM's local midnight as epoch millis and the month arithmetic must clamp like Java's.
+    // Once filled, the query matches nothing, so later startups read no rows.
+    private void backfillWarrantyExpires() {
+        List<Appliance> missing = applianceRepository.findMissingWarrantyExpires();
+        if (!missing.isEmpty()) {
+            applianceRepository.saveAll(missing);
+            log.info("Filled in warranty expiry for {} appliances", missing.size());
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * This backend node's identity, bound from {@code node.*} in application.properties. Shared by
+ * everything that tells nodes apart: alert partition leases and the entity change log.
+ */
+@Component
+@ConfigurationProperties(prefix = "node")
+@Data
+public class NodeProperties {
+
+    // This node's name in alert_partition_leases, alert_nodes and entity_change_log; must differ between
+    // nodes. Blank picks host name plus a random suffix
+    private String id = "";
+
+    @PostConstruct
+    void resolveId() {
+        if (id == null || id.isBlank()) {
+            id = defaultId();
+        }
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.controller;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.service.AlertOutboxRelay;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.MailCircuitBreaker;
+
+/**
+ * A user's view of their alert outbox: lists their entries by status (FAILED by default, i.e. the dead
+ * letters that used up their retries) and puts a dead letter back in the queue once the cause is fixed.
+ * Scoped to the user like the appliance endpoints, so no one sees or retries another user's alerts.
+ * Also reports the mail transport's circuit breaker, which explains entries piling up while SMTP is down.
+ */
+@RestController
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://myappliancelogbook.com"
+})
+@RequestMapping("/api/{userId}/alert-outbox")
+public class AlertOutboxController {
+    private final AlertOutboxRepository alertOutboxRepository;
+    private final AlertOutboxRelay alertOutboxRelay;
+    private final EmailService emailService;
+
+    public AlertOutboxController(AlertOutboxRepository alertOutboxRepository, AlertOutboxRelay alertOutboxRelay,
+                                 EmailService emailService) {
+        this.alertOutboxRepository = alertOutboxRepository;
+        this.alertOutboxRelay = alertOutboxRelay;
+        this.emailService = emailService;
+    }
+
+    @GetMapping
+    public List<AlertOutboxEntry> getEntries(
+            @PathVariable("userId") Long userId,
+            @RequestParam(defaultValue = "FAILED") String status,
+            @RequestParam(defaultValue = "100") int limit) {
+        return alertOutboxRepository.findByUserIdAndStatusOrderByIdDesc(userId, status,
+                Limit.of(Math.max(1, Math.min(limit, 1000))));
+    }
+
+    @GetMapping("/mail-transport")
+    public MailCircuitBreaker.Status getMailTransport() {
+        return emailService.getTransportStatus();
+    }
+
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<?> retryEntry(@PathVariable("userId") Long userId, @PathVariable("id") Long id) {
+        // Another user's entry is reported as not found rather than forbidden, like an appliance
+        return alertOutboxRepository.findByIdAndUserId(id, userId)
+            .<ResponseEntity<?>>map(entry -> {
+                if (!"FAILED".equals(entry.getStatus())) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("Only FAILED entries can be retried");
+                }
+                entry.setStatus("PENDING");
+                entry.setAttempts(0);
+                entry.setSendAfter(null);
+                AlertOutboxEntry updated = alertOutboxRepository.save(entry);
+                alertOutboxRelay.requestDrain();
+                return ResponseEntity.ok(updated);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.controller;
+
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.service.ApplianceReadCache;
+
+/**
+ * Operator view of the per-user appliance read cache: hit, miss and eviction counts since startup
+ * and how much it holds, for sizing appliances.cache.*.
+ */
+@RestController
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "https://myappliancelogbook.com"
+})
+@RequestMapping("/api/appliance-cache")
+public class ApplianceCacheController {
+    private final ApplianceReadCache applianceReadCache;
+
+    public ApplianceCacheController(ApplianceReadCache applianceReadCache) {
+        this.applianceReadCache = applianceReadCache;
+    }
+
+    @GetMapping
+    public ApplianceReadCache.Stats getStats() {
+        return applianceReadCache.getStats();
+    }
+}
@@ -1,10 +1,11 @@
 package com.example.demo.controller;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.time.LocalDate;
-import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -19,9 +20,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.event.ApplianceChangedEvent;
 import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+import com.example.demo.model.ApplianceSort;
 import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.service.AlertOutboxRelay;
 import com.example.demo.service.ApplianceService;
+import com.example.demo.service.ApplianceSuggestionService;
 import com.example.demo.service.AlertSchedulerService;
 
 @RestController
@@ -34,33 +40,127 @@ public class ApplianceController {
     private final ApplianceService applianceService;
     private final ApplianceRepository applianceRepository;
     private final AlertSchedulerService alertSchedulerService;
+    private final AlertOutboxRelay alertOutboxRelay;
+    private final ApplianceSuggestionService applianceSuggestionService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ApplianceController(ApplianceService applianceService, ApplianceRepository applianceRepository, AlertSchedulerService alertSchedulerService) {
+    public ApplianceController(ApplianceService applianceService, ApplianceRepository applianceRepository, AlertSchedulerService alertSchedulerService, AlertOutboxRelay alertOutboxRelay, ApplianceSuggestionService applianceSuggestionService, ApplicationEventPublisher eventPublisher) {
         this.applianceService = applianceService;
         this.applianceRepository = applianceRepository;
         this.alertSchedulerService = alertSchedulerService;
+        this.alertOutboxRelay = alertOutboxRelay;
+        this.applianceSuggestionService = applianceSuggestionService;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * The user's appliances; optionally only those matching {@code category}, {@code brand},
+     * {@code status} (ACTIVE, SNOOZED, CANCELLED, NO_ALERT) and {@code warranty} (ACTIVE, EXPIRED,
+     * NONE), sorted by {@code sort} (id, name, brand, category, alertDate, warrantyExpires) in
+     * {@code order} (asc or desc).
+     */
     @GetMapping
-    public List<Appliance> getAllAppliancesByUserId(@PathVariable("userId") Long userId) {
-        return applianceService.getAllAppliancesByUser(userId);
+    public ResponseEntity<?> getAllAppliancesByUserId(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "brand", required = false) String brand,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "warranty", required = false) String warranty,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "order", required = false) String order) {
+        try {
+            ApplianceFilter filter = new ApplianceFilter(category, brand, status, warranty);
+            if (filter.isEmpty() && sort == null && order == null) {
+                return ResponseEntity.ok(applianceService.getAllAppliancesByUser(userId));
+            }
+            return ResponseEntity.ok(applianceService.getAppliances(userId, filter, ApplianceSort.fromParam(sort),
+                    isDescending(order)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * The user's appliances a page at a time, as list-view summaries: {@code cursor} is the previous
+     * page's {@code nextCursor} (omit for the first page), {@code size} the page size. Takes the same
+     * filters and sort as the full list; a cursor only continues the sort it came from.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getAppliancePage(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "brand", required = false) String brand,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "warranty", required = false) String warranty,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        try {
+            ApplianceFilter filter = new ApplianceFilter(category, brand, status, warranty);
+            return ResponseEntity.ok(applianceService.getAppliancePage(userId, filter, ApplianceSort.fromParam(sort),
+                    isDescending(order), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Full-text search over the user's appliances: those whose name, brand, model, description or notes
+     * contain every word of {@code q}, best match first, as list-view summaries paged like /page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchAppliances(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(applianceService.searchAppliances(userId, query, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Typeahead for the appliance form: values of {@code field} (brand, model or category) in use on
+     * the user's appliances that start with {@code prefix}, ignoring case, most used first.
+     */
+    @GetMapping("/suggestions")
+    public ResponseEntity<?> getSuggestions(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "field", required = false) String field,
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(applianceSuggestionService.suggest(userId,
+                    ApplianceSuggestionService.Field.fromParam(field), prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Appliance> getApplianceById(
             @PathVariable("userId") Long userId,
             @PathVariable("id") Long id) {
-        Optional<Appliance> appliance = applianceRepository.findByUserIdAndId(userId, id);
+        Optional<Appliance> appliance = applianceService.getAppliance(userId, id);
         return appliance.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public Appliance createAppliance(
+    public ResponseEntity<?> createAppliance(
             @PathVariable("userId") Long userId,
             @RequestBody Appliance appliance) {
+        // Any other status would never come due (Appliance.alertDueOn) nor show up under a status filter
+        if (appliance.getAlertStatus() != null && !Appliance.ALERT_STATUSES.contains(appliance.getAlertStatus())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid alert status");
+        }
         appliance.setUserId(userId);
-        return applianceService.saveAppliance(appliance);
+        Appliance saved = applianceService.saveAppliance(appliance);
+        eventPublisher.publishEvent(ApplianceChangedEvent.saved(saved));
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
@@ -81,6 +181,8 @@ public class ApplianceController {
         LocalDate newAlertDate = applianceDetails.getAlertDate();
         boolean alertDateChanged = (oldAlertDate == null && newAlertDate != null) ||
                                    (oldAlertDate != null && !oldAlertDate.equals(newAlertDate));
+        boolean recurrenceChanged = !Objects.equals(appliance.getRecurringInterval(), applianceDetails.getRecurringInterval())
+                || !Objects.equals(appliance.getRecurringIntervalDays(), applianceDetails.getRecurringIntervalDays());
 
         appliance.setName(applianceDetails.getName());
         appliance.setDescription(applianceDetails.getDescription());
@@ -101,8 +203,14 @@ public class ApplianceController {
             appliance.setAlertStatus("ACTIVE");
             appliance.setSnoozeUntil(null);
         }
+        // Recurrence now counts from the date the user gave, and an email queued for the old date is dropped
+        if (alertDateChanged || recurrenceChanged) {
+            appliance.setRecurrenceAnchor(appliance.getAlertDate());
+            appliance.setAlertQueuedFor(null);
+        }
 
         Appliance updated = applianceService.saveAppliance(appliance);
+        eventPublisher.publishEvent(ApplianceChangedEvent.saved(updated));
         return ResponseEntity.ok(updated);
     }
 
@@ -126,6 +234,10 @@ public class ApplianceController {
             LocalDate newAlertDate = applianceDetails.getAlertDate();
             alertDateChanged = (oldAlertDate == null) || !oldAlertDate.equals(newAlertDate);
         }
+        boolean recurrenceChanged = (applianceDetails.getRecurringInterval() != null
+                && !applianceDetails.getRecurringInterval().equals(appliance.getRecurringInterval()))
+                || (applianceDetails.getRecurringIntervalDays() != null
+                && !applianceDetails.getRecurringIntervalDays().equals(appliance.getRecurringIntervalDays()));
 
         if (applianceDetails.getName() != null) {
             appliance.setName(applianceDetails.getName());
@@ -172,8 +284,14 @@ public class ApplianceController {
             appliance.setAlertStatus("ACTIVE");
             appliance.setSnoozeUntil(null);
         }
+        // Recurrence now counts from the date the user gave, and an email queued for the old date is dropped
+        if (alertDateChanged || recurrenceChanged) {
+            appliance.setRecurrenceAnchor(appliance.getAlertDate());
+            appliance.setAlertQueuedFor(null);
+        }
 
         Appliance updated = applianceService.saveAppliance(appliance);
+        eventPublisher.publishEvent(ApplianceChangedEvent.saved(updated));
         return ResponseEntity.ok(updated);
     }
 
@@ -188,38 +306,31 @@ public class ApplianceController {
         }
 
         applianceRepository.delete(appliance.get());
+        eventPublisher.publishEvent(ApplianceChangedEvent.deleted(appliance.get()));
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/alerts")
     public ResponseEntity<List<Appliance>> getUpcomingAlerts(
             @PathVariable("userId") Long userId) {
-        List<Appliance> allAppliances = applianceRepository.findAllByUserId(userId);
-
-        // Get current date
-        LocalDate today = LocalDate.now();
-
-        // Filter appliances with alerts due today or in the past
-        // Exclude CANCELLED alerts and actively SNOOZED alerts
-        List<Appliance> alertAppliances = allAppliances.stream()
-            .filter(a -> a.getAlertDate() != null && !a.getAlertDate().isAfter(today))
-            .filter(a -> !"CANCELLED".equals(a.getAlertStatus()))
-            .filter(a -> {
-                // Exclude if snoozed and snooze period hasn't ended
-                if ("SNOOZED".equals(a.getAlertStatus()) && a.getSnoozeUntil() != null) {
-                    return !today.isBefore(a.getSnoozeUntil());
-                }
-                return true;
-            })
-            .collect(Collectors.toList());
-
-        return ResponseEntity.ok(alertAppliances);
+        // Alerts due today or in the past that are effectively ACTIVE (an expired snooze counts)
+        return ResponseEntity.ok(applianceService.getDueAlerts(userId));
     }
 
+    /**
+     * Runs the alert check now and sends what is queued straight away, rather than at each user's
+     * send time, reporting how many emails went out.
+     */
     @PostMapping("/trigger-alerts")
     public ResponseEntity<String> triggerAlerts() {
         alertSchedulerService.checkAndSendAlerts();
-        return ResponseEntity.ok("Alert check triggered manually. Check logs for results.");
+        AlertOutboxRelay.DrainResult result = alertOutboxRelay.drainNow();
+        String summary = String.format("Alert check complete: %d alerts sent, %d queued for retry, %d failed.",
+                result.sent(), result.retrying(), result.failed());
+        if (!result.complete()) {
+            summary += " Others are still queued and will be sent by the relay.";
+        }
+        return ResponseEntity.ok(summary);
     }
 
     @PostMapping("/{applianceId}/alert/snooze")
@@ -228,7 +339,10 @@ public class ApplianceController {
             .map(appliance -> {
                 appliance.setAlertStatus("SNOOZED");
                 appliance.setSnoozeUntil(java.time.LocalDate.now().plusDays(days));
+                // An email queued but not yet sent is dropped (Appliance.queuedAlertStillWanted)
+                appliance.setAlertQueuedFor(null);
                 Appliance updated = applianceRepository.save(appliance);
+                eventPublisher.publishEvent(ApplianceChangedEvent.saved(updated));
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
@@ -241,6 +355,7 @@ public class ApplianceController {
                 appliance.setAlertStatus("CANCELLED");
                 appliance.setSnoozeUntil(null);
                 Appliance updated = applianceRepository.save(appliance);
+                eventPublisher.publishEvent(ApplianceChangedEvent.saved(updated));
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
@@ -253,8 +368,19 @@ public class ApplianceController {
                 appliance.setAlertStatus("ACTIVE");
                 appliance.setSnoozeUntil(null);
                 Appliance updated = applianceRepository.save(appliance);
+                eventPublisher.publishEvent(ApplianceChangedEvent.saved(updated));
                 return ResponseEntity.ok(updated);
             })
             .orElse(ResponseEntity.notFound().build());
     }
+
+    private static boolean isDescending(String order) {
+        if (order == null || order.isBlank() || order.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (order.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid sort order");
+    }
 }
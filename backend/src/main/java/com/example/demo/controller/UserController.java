@@ -4,6 +4,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import java.util.List;
+import java.util.Locale;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import com.example.demo.model.User;
 import com.example.demo.model.UpdateProfileRequest;
 import com.example.demo.model.ChangePasswordRequest;
@@ -93,6 +96,45 @@ public class UserController {
         user.setProfilePictureUrl(request.getProfilePictureUrl().isEmpty() ? null : request.getProfilePictureUrl());
       }
 
+      // Update alert email preference if provided
+      if (request.getAlertDigest() != null) {
+        user.setAlertDigest(request.getAlertDigest());
+      }
+
+      // Update alert delivery time zone if provided (empty clears it)
+      if (request.getTimeZone() != null) {
+        if (request.getTimeZone().isEmpty()) {
+          user.setTimeZone(null);
+        } else {
+          try {
+            user.setTimeZone(ZoneId.of(request.getTimeZone()).getId());
+          } catch (DateTimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid time zone");
+          }
+        }
+      }
+
+      // Update preferred alert hour if provided
+      if (request.getAlertHour() != null) {
+        if (request.getAlertHour() < 0 || request.getAlertHour() > 23) {
+          return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Alert hour must be between 0 and 23");
+        }
+        user.setAlertHour(request.getAlertHour());
+      }
+
+      // Update alert email language if provided (empty clears it)
+      if (request.getLocale() != null) {
+        if (request.getLocale().isEmpty()) {
+          user.setLocale(null);
+        } else {
+          Locale locale = Locale.forLanguageTag(request.getLocale().replace('_', '-'));
+          if (locale.getLanguage().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid locale");
+          }
+          user.setLocale(locale.toLanguageTag());
+        }
+      }
+
       // Update email if provided and different
       if (request.getEmail() != null && !request.getEmail().isEmpty()) {
         // Check if new email is already taken by another user
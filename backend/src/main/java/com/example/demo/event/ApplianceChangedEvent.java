@@ -0,0 +1,35 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Appliance;
+
+/**
+ * Published after an appliance is saved or deleted, so in-memory views of the appliances
+ * table (such as the read cache and suggestions) can update without re-reading it.
+ *
+ * @param applianceId   id of the appliance that changed
+ * @param userId        its owner
+ * @param appliance     the appliance as saved, or {@code null} if it was deleted
+ * @param fromOtherNode whether the change was made on another backend node and relayed by
+ *                      CacheInvalidationBus, rather than made here
+ */
+public record ApplianceChangedEvent(Long applianceId, Long userId, Appliance appliance, boolean fromOtherNode) {
+
+    public static ApplianceChangedEvent saved(Appliance appliance) {
+        return new ApplianceChangedEvent(appliance.getId(), appliance.getUserId(), appliance, false);
+    }
+
+    public static ApplianceChangedEvent deleted(Appliance appliance) {
+        return new ApplianceChangedEvent(appliance.getId(), appliance.getUserId(), null, false);
+    }
+
+    /**
+     * A change made on another node, with the appliance as it now is in the database ({@code null} if gone).
+     */
+    public static ApplianceChangedEvent fromOtherNode(Long applianceId, Long userId, Appliance appliance) {
+        return new ApplianceChangedEvent(applianceId, userId, appliance, true);
+    }
+
+    public boolean isDeleted() {
+        return appliance == null;
+    }
+}
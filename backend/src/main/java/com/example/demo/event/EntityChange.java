@@ -0,0 +1,19 @@
+package com.example.demo.event;
+
+/**
+ * What other backend nodes are told about a change: which entity, not its new state, which they
+ * read from the database themselves.
+ *
+ * @param type   the kind of entity
+ * @param id     its id
+ * @param userId the user it belongs to
+ */
+public record EntityChange(Type type, Long id, Long userId) {
+
+    // Appliances only so far: nothing outside the database holds user data. Users join once something caches them
+    public enum Type { APPLIANCE }
+
+    public static EntityChange appliance(Long applianceId, Long userId) {
+        return new EntityChange(Type.APPLIANCE, applianceId, userId);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A backend node taking part in alert runs, with its last heartbeat. Live nodes split the
+ * alert partitions evenly between them.
+ */
+@Entity
+@Table(name = "alert_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertNode {
+
+    @Id
+    private String nodeId;
+
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,67 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One alert email owed to a user, written by AlertSchedulerService in the same transaction
+ * that reschedules the appliance and delivered later by AlertOutboxRelay.
+ */
+@Entity
+@Table(name = "alert_outbox", indexes = {
+    @Index(name = "idx_alert_outbox_status_user", columnList = "status, user_id"),
+    @Index(name = "idx_alert_outbox_status_send_after", columnList = "status, send_after")
+})
+// The unique (appliance_id, due_date) index lives in schema.sql: the SQLite dialect can't add it as a constraint
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long applianceId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, columnDefinition = "DATE")
+    private LocalDate dueDate; // Date the alert occurrence became due
+
+    @Column(nullable = false)
+    private String status; // PENDING, SENDING (claimed by a relay), SENT, RETRYING, FAILED, SKIPPED (cancelled, snoozed or re-dated before it was sent)
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = true)
+    private Integer missedOccurrences; // Later occurrences of a recurring alert skipped when it caught up; mentioned in the email
+
+    @Column(nullable = true, length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = true)
+    private LocalDateTime sendAfter; // Server-local time the relay may send it; null means immediately. While SENDING, when the claim lapses
+
+    @Column(nullable = true)
+    private LocalDateTime sentAt;
+}
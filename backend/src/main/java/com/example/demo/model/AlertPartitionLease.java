@@ -0,0 +1,38 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Which backend node currently runs alerts for one partition of the users (userId mod partition count).
+ * A lease is only honoured until {@code expiresAt}; its owner renews it on every heartbeat, and any node
+ * may claim it once it has expired.
+ */
+@Entity
+@Table(name = "alert_partition_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertPartitionLease {
+
+    @Id
+    private Integer partitionId;
+
+    @Column(nullable = true)
+    private String owner; // Node id (node.id); null when released
+
+    @Column(nullable = true)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = true)
+    private LocalDateTime heartbeatAt;
+}
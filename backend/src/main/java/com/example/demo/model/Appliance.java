@@ -1,12 +1,19 @@
 package com.example.demo.model;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,13 +21,28 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name ="appliances")
+@Table(name ="appliances", indexes = {
+    // Backs ApplianceRepository.findDueAlerts: one range scan, already in (next_fire_date, id) keyset order
+    @Index(name = "idx_appliances_next_fire", columnList = "next_fire_date"),
+    // Backs ApplianceRepository.findSummaries in id order: a page is a range scan from the cursor within one user's rows
+    @Index(name = "idx_appliances_user_id", columnList = "user_id, id"),
+    // Back the list filters (ApplianceSpecifications) and sort keys (ApplianceRepositoryImpl), and
+    // (user_id, alert_date) the alerts view; the case-insensitive name, brand and category ones are
+    // expression indexes, created in schema.sql
+    @Index(name = "idx_appliances_user_alert_date", columnList = "user_id, alert_date"),
+    // Backs ApplianceRepository.findDueAlertsByUserId (the alerts view): one range scan within a user's rows
+    @Index(name = "idx_appliances_user_alert_due_from", columnList = "user_id, alert_due_from"),
+    @Index(name = "idx_appliances_user_alert_status", columnList = "user_id, alert_status"),
+    @Index(name = "idx_appliances_user_warranty", columnList = "user_id, warranty_expires")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Appliance {
 
+    public static final Set<String> ALERT_STATUSES = Set.of("ACTIVE", "SNOOZED", "CANCELLED");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -58,7 +80,7 @@ public class Appliance {
     private LocalDate alertDate;
 
     @Column(nullable=true)
-    private String alertStatus; // ACTIVE, SNOOZED, CANCELLED
+    private String alertStatus; // ALERT_STATUSES, or null for ACTIVE
 
     @Column(nullable=true, columnDefinition = "DATE")
     private LocalDate snoozeUntil;
@@ -69,6 +91,139 @@ public class Appliance {
     @Column(nullable=true)
     private Integer recurringIntervalDays; // For custom intervals (e.g., 90 days)
 
+    // The alert date as the user last set it. Recurring occurrences are counted from here rather than from
+    // alertDate, which the alert run moves on (RecurrenceCalculator), so Jan 31 goes to Feb 28 and then
+    // back to Mar 31. Filled in from alertDate when missing; ApplianceController resets it whenever the user
+    // changes the alert date or the interval. Existing rows are backfilled by schema.sql.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable=true, columnDefinition = "DATE")
+    private LocalDate recurrenceAnchor;
+
     @Column(nullable = false)
     private Long userId;
+
+    // computeAlertDueFrom(), set on every insert and update: the first day alertDueOn holds for the current
+    // occurrence, or null if it never will. Existing rows are backfilled by schema.sql. Like the three
+    // below, shown to clients but never taken from a request body.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable=true, columnDefinition = "DATE")
+    private LocalDate alertDueFrom;
+
+    // computeNextFireDate(), set on every insert and update: alertDueFrom until the alert run queues that
+    // occurrence, then null until there is a new one. Existing rows are backfilled by schema.sql.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable=true, columnDefinition = "DATE")
+    private LocalDate nextFireDate;
+
+    // Due date (alertDueDate()) of the occurrence the alert run last queued to the outbox, set in the same
+    // transaction as the outbox entry. Takes a sent one-time alert out of next_fire_date until it is
+    // snoozed or given a new date, which clear it.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable=true, columnDefinition = "DATE")
+    private LocalDate alertQueuedFor;
+
+    // warrantyExpiry(), kept in a column so the list can filter and sort on warranty state. Set on every
+    // insert and update; existing rows are backfilled at startup (DataInitializer).
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable=true, columnDefinition = "DATE")
+    private LocalDate warrantyExpires;
+
+    /**
+     * Alert status as of {@code today}. A snooze that has run out counts as ACTIVE without the row
+     * being rewritten; ApplianceSpecifications.withStatus applies the same rule in queries.
+     */
+    public String effectiveAlertStatus(LocalDate today) {
+        return effectiveAlertStatus(alertStatus, snoozeUntil, today);
+    }
+
+    static String effectiveAlertStatus(String alertStatus, LocalDate snoozeUntil, LocalDate today) {
+        if (alertStatus == null) {
+            return "ACTIVE";
+        }
+        if ("SNOOZED".equals(alertStatus) && (snoozeUntil == null || !today.isBefore(snoozeUntil))) {
+            return "ACTIVE";
+        }
+        return alertStatus;
+    }
+
+    /**
+     * Whether the alert should be shown and sent on {@code today}: alert date reached and effectively ACTIVE.
+     */
+    public boolean alertDueOn(LocalDate today) {
+        return alertDate != null && !alertDate.isAfter(today) && "ACTIVE".equals(effectiveAlertStatus(today));
+    }
+
+    /**
+     * The date the current alert occurrence becomes due: its alert date, or the end of a snooze that
+     * runs past it. Stays the same once the snooze expires, so it identifies the occurrence.
+     */
+    public LocalDate alertDueDate() {
+        if ("SNOOZED".equals(alertStatus) && snoozeUntil != null && alertDate != null && snoozeUntil.isAfter(alertDate)) {
+            return snoozeUntil;
+        }
+        return alertDate;
+    }
+
+    /**
+     * The first day {@link #alertDueOn} holds for the current occurrence, or null if it never will (no
+     * alert date, cancelled, or a status that isn't one of ALERT_STATUSES). Once alertDueOn holds it keeps
+     * holding until the row changes, and it first holds on {@link #alertDueDate()}, so a query can test
+     * "due on today" as {@code alertDueFrom <= today}.
+     */
+    public LocalDate computeAlertDueFrom() {
+        LocalDate dueDate = alertDueDate();
+        return dueDate != null && alertDueOn(dueDate) ? dueDate : null;
+    }
+
+    /**
+     * The date the alert run should queue the current occurrence: {@link #computeAlertDueFrom()}, or null
+     * once it has been queued.
+     */
+    public LocalDate computeNextFireDate() {
+        LocalDate dueFrom = computeAlertDueFrom();
+        return dueFrom == null || dueFrom.equals(alertQueuedFor) ? null : dueFrom;
+    }
+
+    /**
+     * Whether the alert email queued for the occurrence due on {@code dueDate} should still go out: the
+     * alert isn't cancelled and that is still the occurrence the alert run marked queued. Snoozing the alert
+     * or giving it a new date clears the mark (ApplianceController), so the email for the old occurrence is
+     * dropped; a recurring alert keeps it when the run moves it on to its next occurrence.
+     */
+    public boolean queuedAlertStillWanted(LocalDate dueDate) {
+        return !"CANCELLED".equals(alertStatus) && dueDate.equals(alertQueuedFor);
+    }
+
+    /**
+     * Last day of the warranty (purchase date plus warrantyMonths), or null if either is missing or
+     * the purchase date isn't an ISO date.
+     */
+    public LocalDate warrantyExpiry() {
+        if (purchaseDate == null || warrantyMonths == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(purchaseDate).plusMonths(warrantyMonths);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @PrePersist
+    @PreUpdate
+    void refreshDerivedDates() {
+        if (recurrenceAnchor == null) {
+            recurrenceAnchor = alertDate;
+        }
+        alertDueFrom = computeAlertDueFrom();
+        nextFireDate = computeNextFireDate();
+        warrantyExpires = warrantyExpiry();
+    }
+
+    /**
+     * Read-only JSON property, so clients see an expired snooze as ACTIVE.
+     */
+    public String getEffectiveAlertStatus() {
+        return effectiveAlertStatus(LocalDate.now());
+    }
 }
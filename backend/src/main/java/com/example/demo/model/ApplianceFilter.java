@@ -0,0 +1,48 @@
+package com.example.demo.model;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Filters on a user's appliance list; a null field doesn't filter. {@code category} and {@code brand}
+ * match ignoring case. {@code status} is the effective alert status (ACTIVE, SNOOZED, CANCELLED, as
+ * {@link Appliance#effectiveAlertStatus} works it out) or NO_ALERT for appliances without an alert
+ * date; {@code warranty} is ACTIVE, EXPIRED or NONE (no purchase date or warranty length).
+ */
+public record ApplianceFilter(String category, String brand, String status, String warranty) {
+
+    public static final ApplianceFilter NONE = new ApplianceFilter(null, null, null, null);
+
+    private static final Set<String> STATUSES = Set.of("ACTIVE", "SNOOZED", "CANCELLED", "NO_ALERT");
+    private static final Set<String> WARRANTY_STATES = Set.of("ACTIVE", "EXPIRED", "NONE");
+
+    /**
+     * @throws IllegalArgumentException for an unknown status or warranty state
+     */
+    public ApplianceFilter {
+        category = blankToNull(category);
+        brand = blankToNull(brand);
+        status = checked(status, STATUSES, "status");
+        warranty = checked(warranty, WARRANTY_STATES, "warranty");
+    }
+
+    public boolean isEmpty() {
+        return category == null && brand == null && status == null && warranty == null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.strip();
+    }
+
+    private static String checked(String value, Set<String> allowed, String name) {
+        String normalized = blankToNull(value);
+        if (normalized == null) {
+            return null;
+        }
+        normalized = normalized.toUpperCase(Locale.ROOT);
+        if (!allowed.contains(normalized)) {
+            throw new IllegalArgumentException("Invalid " + name + " filter");
+        }
+        return normalized;
+    }
+}
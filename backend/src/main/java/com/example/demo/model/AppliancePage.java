@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * One page of a user's appliances. Pass {@code nextCursor} back as {@code cursor} for the next page;
+ * it is null on the last one.
+ */
+public record AppliancePage(List<ApplianceSummary> items, String nextCursor) {
+}
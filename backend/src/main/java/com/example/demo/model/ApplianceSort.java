@@ -0,0 +1,59 @@
+package com.example.demo.model;
+
+import java.util.Arrays;
+
+/**
+ * Sort keys of the appliance list, by request parameter. Text keys sort ignoring case; ties, and
+ * rows without a value (first ascending, last descending), are ordered by id.
+ */
+public enum ApplianceSort {
+    ID("id"),
+    NAME("name"),
+    BRAND("brand"),
+    CATEGORY("category"),
+    ALERT_DATE("alertDate"),
+    WARRANTY_EXPIRES("warrantyExpires");
+
+    private final String param;
+
+    ApplianceSort(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * The sort key named {@code param}, or ID if it is null or blank.
+     *
+     * @throws IllegalArgumentException for an unknown key
+     */
+    public static ApplianceSort fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return ID;
+        }
+        return Arrays.stream(values())
+                .filter(sort -> sort.param.equalsIgnoreCase(param.strip()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid sort key"));
+    }
+
+    public boolean isDate() {
+        return this == ALERT_DATE || this == WARRANTY_EXPIRES;
+    }
+
+    /**
+     * The row's value of this key, as stored (text keys are not lower-cased).
+     */
+    public Object valueOf(ApplianceSummary summary) {
+        return switch (this) {
+            case ID -> summary.id();
+            case NAME -> summary.name();
+            case BRAND -> summary.brand();
+            case CATEGORY -> summary.category();
+            case ALERT_DATE -> summary.alertDate();
+            case WARRANTY_EXPIRES -> summary.warrantyExpires();
+        };
+    }
+}
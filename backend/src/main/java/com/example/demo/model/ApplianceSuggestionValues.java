@@ -0,0 +1,8 @@
+package com.example.demo.model;
+
+/**
+ * The fields of an {@link Appliance} the brand, model and category typeahead is built from, read
+ * straight from the columns by ApplianceRepository.findSuggestionValues.
+ */
+public record ApplianceSuggestionValues(Long id, Long userId, String category, String brand, String model) {
+}
@@ -0,0 +1,21 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of an {@link Appliance} the list view shows, read straight from the columns by
+ * ApplianceRepository.findSummaries; the full appliance comes from GET /{id}.
+ */
+public record ApplianceSummary(Long id, String name, String category, String brand, String model,
+                               LocalDate alertDate, String alertStatus, LocalDate snoozeUntil,
+                               String recurringInterval, LocalDate warrantyExpires,
+                               String effectiveAlertStatus) {
+
+    // For the query's constructor expression; works out effectiveAlertStatus as Appliance does
+    public ApplianceSummary(Long id, String name, String category, String brand, String model,
+                            LocalDate alertDate, String alertStatus, LocalDate snoozeUntil,
+                            String recurringInterval, LocalDate warrantyExpires) {
+        this(id, name, category, brand, model, alertDate, alertStatus, snoozeUntil, recurringInterval,
+                warrantyExpires, Appliance.effectiveAlertStatus(alertStatus, snoozeUntil, LocalDate.now()));
+    }
+}
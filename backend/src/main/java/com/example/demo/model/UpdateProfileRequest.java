@@ -11,4 +11,8 @@ public class UpdateProfileRequest {
     private String email;
     private LocalDate birthday;
     private String profilePictureUrl;
+    private Boolean alertDigest;
+    private String timeZone;
+    private Integer alertHour;
+    private String locale;
 }
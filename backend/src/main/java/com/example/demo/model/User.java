@@ -39,4 +39,16 @@ public class User {
 
   @Column
   private String profilePictureUrl;
+
+  @Column
+  private Boolean alertDigest; // true: one digest email per alert run instead of one email per appliance
+
+  @Column
+  private String timeZone; // IANA zone id, e.g. America/Chicago; null means the server's zone
+
+  @Column
+  private Integer alertHour; // Preferred local hour (0-23) for alert emails; null means alerts.delivery.default-hour
+
+  @Column
+  private String locale; // BCP 47 language tag for alert emails, e.g. es or en-US; null means the default templates
 }
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.demo.model.AlertNode;
+
+public interface AlertNodeRepository extends JpaRepository<AlertNode, String> {
+    long countByHeartbeatAtAfter(LocalDateTime since);
+}
@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.AlertOutboxEntry;
+
+public interface AlertOutboxRepository extends JpaRepository<AlertOutboxEntry, Long> {
+    List<AlertOutboxEntry> findByApplianceIdInAndDueDateIn(Collection<Long> applianceIds, Collection<LocalDate> dueDates);
+
+    /**
+     * The user's entries in {@code status}, newest first; with FAILED, their dead letters.
+     */
+    List<AlertOutboxEntry> findByUserIdAndStatusOrderByIdDesc(Long userId, String status, Limit limit);
+
+    Optional<AlertOutboxEntry> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Users in the given alert partitions (userId mod {@code partitionCount}) with entries in one of
+     * {@code statuses} whose send time has come by {@code now} (null for any send time), or SENDING
+     * entries whose claim lapsed by {@code claimExpiredBy}; keyset-paginated by user id (pass the last
+     * id of the previous page, 0 to start).
+     */
+    @Query("SELECT DISTINCT e.userId FROM AlertOutboxEntry e"
+            + " WHERE (e.status IN :statuses AND (:now IS NULL OR e.sendAfter IS NULL OR e.sendAfter <= :now)"
+            + " OR e.status = 'SENDING' AND e.sendAfter <= :claimExpiredBy)"
+            + " AND MOD(e.userId, :partitionCount) IN :partitions"
+            + " AND e.userId > :afterUserId ORDER BY e.userId")
+    List<Long> findSendableUserIds(@Param("statuses") Collection<String> statuses, @Param("now") LocalDateTime now,
+                                   @Param("claimExpiredBy") LocalDateTime claimExpiredBy,
+                                   @Param("partitionCount") int partitionCount,
+                                   @Param("partitions") Collection<Integer> partitions,
+                                   @Param("afterUserId") Long afterUserId, Limit limit);
+
+    /**
+     * The given users' entries in one of {@code statuses} whose send time has come by {@code now}
+     * (null for any send time), and their SENDING entries whose claim lapsed by {@code claimExpiredBy}.
+     */
+    @Query("SELECT e FROM AlertOutboxEntry e WHERE e.userId IN :userIds"
+            + " AND (e.status IN :statuses AND (:now IS NULL OR e.sendAfter IS NULL OR e.sendAfter <= :now)"
+            + " OR e.status = 'SENDING' AND e.sendAfter <= :claimExpiredBy) ORDER BY e.id")
+    List<AlertOutboxEntry> findSendable(@Param("userIds") Collection<Long> userIds,
+                                        @Param("statuses") Collection<String> statuses,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("claimExpiredBy") LocalDateTime claimExpiredBy);
+
+    /**
+     * Claims an entry for sending: marks it SENDING until {@code claimUntil}, but only if its status and
+     * attempts are still those it was read with. A single conditional UPDATE, so when two relays read the
+     * same entry only one can win. Returns 1 on success.
+     */
+    @Modifying
+    @Query("UPDATE AlertOutboxEntry e SET e.status = 'SENDING', e.sendAfter = :claimUntil"
+            + " WHERE e.id = :id AND e.status = :status AND e.attempts = :attempts")
+    int claim(@Param("id") Long id, @Param("status") String status, @Param("attempts") int attempts,
+              @Param("claimUntil") LocalDateTime claimUntil);
+}
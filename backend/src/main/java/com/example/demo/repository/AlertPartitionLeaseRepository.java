@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.AlertPartitionLease;
+
+public interface AlertPartitionLeaseRepository extends JpaRepository<AlertPartitionLease, Integer> {
+
+    /**
+     * Takes or renews the lease on a partition if it is free, expired, or already held by {@code owner}.
+     * A single conditional UPDATE, so two nodes racing for a partition can't both win. Returns 1 on success.
+     */
+    @Modifying
+    @Query("UPDATE AlertPartitionLease l SET l.owner = :owner, l.expiresAt = :expiresAt, l.heartbeatAt = :now"
+            + " WHERE l.partitionId = :partitionId"
+            + " AND (l.owner IS NULL OR l.owner = :owner OR l.expiresAt < :now)")
+    int claim(@Param("partitionId") Integer partitionId, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE AlertPartitionLease l SET l.owner = NULL, l.expiresAt = NULL"
+            + " WHERE l.partitionId IN :partitionIds AND l.owner = :owner")
+    int release(@Param("partitionIds") Collection<Integer> partitionIds, @Param("owner") String owner);
+}
@@ -1,17 +1,80 @@
 package com.example.demo.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSuggestionValues;
+
+public interface ApplianceRepository extends JpaRepository<Appliance, Long>, ApplianceRepositoryCustom {
+
+    // Appliance.alertDueOn(:today) for rows the alert run hasn't queued yet. Both conditions are plain ranges
+    // on columns the entity derives from alertDueOn (Appliance.refreshDerivedDates), so the rule itself
+    // lives in one place.
+    String DUE_ALERT = "a.nextFireDate <= :today";
+
+    // Appliance.alertDueOn(:today) itself, whether or not the alert was already queued
+    String ALERT_DUE_ON = "a.alertDueFrom <= :today";
+
+    // Keyset position after (:afterFireDate, :afterId) in next_fire_date, id order; a null date starts from the top
+    String AFTER_CURSOR = "(:afterFireDate IS NULL OR a.nextFireDate > :afterFireDate"
+            + " OR (a.nextFireDate = :afterFireDate AND a.id > :afterId))";
 
-public interface ApplianceRepository extends JpaRepository<Appliance, Long> {
     List<Appliance> findAllByUserId(Long userId);
 
     Optional<Appliance> findByUserIdAndId(Long userId, Long applianceId);
 
-    List<Appliance> findByAlertDateBefore(LocalDate date);
+    /**
+     * Appliances whose warranty expiry can be computed but isn't in warranty_expires: rows written before
+     * the column existed. SQLite's date() gives back an ISO date string unchanged and normalizes or drops
+     * anything else, so rows whose purchase date isn't one (warrantyExpiry() null) are left out rather
+     * than read again on every startup.
+     */
+    @Query("SELECT a FROM Appliance a WHERE a.warrantyExpires IS NULL AND a.warrantyMonths IS NOT NULL"
+            + " AND FUNCTION('date', a.purchaseDate) = a.purchaseDate")
+    List<Appliance> findMissingWarrantyExpires();
+
+    /**
+     * Owner, category, brand and model of up to {@code limit} appliances with ids above {@code afterId},
+     * in id order (0 to start), for ApplianceSuggestionService to fill its indexes from.
+     */
+    @Query("SELECT new com.example.demo.model.ApplianceSuggestionValues(a.id, a.userId, a.category, a.brand, a.model)"
+            + " FROM Appliance a WHERE a.id > :afterId ORDER BY a.id")
+    List<ApplianceSuggestionValues> findSuggestionValues(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Appliances whose alert should produce an email on {@code today}: alert date reached,
+     * not cancelled, and either not snoozed or snoozed until {@code today} or earlier.
+     * Results are keyset-paginated in (nextFireDate, id) order, the order of idx_appliances_next_fire:
+     * pass the next fire date and id of the last row of the previous chunk (null and 0 to start).
+     */
+    @Query("SELECT a FROM Appliance a WHERE " + DUE_ALERT + " AND " + AFTER_CURSOR + " ORDER BY a.nextFireDate, a.id")
+    List<Appliance> findDueAlerts(@Param("today") LocalDate today,
+                                  @Param("afterFireDate") LocalDate afterFireDate,
+                                  @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * {@link #findDueAlerts} restricted to owners in the given alert partitions (userId mod {@code partitionCount}).
+     */
+    @Query("SELECT a FROM Appliance a WHERE " + DUE_ALERT
+            + " AND MOD(a.userId, :partitionCount) IN :partitions AND " + AFTER_CURSOR + " ORDER BY a.nextFireDate, a.id")
+    List<Appliance> findDueAlertsInPartitions(@Param("today") LocalDate today,
+                                              @Param("partitionCount") int partitionCount,
+                                              @Param("partitions") Collection<Integer> partitions,
+                                              @Param("afterFireDate") LocalDate afterFireDate,
+                                              @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * A user's alerts due on {@code today}, including ones already emailed, oldest first; a range of
+     * idx_appliances_user_alert_due_from.
+     */
+    @Query("SELECT a FROM Appliance a WHERE a.userId = :userId AND " + ALERT_DUE_ON + " ORDER BY a.alertDate, a.id")
+    List<Appliance> findDueAlertsByUserId(@Param("userId") Long userId, @Param("today") LocalDate today);
 }
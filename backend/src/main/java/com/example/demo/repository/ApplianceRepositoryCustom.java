@@ -0,0 +1,45 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.model.ApplianceSummary;
+
+/**
+ * Filtered, sorted reads of the appliance list, implemented with the Criteria API in
+ * ApplianceRepositoryImpl: the order by a case-insensitive key and the keyset position are more than
+ * derived queries and Sort can express. Full-text search goes through the appliances_fts index
+ * (ApplianceSearchIndex).
+ */
+public interface ApplianceRepositoryCustom {
+
+    /**
+     * Keyset position: the sort key value (as stored; null for a row without one) and id of the last
+     * row of the previous page.
+     */
+    record After(Object value, long id) {
+    }
+
+    /**
+     * Appliances matching {@code spec}, in {@code sort} order, then id.
+     */
+    List<Appliance> findFiltered(Specification<Appliance> spec, ApplianceSort sort, boolean descending);
+
+    /**
+     * Up to {@code limit} summaries of appliances matching {@code spec} that come after {@code after}
+     * (null to start) in {@code sort} order, then id.
+     */
+    List<ApplianceSummary> findSummaries(Specification<Appliance> spec, ApplianceSort sort, boolean descending,
+                                         After after, int limit);
+
+    /**
+     * Up to {@code limit} summaries of the user's appliances whose name, brand, model, description or
+     * notes contain every word of {@code text} (matched by stem, ignoring case and accents), best match
+     * first, skipping the first {@code offset}. Name matches rank above brand and model, then
+     * description, then notes.
+     */
+    List<ApplianceSummary> search(Long userId, String text, int offset, int limit);
+}
@@ -0,0 +1,174 @@
+package com.example.demo.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.model.ApplianceSummary;
+
+class ApplianceRepositoryImpl implements ApplianceRepositoryCustom {
+
+    // Best match first: bm25() with the columns weighted, in appliances_fts column order (ApplianceSearchIndex),
+    // user_id 0, name 10, brand and model 5, description 2 and notes 1; then by id
+    private static final String MATCHES_BY_BM25 = """
+            SELECT rowid FROM appliances_fts WHERE appliances_fts MATCH :match
+            ORDER BY bm25(appliances_fts, 0.0, 10.0, 5.0, 5.0, 2.0, 1.0), rowid
+            LIMIT :limit OFFSET :offset""";
+
+    private final EntityManager entityManager;
+
+    ApplianceRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Appliance> findFiltered(Specification<Appliance> spec, ApplianceSort sort, boolean descending) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Appliance> query = cb.createQuery(Appliance.class);
+        Root<Appliance> appliance = query.from(Appliance.class);
+
+        query.select(appliance)
+                .where(spec.toPredicate(appliance, query, cb))
+                .orderBy(orderBy(cb, appliance, sort, descending));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<ApplianceSummary> findSummaries(Specification<Appliance> spec, ApplianceSort sort, boolean descending,
+                                                After after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ApplianceSummary> query = cb.createQuery(ApplianceSummary.class);
+        Root<Appliance> appliance = query.from(Appliance.class);
+
+        Predicate where = spec.toPredicate(appliance, query, cb);
+        if (after != null) {
+            where = cb.and(where, after(cb, appliance, sort, descending, after));
+        }
+        query.select(summary(cb, appliance))
+                .where(where)
+                .orderBy(orderBy(cb, appliance, sort, descending));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Ranks and pages in SQLite, so a page reads only its own rows whatever the number of matches.
+     */
+    @Override
+    public List<ApplianceSummary> search(Long userId, String text, int offset, int limit) {
+        String match = matchExpression(userId, text);
+        if (match == null) {
+            return List.of();
+        }
+        @SuppressWarnings("unchecked")
+        List<Number> rowids = entityManager.createNativeQuery(MATCHES_BY_BM25)
+                .setParameter("match", match)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset)
+                .getResultList();
+        List<Long> ids = rowids.stream().map(Number::longValue).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ApplianceSummary> query = cb.createQuery(ApplianceSummary.class);
+        Root<Appliance> appliance = query.from(Appliance.class);
+        query.select(summary(cb, appliance)).where(appliance.get("id").in(ids));
+        List<ApplianceSummary> summaries = new ArrayList<>(entityManager.createQuery(query).getResultList());
+        summaries.sort(Comparator.comparingInt(summary -> ids.indexOf(summary.id())));
+        return summaries;
+    }
+
+    /**
+     * An FTS5 query for the user's rows containing every word of {@code text}, or null if it has no
+     * words. Each word is quoted, so the tokenizer splits it the way it split the indexed text and
+     * nothing in it is read as query syntax.
+     */
+    static String matchExpression(Long userId, String text) {
+        List<String> phrases = new ArrayList<>();
+        for (String word : text.trim().split("\\s+")) {
+            if (word.codePoints().anyMatch(Character::isLetterOrDigit)) {
+                phrases.add('"' + word.replace("\"", "\"\"") + '"');
+            }
+        }
+        if (phrases.isEmpty()) {
+            return null;
+        }
+        return "user_id : \"" + userId + "\" AND (" + String.join(" ", phrases) + ")";
+    }
+
+    private static CompoundSelection<ApplianceSummary> summary(CriteriaBuilder cb, Root<Appliance> appliance) {
+        return cb.construct(ApplianceSummary.class,
+                appliance.get("id"), appliance.get("name"), appliance.get("category"),
+                appliance.get("brand"), appliance.get("model"), appliance.get("alertDate"),
+                appliance.get("alertStatus"), appliance.get("snoozeUntil"),
+                appliance.get("recurringInterval"), appliance.get("warrantyExpires"));
+    }
+
+    // Text keys compare ignoring case, matching the NOCASE indexes in schema.sql
+    @SuppressWarnings("unchecked")
+    private static Expression<Comparable<Object>> key(CriteriaBuilder cb, Root<Appliance> appliance, ApplianceSort sort) {
+        Expression<?> key = switch (sort) {
+            case ID -> appliance.get("id");
+            case NAME -> ApplianceSpecifications.ignoringCase(cb, appliance.get("name"));
+            case BRAND -> ApplianceSpecifications.ignoringCase(cb, appliance.get("brand"));
+            case CATEGORY -> ApplianceSpecifications.ignoringCase(cb, appliance.get("category"));
+            case ALERT_DATE -> appliance.get("alertDate");
+            case WARRANTY_EXPIRES -> appliance.get("warrantyExpires");
+        };
+        return (Expression<Comparable<Object>>) key;
+    }
+
+    private static List<Order> orderBy(CriteriaBuilder cb, Root<Appliance> appliance, ApplianceSort sort, boolean descending) {
+        Path<Long> id = appliance.get("id");
+        if (sort == ApplianceSort.ID) {
+            return List.of(descending ? cb.desc(id) : cb.asc(id));
+        }
+        Expression<Comparable<Object>> key = key(cb, appliance, sort);
+        return descending ? List.of(cb.desc(key), cb.desc(id)) : List.of(cb.asc(key), cb.asc(id));
+    }
+
+    /**
+     * Rows after {@code after} in (key, id) order. SQLite sorts nulls first ascending and last descending,
+     * and the key's bound ({@code key >= value}) is kept separate from the tie-break on id so the index
+     * can seek to it.
+     */
+    @SuppressWarnings("unchecked")
+    private static Predicate after(CriteriaBuilder cb, Root<Appliance> appliance, ApplianceSort sort, boolean descending,
+                                   After after) {
+        Path<Long> id = appliance.get("id");
+        if (sort == ApplianceSort.ID) {
+            return descending ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id());
+        }
+
+        Expression<Comparable<Object>> key = key(cb, appliance, sort);
+        Predicate pastId = descending ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id());
+        if (after.value() == null) {
+            // Still among the rows without a value: the rest of those, then (ascending) every row with one
+            Predicate restOfNulls = cb.and(cb.isNull(key), pastId);
+            return descending ? restOfNulls : cb.or(restOfNulls, cb.isNotNull(key));
+        }
+
+        // Bound rather than a criteria literal (which Hibernate inlines), so a date is converted as the column stores it
+        Comparable<Object> value = (Comparable<Object>) after.value();
+        if (descending) {
+            Predicate rest = cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), pastId));
+            return cb.or(rest, cb.isNull(key));
+        }
+        return cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), pastId));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+
+/**
+ * The appliance list filters as JPA Specifications. Each starts from the owner's rows and compares a
+ * column that one of the appliances indexes leads with, after user_id.
+ */
+public final class ApplianceSpecifications {
+
+    private ApplianceSpecifications() {
+    }
+
+    /**
+     * The user's appliances matching every filter set in {@code filter}, as of {@code today}.
+     */
+    public static Specification<Appliance> matching(Long userId, ApplianceFilter filter, LocalDate today) {
+        return Specification.where(ownedBy(userId))
+                .and(inCategory(filter.category()))
+                .and(withBrand(filter.brand()))
+                .and(withStatus(filter.status(), today))
+                .and(withWarranty(filter.warranty(), today));
+    }
+
+    public static Specification<Appliance> ownedBy(Long userId) {
+        return (appliance, query, cb) -> cb.equal(appliance.get("userId"), userId);
+    }
+
+    public static Specification<Appliance> inCategory(String category) {
+        if (category == null) {
+            return null;
+        }
+        return (appliance, query, cb) -> cb.equal(ignoringCase(cb, appliance.get("category")), category);
+    }
+
+    public static Specification<Appliance> withBrand(String brand) {
+        if (brand == null) {
+            return null;
+        }
+        return (appliance, query, cb) -> cb.equal(ignoringCase(cb, appliance.get("brand")), brand);
+    }
+
+    /**
+     * {@code text} compared and ordered ignoring case, as the NOCASE indexes in schema.sql are. Like
+     * SQLite's lower(), NOCASE only folds ASCII letters.
+     */
+    public static Expression<String> ignoringCase(CriteriaBuilder cb, Expression<String> text) {
+        return ((HibernateCriteriaBuilder) cb).collate(text, "NOCASE");
+    }
+
+    /**
+     * Effective alert status, by the rule of Appliance.effectiveAlertStatus: a snooze that has run out
+     * counts as ACTIVE. NO_ALERT matches appliances without an alert date; ACTIVE needs one, since a
+     * null status is ACTIVE only for an appliance that has an alert at all.
+     */
+    public static Specification<Appliance> withStatus(String status, LocalDate today) {
+        if (status == null) {
+            return null;
+        }
+        return (appliance, query, cb) -> {
+            Path<String> alertStatus = appliance.get("alertStatus");
+            Path<LocalDate> snoozeUntil = appliance.get("snoozeUntil");
+            return switch (status) {
+                case "CANCELLED" -> cb.equal(alertStatus, "CANCELLED");
+                case "SNOOZED" -> cb.and(cb.equal(alertStatus, "SNOOZED"), cb.greaterThan(snoozeUntil, today));
+                case "NO_ALERT" -> cb.isNull(appliance.get("alertDate"));
+                default -> cb.and(cb.isNotNull(appliance.get("alertDate")), cb.or(
+                        cb.isNull(alertStatus),
+                        cb.equal(alertStatus, "ACTIVE"),
+                        cb.and(cb.equal(alertStatus, "SNOOZED"),
+                                cb.or(cb.isNull(snoozeUntil), cb.lessThanOrEqualTo(snoozeUntil, today)))));
+            };
+        };
+    }
+
+    /**
+     * ACTIVE while the last day of the warranty hasn't passed, EXPIRED after, NONE without a warranty.
+     */
+    public static Specification<Appliance> withWarranty(String warranty, LocalDate today) {
+        if (warranty == null) {
+            return null;
+        }
+        return (appliance, query, cb) -> {
+            Path<LocalDate> warrantyExpires = appliance.get("warrantyExpires");
+            return switch (warranty) {
+                case "ACTIVE" -> cb.greaterThanOrEqualTo(warrantyExpires, today);
+                case "EXPIRED" -> cb.lessThan(warrantyExpires, today);
+                default -> cb.isNull(warrantyExpires);
+            };
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.EntityChangeLogEntry;
+
+public interface EntityChangeLogRepository extends JpaRepository<EntityChangeLogEntry, Long> {
+
+    List<EntityChangeLogEntry> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM EntityChangeLogEntry e")
+    long findMaxId();
+
+    /**
+     * Deletes entries written before {@code before}, except the newest: SQLite hands out the next id
+     * as the largest one in the table plus one, so removing it could let a new entry reuse an id
+     * that readers have already passed.
+     */
+    @Modifying
+    @Query("DELETE FROM EntityChangeLogEntry e WHERE e.createdAt < :before AND e.id < :newestId")
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("newestId") long newestId);
+}
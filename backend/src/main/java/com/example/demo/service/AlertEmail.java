@@ -0,0 +1,8 @@
+package com.example.demo.service;
+
+/**
+ * A rendered email, ready to send: built by EmailService from the mail templates and turned into a
+ * MIME message (multipart plain text and HTML when {@code html} is set) only when it is sent.
+ */
+public record AlertEmail(String to, String subject, String text, String html) {
+}
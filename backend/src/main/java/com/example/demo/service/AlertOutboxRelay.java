@@ -0,0 +1,443 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Delivers the alert emails queued in the outbox and records whether each one was sent,
+ * is waiting for a retry, or has failed for good. Drains run on a dedicated relay thread, so
+ * neither the alert run nor the shared scheduler thread ever waits on the SMTP server.
+ */
+@Service
+public class AlertOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertOutboxRelay.class);
+
+    private static final List<String> READY_STATUSES = List.of("PENDING", "RETRYING");
+
+    private final AlertOutboxRepository alertOutboxRepository;
+    private final ApplianceRepository applianceRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final AlertPartitionService alertPartitionService;
+    private final EntityManager entityManager;
+    private final AlertProperties alertProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService dispatchExecutor;
+    private final ExecutorService relayExecutor;
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    // Token bucket for the send rate: refills at alerts.delivery.max-per-minute, holds at most alerts.delivery.burst.
+    // Negative until the first drain fills it.
+    private double tokens = -1;
+    private long refilledAtNanos;
+
+    public AlertOutboxRelay(AlertOutboxRepository alertOutboxRepository,
+                            ApplianceRepository applianceRepository,
+                            UserRepository userRepository,
+                            EmailService emailService,
+                            AlertPartitionService alertPartitionService,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            AlertProperties alertProperties) {
+        this.alertOutboxRepository = alertOutboxRepository;
+        this.applianceRepository = applianceRepository;
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+        this.alertPartitionService = alertPartitionService;
+        this.entityManager = entityManager;
+        this.alertProperties = alertProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("alert-dispatch-");
+        threadFactory.setDaemon(true);
+        this.dispatchExecutor = Executors.newFixedThreadPool(alertProperties.getMaxInFlight(), threadFactory);
+
+        CustomizableThreadFactory relayThreadFactory = new CustomizableThreadFactory("alert-relay-");
+        relayThreadFactory.setDaemon(true);
+        this.relayExecutor = Executors.newSingleThreadExecutor(relayThreadFactory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+        dispatchExecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.outbox.relay-interval-ms:60000}",
+               initialDelayString = "${alerts.outbox.relay-interval-ms:60000}")
+    public void relayPeriodically() {
+        requestDrain();
+    }
+
+    /**
+     * Asks the relay thread for a {@link #drain} and returns straight away. Requests made while one is
+     * still waiting to start are folded into it; one made during a drain gets a drain of its own afterwards.
+     */
+    public void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            relayExecutor.execute(() -> {
+                drainRequested.set(false);
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    log.error("Alert outbox drain failed; entries stay queued for the next one", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sends every PENDING or RETRYING entry whose send time has come, up to the per-minute ceiling.
+     * Work is chunked by owner, so all of a user's entries are handled together and digest users get
+     * a single email per drain. Synchronized so the periodic relay and a drain at the end of an alert
+     * run never send the same entry twice; other nodes only drain users in partitions they hold, and each
+     * entry is claimed before it is sent, so of two relays that read an entry whose partition just moved only one sends it.
+     * While the mail circuit is open it stops early, leaving entries queued without using up attempts.
+     * Normally reached through {@link #requestDrain}.
+     */
+    public synchronized void drain() {
+        drain(LocalDateTime.now());
+    }
+
+    /**
+     * A {@link #drain} on the caller's thread that doesn't wait for send times: every PENDING or
+     * RETRYING entry goes out now, still within the per-minute ceiling and only while the mail circuit
+     * is closed. For /trigger-alerts and ManualAlertTest, which report what was actually sent.
+     */
+    public synchronized DrainResult drainNow() {
+        return drain(null);
+    }
+
+    // sendableBy null ignores send times
+    private DrainResult drain(LocalDateTime sendableBy) {
+        List<Integer> partitions = alertPartitionService.ownedPartitions();
+        if (partitions.isEmpty()) {
+            return new DrainResult(0, 0, 0, false);
+        }
+        int partitionCount = alertPartitionService.partitionCount();
+        int chunkSize = alertProperties.getChunkSize();
+        RelayRun run = new RelayRun();
+        long lastUserId = 0;
+        List<Long> userIds;
+
+        do {
+            if (emailService.isTransportRefusing()) {
+                run.transportDown = true;
+                break;
+            }
+            int allowance = availableTokens();
+            if (allowance <= 0) {
+                run.throttled = true;
+                break;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            userIds = alertOutboxRepository.findSendableUserIds(READY_STATUSES, sendableBy, now, partitionCount,
+                    partitions, lastUserId, Limit.of(chunkSize));
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            List<AlertOutboxEntry> entries = claim(alertOutboxRepository.findSendable(userIds, READY_STATUSES,
+                    sendableBy, now), run);
+            if (!entries.isEmpty()) {
+                tokens -= deliverChunk(userIds, entries, allowance, run);
+                transactionTemplate.executeWithoutResult(status -> {
+                    // The entries were read outside this transaction; loading them back in one query lets
+                    // saveAll's merge find each in the persistence context rather than select it by id
+                    alertOutboxRepository.findAllById(entries.stream().map(AlertOutboxEntry::getId).toList());
+                    alertOutboxRepository.saveAll(entries);
+                });
+            }
+
+            lastUserId = userIds.get(userIds.size() - 1);
+            entityManager.clear();
+        } while (userIds.size() == chunkSize);
+
+        if (run.sent + run.retrying + run.failed + run.skipped > 0) {
+            log.info("Relayed alert outbox in {} emails: {} sent, {} retrying, {} failed, {} skipped ({} owner queries)",
+                    run.emails, run.sent, run.retrying, run.failed, run.skipped, run.ownerQueries);
+        }
+        if (run.claimedElsewhere > 0) {
+            log.debug("{} queued alerts were claimed by another relay first", run.claimedElsewhere);
+        }
+        if (run.throttled) {
+            log.info("Reached the ceiling of {} alert emails per minute; the rest wait for the next relay pass",
+                    alertProperties.getDelivery().getMaxPerMinute());
+        }
+        if (run.deferred > 0) {
+            log.warn("Mail transport became unavailable; {} queued alerts deferred to a later relay pass", run.deferred);
+        } else if (run.transportDown) {
+            log.debug("Mail transport is unavailable; queued alerts wait for a later relay pass");
+        }
+        return new DrainResult(run.sent, run.retrying, run.failed,
+                !run.throttled && !run.transportDown && run.deferred == 0);
+    }
+
+    /**
+     * Marks the entries SENDING, each only if it is still as it was read, and returns the ones this relay won.
+     * Partitions can change hands between another node's read and its send, so two relays may read the same
+     * entries; only the one that claims an entry sends it, and only it saves the outcome. A claim lapses after
+     * alerts.outbox.claim-ms, so entries left SENDING by a node that stopped mid-send go out again. The returned
+     * entries keep the status they were read with in memory, so saving one that wasn't sent hands it back.
+     */
+    private List<AlertOutboxEntry> claim(List<AlertOutboxEntry> entries, RelayRun run) {
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        // Detached, so saving them later writes every field back over the claim, not just those changed since
+        entityManager.clear();
+        LocalDateTime claimUntil = LocalDateTime.now().plus(Duration.ofMillis(alertProperties.getOutbox().getClaimMs()));
+        List<AlertOutboxEntry> claimed = transactionTemplate.execute(status -> {
+            List<AlertOutboxEntry> won = new ArrayList<>();
+            for (AlertOutboxEntry entry : entries) {
+                if (alertOutboxRepository.claim(entry.getId(), entry.getStatus(), entry.getAttempts(), claimUntil) == 1) {
+                    won.add(entry);
+                }
+            }
+            return won;
+        });
+        run.claimedElsewhere += entries.size() - claimed.size();
+        return claimed;
+    }
+
+    /**
+     * Emails that may be started now: the bucket, topped up for the time since it was last checked.
+     */
+    private int availableTokens() {
+        AlertProperties.Delivery delivery = alertProperties.getDelivery();
+        long now = System.nanoTime();
+        double capacity = Math.max(1, Math.min(delivery.getBurst(), delivery.getMaxPerMinute()));
+        if (tokens < 0) {
+            tokens = capacity;
+        } else {
+            tokens = Math.min(capacity, tokens + (now - refilledAtNanos) * delivery.getMaxPerMinute() / 60e9);
+        }
+        refilledAtNanos = now;
+        return (int) tokens;
+    }
+
+    /**
+     * Sends a chunk in batches on the dispatch pool, waits for all of it, and updates each entry's
+     * status in memory from its own email's outcome; the caller persists the chunk in one transaction.
+     * Entries whose alert was cancelled, snoozed or re-dated since they were queued are marked SKIPPED unsent.
+     * Starts at most {@code allowance} emails, leaving the other entries untouched, and returns how many it started.
+     */
+    private int deliverChunk(List<Long> userIds, List<AlertOutboxEntry> entries, int allowance, RelayRun run) {
+        Map<Long, Appliance> appliances = new HashMap<>();
+        Set<Long> applianceIds = new HashSet<>();
+        for (AlertOutboxEntry entry : entries) {
+            applianceIds.add(entry.getApplianceId());
+        }
+        for (Appliance appliance : applianceRepository.findAllById(applianceIds)) {
+            appliances.put(appliance.getId(), appliance);
+        }
+
+        Map<Long, User> owners = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            owners.put(user.getId(), user);
+        }
+        run.ownerQueries++;
+
+        Map<Long, List<AlertOutboxEntry>> entriesByUser = new LinkedHashMap<>();
+        for (AlertOutboxEntry entry : entries) {
+            entriesByUser.computeIfAbsent(entry.getUserId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        List<Delivery> deliveries = new ArrayList<>();
+        for (Map.Entry<Long, List<AlertOutboxEntry>> userEntries : entriesByUser.entrySet()) {
+            if (deliveries.size() >= allowance) {
+                run.throttled = true;
+                break;
+            }
+            User user = owners.get(userEntries.getKey());
+            List<AlertOutboxEntry> deliverable = new ArrayList<>();
+            List<Appliance> due = new ArrayList<>();
+
+            for (AlertOutboxEntry entry : userEntries.getValue()) {
+                Appliance appliance = appliances.get(entry.getApplianceId());
+                if (appliance == null || user == null) {
+                    entry.setStatus("FAILED");
+                    entry.setLastError(appliance == null ? "Appliance no longer exists" : "User no longer exists");
+                    run.failed++;
+                    log.warn("Dropping queued alert {}: {}", entry.getId(), entry.getLastError());
+                    continue;
+                }
+                if (!appliance.queuedAlertStillWanted(entry.getDueDate())) {
+                    entry.setStatus("SKIPPED");
+                    run.skipped++;
+                    log.debug("Skipping queued alert {}: cancelled, snoozed or re-dated since it was queued", entry.getId());
+                    continue;
+                }
+                deliverable.add(entry);
+                due.add(appliance);
+            }
+            if (deliverable.isEmpty()) {
+                continue;
+            }
+
+            if (Boolean.TRUE.equals(user.getAlertDigest()) && deliverable.size() > 1) {
+                deliveries.add(new Delivery(deliverable, emailService.buildMaintenanceDigest(user, due)));
+            } else {
+                for (int i = 0; i < deliverable.size(); i++) {
+                    if (deliveries.size() >= allowance) {
+                        run.throttled = true;
+                        break;
+                    }
+                    Appliance appliance = due.get(i);
+                    AlertOutboxEntry entry = deliverable.get(i);
+                    int missed = entry.getMissedOccurrences() == null ? 0 : entry.getMissedOccurrences();
+                    deliveries.add(new Delivery(List.of(entry),
+                            emailService.buildMaintenanceAlert(user, appliance, entry.getDueDate(), missed)));
+                }
+            }
+        }
+
+        // Each batch goes over one SMTP connection; up to max-in-flight batches are sent at once
+        int batchSize = batchSize(deliveries.size());
+        List<Future<List<Exception>>> batches = new ArrayList<>();
+        for (int from = 0; from < deliveries.size(); from += batchSize) {
+            List<AlertEmail> messages = new ArrayList<>();
+            for (Delivery delivery : deliveries.subList(from, Math.min(from + batchSize, deliveries.size()))) {
+                messages.add(delivery.message());
+            }
+            batches.add(dispatchExecutor.submit(() -> emailService.sendAll(messages)));
+        }
+
+        for (int batch = 0; batch < batches.size(); batch++) {
+            List<Delivery> sent = deliveries.subList(batch * batchSize, Math.min((batch + 1) * batchSize, deliveries.size()));
+            List<Exception> failures;
+            try {
+                failures = batches.get(batch).get();
+            } catch (ExecutionException e) {
+                failures = new ArrayList<>(Collections.nCopies(sent.size(), (Exception) e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The sends may or may not have happened; leave the entries as they were for the next drain
+                log.warn("Interrupted while waiting for a batch of {} alert emails", sent.size());
+                break;
+            }
+            for (int i = 0; i < sent.size(); i++) {
+                recordOutcome(sent.get(i), failures.get(i), run);
+            }
+        }
+        return deliveries.size();
+    }
+
+    /**
+     * Emails per SMTP connection: alerts.delivery.batch-size at most, but spread over the dispatch
+     * pool so a small chunk still uses every connection rather than queueing behind one.
+     */
+    private int batchSize(int emails) {
+        int maxInFlight = alertProperties.getMaxInFlight();
+        int perConnection = (emails + maxInFlight - 1) / maxInFlight;
+        return Math.max(1, Math.min(alertProperties.getDelivery().getBatchSize(), perConnection));
+    }
+
+    private void recordOutcome(Delivery delivery, Exception error, RelayRun run) {
+        if (error instanceof MailCircuitBreaker.CircuitOpenException) {
+            // Refused without being tried: not an attempt, so the entries keep their status and count
+            run.deferred += delivery.entries().size();
+            return;
+        }
+        run.emails++;
+        for (AlertOutboxEntry entry : delivery.entries()) {
+            entry.setAttempts(entry.getAttempts() + 1);
+            if (error == null) {
+                entry.setStatus("SENT");
+                entry.setSentAt(LocalDateTime.now());
+                entry.setLastError(null);
+                run.sent++;
+            } else {
+                recordFailure(entry, error.getMessage(), run);
+            }
+        }
+    }
+
+    private void recordFailure(AlertOutboxEntry entry, String error, RelayRun run) {
+        entry.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (entry.getAttempts() >= alertProperties.getOutbox().getMaxAttempts()) {
+            entry.setStatus("FAILED");
+            run.failed++;
+            log.error("Giving up on queued alert {} after {} attempts: {}", entry.getId(), entry.getAttempts(), error);
+        } else {
+            LocalDateTime retryAt = LocalDateTime.now().plus(retryBackoff(entry.getAttempts()));
+            entry.setStatus("RETRYING");
+            entry.setSendAfter(retryAt);
+            run.retrying++;
+            log.warn("Queued alert {} failed (attempt {}), will retry after {}: {}",
+                    entry.getId(), entry.getAttempts(), retryAt, error);
+        }
+    }
+
+    /**
+     * Exponential backoff: alerts.outbox.retry-backoff-ms after the first failed attempt, doubling
+     * with each one after that, capped at alerts.outbox.max-retry-backoff-ms.
+     */
+    Duration retryBackoff(int attempts) {
+        AlertProperties.Outbox outbox = alertProperties.getOutbox();
+        long backoff = outbox.getRetryBackoffMs() << Math.min(Math.max(attempts - 1, 0), 30);
+        return Duration.ofMillis(Math.min(backoff, outbox.getMaxRetryBackoffMs()));
+    }
+
+    /**
+     * What a drain did with the entries it reached: sent, left for a retry, or failed for good.
+     * {@code complete} is false if the per-minute ceiling or the mail circuit stopped it with entries
+     * still queued, or this node holds no alert partitions.
+     */
+    public record DrainResult(int sent, int retrying, int failed, boolean complete) {
+    }
+
+    /**
+     * One email to send and the outbox entries it covers (several for a digest).
+     */
+    private record Delivery(List<AlertOutboxEntry> entries, AlertEmail message) {
+    }
+
+    private static class RelayRun {
+        private int emails;
+        private int sent;
+        private int retrying;
+        private int failed;
+        private int skipped;
+        private int ownerQueries;
+        private int deferred;
+        private int claimedElsewhere;
+        private boolean throttled;
+        private boolean transportDown;
+    }
+}
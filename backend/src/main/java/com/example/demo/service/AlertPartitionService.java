@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.config.NodeProperties;
+import com.example.demo.model.AlertNode;
+import com.example.demo.model.AlertPartitionLease;
+import com.example.demo.repository.AlertNodeRepository;
+import com.example.demo.repository.AlertPartitionLeaseRepository;
+
+/**
+ * Splits alert work between backend nodes. Users fall into alerts.partitions.count partitions
+ * (userId mod count); each node leases a fair share of them in alert_partition_leases and only
+ * queues and sends alerts for users in partitions it holds. Leases are renewed on a heartbeat,
+ * so partitions of a node that stops heartbeating pass to the others once they expire.
+ *
+ * <p>The heartbeat has a thread of its own rather than sharing Spring's scheduler with the alert
+ * run: a run longer than alerts.partitions.lease-ms would otherwise hold it up until the leases
+ * lapse, and the run would stop for want of partitions.
+ *
+ * <p>With the default single partition, one node holds everything and any extra node stays idle.
+ */
+@Service
+public class AlertPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertPartitionService.class);
+
+    private final AlertPartitionLeaseRepository leaseRepository;
+    private final AlertNodeRepository nodeRepository;
+    private final EntityManager entityManager;
+    private final AlertProperties alertProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeatExecutor;
+
+    // Partitions held after the last heartbeat, and when those leases run out if not renewed
+    private volatile List<Integer> owned = List.of();
+    private volatile LocalDateTime ownedUntil = LocalDateTime.MIN;
+
+    public AlertPartitionService(AlertPartitionLeaseRepository leaseRepository,
+                                 AlertNodeRepository nodeRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 AlertProperties alertProperties,
+                                 NodeProperties nodeProperties) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.entityManager = entityManager;
+        this.alertProperties = alertProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeProperties.getId();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("alert-heartbeat-");
+        threadFactory.setDaemon(true);
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        createMissingPartitions();
+        heartbeat();
+        long heartbeatMs = alertProperties.getPartitions().getHeartbeatMs();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatQuietly, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdown();
+        try {
+            heartbeatExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        releaseAll();
+    }
+
+    /**
+     * Hands partitions over straight away instead of waiting for the leases to expire.
+     */
+    private synchronized void releaseAll() {
+        List<Integer> held = owned;
+        owned = List.of();
+        if (!held.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> leaseRepository.release(held, nodeId));
+            log.info("Node {} released alert partitions {}", nodeId, held);
+        }
+    }
+
+    /**
+     * Renews this node's leases, gives up any beyond its fair share of the partitions (so a node
+     * that just joined can take them), and claims free or expired partitions up to that share.
+     * Run every alerts.partitions.heartbeat-ms by the heartbeat thread.
+     */
+    public synchronized void heartbeat() {
+        AlertProperties.Partitions config = alertProperties.getPartitions();
+        Duration leaseLength = Duration.ofMillis(config.getLeaseMs());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(leaseLength);
+
+        List<Integer> held = transactionTemplate.execute(status -> {
+            nodeRepository.save(new AlertNode(nodeId, now));
+            long liveNodes = Math.max(1, nodeRepository.countByHeartbeatAtAfter(now.minus(leaseLength)));
+            int fairShare = (int) ((config.getCount() + liveNodes - 1) / liveNodes);
+
+            List<AlertPartitionLease> leases = new ArrayList<>();
+            for (AlertPartitionLease lease : leaseRepository.findAll(Sort.by("partitionId"))) {
+                if (lease.getPartitionId() < config.getCount()) {
+                    leases.add(lease);
+                }
+            }
+
+            List<Integer> mine = new ArrayList<>();
+            List<Integer> surplus = new ArrayList<>();
+            for (AlertPartitionLease lease : leases) {
+                if (!nodeId.equals(lease.getOwner())) {
+                    continue;
+                }
+                if (mine.size() < fairShare && leaseRepository.claim(lease.getPartitionId(), nodeId, now, expiresAt) == 1) {
+                    mine.add(lease.getPartitionId());
+                } else {
+                    surplus.add(lease.getPartitionId());
+                }
+            }
+            if (!surplus.isEmpty()) {
+                leaseRepository.release(surplus, nodeId);
+            }
+
+            for (AlertPartitionLease lease : leases) {
+                if (mine.size() >= fairShare) {
+                    break;
+                }
+                boolean free = lease.getOwner() == null || lease.getExpiresAt() == null || lease.getExpiresAt().isBefore(now);
+                if (free && !nodeId.equals(lease.getOwner())
+                        && leaseRepository.claim(lease.getPartitionId(), nodeId, now, expiresAt) == 1) {
+                    mine.add(lease.getPartitionId());
+                }
+            }
+            mine.sort(null);
+            return mine;
+        });
+
+        if (!held.equals(owned)) {
+            log.info("Node {} now holds alert partitions {} of {}", nodeId, held, config.getCount());
+        }
+        owned = List.copyOf(held);
+        ownedUntil = expiresAt;
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (RuntimeException e) {
+            // Leases already held stay valid until they expire; the next heartbeat tries again
+            log.warn("Alert partition heartbeat failed on node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Partitions this node may work on right now: none once its leases have run out without a
+     * successful heartbeat, since another node may already have taken them over.
+     */
+    public List<Integer> ownedPartitions() {
+        return LocalDateTime.now().isBefore(ownedUntil) ? owned : List.of();
+    }
+
+    public int partitionCount() {
+        return alertProperties.getPartitions().getCount();
+    }
+
+    public int partitionOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) partitionCount());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void createMissingPartitions() {
+        for (int partition = 0; partition < partitionCount(); partition++) {
+            if (leaseRepository.existsById(partition)) {
+                continue;
+            }
+            AlertPartitionLease lease = AlertPartitionLease.builder().partitionId(partition).build();
+            try {
+                // persist, not save: a plain INSERT, so it can never overwrite a lease another node just claimed
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.persist(lease);
+                    entityManager.flush();
+                });
+            } catch (PersistenceException e) {
+                // Another node starting at the same time created it first
+                log.debug("Alert partition {} already created by another node", partition);
+            }
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package com.example.demo.service;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.demo.config.AlertProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.AlertOutboxEntry;
 import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
 import com.example.demo.repository.ApplianceRepository;
 import com.example.demo.repository.UserRepository;
 
@@ -19,94 +41,330 @@ public class AlertSchedulerService {
 
     private final ApplianceRepository applianceRepository;
     private final UserRepository userRepository;
-    private final EmailService emailService;
+    private final AlertOutboxRepository alertOutboxRepository;
+    private final AlertOutboxRelay alertOutboxRelay;
+    private final AlertPartitionService alertPartitionService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AlertProperties alertProperties;
+    private final TransactionTemplate transactionTemplate;
 
     public AlertSchedulerService(ApplianceRepository applianceRepository,
                                  UserRepository userRepository,
-                                 EmailService emailService) {
+                                 AlertOutboxRepository alertOutboxRepository,
+                                 AlertOutboxRelay alertOutboxRelay,
+                                 AlertPartitionService alertPartitionService,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 AlertProperties alertProperties) {
         this.applianceRepository = applianceRepository;
         this.userRepository = userRepository;
-        this.emailService = emailService;
+        this.alertOutboxRepository = alertOutboxRepository;
+        this.alertOutboxRelay = alertOutboxRelay;
+        this.alertPartitionService = alertPartitionService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.alertProperties = alertProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Scheduled(cron = "0 0 9 * * *")
+    /**
+     * Queues and sends every alert due today or earlier for owners in the partitions this node holds,
+     * once a day at alerts.cron and on /trigger-alerts. AlertTimerService queues each alert at its own send
+     * time in between; this run is the backstop for any it missed. The outbox never queues an occurrence
+     * twice, so overlapping runs are harmless.
+     */
+    @Scheduled(cron = "${alerts.cron:0 5 0 * * *}")
     public void checkAndSendAlerts() {
-        log.info("Running scheduled alert check");
-        LocalDate tomorrow = LocalDate.now().plusDays(1);
-        List<Appliance> alertsDue = applianceRepository.findByAlertDateBefore(tomorrow);
+        List<Integer> partitions = alertPartitionService.ownedPartitions();
+        if (partitions.isEmpty()) {
+            log.info("Skipping alert check: node {} holds no alert partitions", alertPartitionService.getNodeId());
+            return;
+        }
+        log.info("Running scheduled alert check for partitions {}", partitions);
+        LocalDate today = LocalDate.now();
+        int partitionCount = alertPartitionService.partitionCount();
+        int chunkSize = alertProperties.getChunkSize();
+        AlertRun run = new AlertRun(today, alertProperties.getMaxOwnersPerRun());
+        LocalDate lastFireDate = null;
+        long lastId = 0;
+        List<Appliance> chunk;
+
+        // Walk due alerts in (next fire date, id) order, one chunk at a time, so heap use stays flat however
+        // many are due. Keyset paging (rather than offsets) also keeps rows rescheduled mid-run from shifting
+        // later pages: a reschedule moves the row past today, out of the range being walked.
+        do {
+            // Stop if a lease lapsed mid-run; the partition may already be another node's
+            if (!alertPartitionService.ownedPartitions().containsAll(partitions)) {
+                log.warn("Lost alert partition lease during the run; stopping after {} appliances", run.appliances);
+                break;
+            }
+
+            // Cancelled and still-snoozed alerts are filtered out by the query itself
+            chunk = applianceRepository.findDueAlertsInPartitions(today, partitionCount, partitions,
+                    lastFireDate, lastId, Limit.of(chunkSize));
+            run.applianceQueries++;
+            log.debug("Loaded chunk of {} due alerts after appliance id {}", chunk.size(), lastId);
+
+            if (!chunk.isEmpty()) {
+                // Read before processing: a reschedule moves the row's next fire date
+                Appliance last = chunk.get(chunk.size() - 1);
+                lastFireDate = last.getNextFireDate();
+                lastId = last.getId();
+                run.appliances += chunk.size();
+            }
+
+            processChunk(chunk, run);
+        } while (chunk.size() == chunkSize);
 
-        log.info("Found {} appliances with alerts due today or earlier", alertsDue.size());
+        log.info("Found {} appliances with alerts due today or earlier, queued {} alert emails",
+                run.appliances, run.enqueued);
+        log.info("Alert run issued {} appliance queries, {} owner queries and {} appliance writes",
+                run.applianceQueries, run.ownerQueries, run.writes);
+
+        // Deliver what this run queued, plus anything an earlier run left pending, on the relay thread
+        alertOutboxRelay.requestDrain();
+        log.info("Completed scheduled alert check");
+    }
 
-        for (Appliance appliance : alertsDue) {
-            // Skip if alert is cancelled
-            if ("CANCELLED".equals(appliance.getAlertStatus())) {
-                log.info("Skipping cancelled alert for appliance {}", appliance.getName());
+    /**
+     * Queues the given appliances' alerts that are due by {@code dueBy} and not yet queued, for owners in
+     * the partitions this node holds; the others are left alone. For AlertTimerService, which calls it as
+     * each alert's send time comes: {@code dueBy} is later than today when that time falls on the day
+     * before the due date in server time (an owner in a time zone ahead of the server's).
+     */
+    public void checkAndSendAlerts(Collection<Long> applianceIds, LocalDate dueBy) {
+        List<Integer> partitions = alertPartitionService.ownedPartitions();
+        if (partitions.isEmpty() || applianceIds.isEmpty()) {
+            return;
+        }
+        List<Appliance> due = new ArrayList<>();
+        for (Appliance appliance : applianceRepository.findAllById(applianceIds)) {
+            LocalDate nextFireDate = appliance.getNextFireDate();
+            if (nextFireDate != null && !nextFireDate.isAfter(dueBy)
+                    && partitions.contains(alertPartitionService.partitionOf(appliance.getUserId()))) {
+                due.add(appliance);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        AlertRun run = new AlertRun(dueBy, alertProperties.getMaxOwnersPerRun());
+        int chunkSize = alertProperties.getChunkSize();
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            processChunk(due.subList(from, Math.min(from + chunkSize, due.size())), run);
+        }
+        log.info("Queued {} alert emails for {} appliances whose send time came", run.enqueued, due.size());
+        alertOutboxRelay.requestDrain();
+    }
+
+    private void processChunk(List<Appliance> chunk, AlertRun run) {
+        List<Appliance> changed = enqueueChunk(chunk, resolveOwners(chunk, run), run);
+        // Only after commit, so listeners never see a reschedule that was rolled back
+        for (Appliance appliance : changed) {
+            eventPublisher.publishEvent(ApplianceChangedEvent.saved(appliance));
+        }
+        // Detach the chunk; a request-scoped persistence context (e.g. /trigger-alerts) would otherwise keep it all
+        entityManager.clear();
+    }
+
+    /**
+     * The owners of a chunk's appliances by id. Owners already read this run come from the run's owner
+     * map, so one with due appliances in many chunks is read once per run; the rest are loaded with one
+     * IN (...) query. Ids without a user are remembered too, so they aren't looked up again.
+     */
+    private Map<Long, User> resolveOwners(List<Appliance> chunk, AlertRun run) {
+        Map<Long, User> owners = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Appliance appliance : chunk) {
+            Long userId = appliance.getUserId();
+            if (owners.containsKey(userId) || missing.contains(userId)) {
                 continue;
             }
+            if (run.owners.containsKey(userId)) {
+                owners.put(userId, run.owners.get(userId));
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return owners;
+        }
 
-            // Skip if alert is snoozed and snooze period hasn't ended
-            if ("SNOOZED".equals(appliance.getAlertStatus()) && appliance.getSnoozeUntil() != null) {
-                if (LocalDate.now().isBefore(appliance.getSnoozeUntil())) {
-                    log.info("Skipping snoozed alert for appliance {} (snoozed until {})",
-                            appliance.getName(), appliance.getSnoozeUntil());
+        for (User user : userRepository.findAllById(missing)) {
+            owners.put(user.getId(), user);
+        }
+        run.ownerQueries++;
+        for (Long userId : missing) {
+            owners.putIfAbsent(userId, null);
+            run.owners.put(userId, owners.get(userId));
+        }
+        return owners;
+    }
+
+    /**
+     * Queues an outbox entry for each of the chunk's alerts, marks the occurrences queued and applies
+     * the matching recurring reschedules, all in one transaction. If the run dies part-way, either
+     * both the entry and the appliance update exist or neither does, so no email is lost or repeated.
+     * The writes go out as JDBC batches (hibernate.jdbc.batch_size) with a single commit.
+     * Returns the appliances that were updated.
+     */
+    private List<Appliance> enqueueChunk(List<Appliance> chunk, Map<Long, User> owners, AlertRun run) {
+        List<Appliance> owned = new ArrayList<>();
+        for (Appliance appliance : chunk) {
+            if (owners.get(appliance.getUserId()) != null) {
+                owned.add(appliance);
+            } else {
+                log.warn("User not found for appliance {} (userId: {})", appliance.getName(), appliance.getUserId());
+            }
+        }
+        if (owned.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Appliance> changed = new LinkedHashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Occurrence> queued = queuedOccurrences(owned);
+            List<AlertOutboxEntry> entries = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+
+            for (Appliance appliance : owned) {
+                LocalDate dueDate = appliance.alertDueDate();
+                // Mark the occurrence queued, which takes the row out of next_fire_date (Appliance.computeNextFireDate)
+                // so later runs don't read it again. Also for one queued before the mark existed.
+                appliance.setAlertQueuedFor(dueDate);
+                changed.put(appliance.getId(), appliance);
+                if (queued.contains(new Occurrence(appliance.getId(), dueDate))) {
+                    log.debug("Alert for appliance {} due {} already queued", appliance.getName(), dueDate);
                     continue;
-                } else {
-                    // Snooze period ended, reactivate alert
-                    appliance.setAlertStatus("ACTIVE");
-                    appliance.setSnoozeUntil(null);
-                    applianceRepository.save(appliance);
-                    log.info("Reactivated alert for appliance {} (snooze period ended)", appliance.getName());
                 }
+
+                entries.add(AlertOutboxEntry.builder()
+                        .applianceId(appliance.getId())
+                        .userId(appliance.getUserId())
+                        .dueDate(dueDate)
+                        .status("PENDING")
+                        .createdAt(now)
+                        .sendAfter(sendAfter(owners.get(appliance.getUserId()), dueDate))
+                        .missedOccurrences((int) RecurrenceCalculator.missedOccurrences(appliance, run.dueBy))
+                        .build());
+
+                // An expired snooze is left as it is: it already counts as ACTIVE (Appliance.effectiveAlertStatus)
+                // and keeps the occurrence's due date. A recurring alert moves on to its next occurrence.
+                handleRecurringAlert(appliance, run.dueBy);
             }
 
-            userRepository.findById(appliance.getUserId()).ifPresentOrElse(
-                user -> {
-                    emailService.sendMaintenanceAlert(user, appliance);
-                    log.info("Sent alert for appliance {} to user {}", appliance.getName(), user.getEmail());
+            if (!entries.isEmpty()) {
+                alertOutboxRepository.saveAll(entries);
+            }
+            if (!changed.isEmpty()) {
+                // Loaded outside this transaction: fetch them back in one query so the merge doesn't select each
+                applianceRepository.findAllById(changed.keySet());
+                applianceRepository.saveAll(changed.values());
+            }
+            run.enqueued += entries.size();
+            run.writes += changed.size();
+        });
+        return new ArrayList<>(changed.values());
+    }
 
-                    // Handle recurring alerts
-                    handleRecurringAlert(appliance);
-                },
-                () -> log.warn("User not found for appliance {} (userId: {})", appliance.getName(), appliance.getUserId())
-            );
+    /**
+     * Occurrences of the given appliances' current alerts that are already in the outbox.
+     */
+    private Set<Occurrence> queuedOccurrences(List<Appliance> appliances) {
+        Set<Long> applianceIds = new HashSet<>();
+        Set<LocalDate> dueDates = new HashSet<>();
+        for (Appliance appliance : appliances) {
+            applianceIds.add(appliance.getId());
+            dueDates.add(appliance.alertDueDate());
         }
 
-        log.info("Completed scheduled alert check");
+        Set<Occurrence> queued = new HashSet<>();
+        for (AlertOutboxEntry entry : alertOutboxRepository.findByApplianceIdInAndDueDateIn(applianceIds, dueDates)) {
+            queued.add(new Occurrence(entry.getApplianceId(), entry.getDueDate()));
+        }
+        return queued;
+    }
+
+    /**
+     * When the relay may send {@code user}'s alert for {@code dueDate}, in server time: the user's alert
+     * hour on that date in their time zone, plus a fixed per-user offset within alerts.delivery.jitter-minutes,
+     * kept inside the due day. In the past for overdue alerts, which are then sent on the next relay pass.
+     */
+    LocalDateTime sendAfter(User user, LocalDate dueDate) {
+        AlertProperties.Delivery delivery = alertProperties.getDelivery();
+        int hour = user.getAlertHour() != null ? user.getAlertHour() : delivery.getDefaultHour();
+        LocalDateTime local = dueDate.atTime(hour, 0);
+
+        if (delivery.getJitterMinutes() > 0) {
+            // Multiplicative hash, so consecutive user ids land far apart in the window
+            int offset = Math.floorMod(Long.hashCode(user.getId() * 0x9E3779B97F4A7C15L), delivery.getJitterMinutes());
+            local = local.plusMinutes(offset);
+        }
+        LocalDateTime endOfDay = dueDate.atTime(LocalTime.of(23, 59));
+        if (local.isAfter(endOfDay)) {
+            local = endOfDay;
+        }
+
+        return local.atZone(userZone(user)).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
     }
 
-    private void handleRecurringAlert(Appliance appliance) {
-        String interval = appliance.getRecurringInterval();
+    private static ZoneId userZone(User user) {
+        if (user.getTimeZone() != null) {
+            try {
+                return ZoneId.of(user.getTimeZone());
+            } catch (DateTimeException e) {
+                log.warn("Ignoring invalid time zone {} for user {}", user.getTimeZone(), user.getId());
+            }
+        }
+        return ZoneId.systemDefault();
+    }
 
-        // Skip if not recurring or interval is NONE
-        if (interval == null || "NONE".equals(interval)) {
+    /**
+     * Moves a recurring alert straight to its first occurrence after {@code dueBy}, however many
+     * intervals behind it was, so a long-overdue alert is sent and rewritten once rather than once a
+     * day until it catches up. The recurrence anchor stays as it is, so month-end dates don't drift.
+     */
+    private void handleRecurringAlert(Appliance appliance, LocalDate dueBy) {
+        LocalDate nextAlertDate = RecurrenceCalculator.nextOccurrence(appliance, dueBy);
+        if (nextAlertDate == null) {
             return;
         }
 
-        LocalDate currentAlertDate = appliance.getAlertDate();
-        LocalDate nextAlertDate = null;
+        appliance.setAlertDate(nextAlertDate);
+        appliance.setAlertStatus("ACTIVE");
+        appliance.setSnoozeUntil(null);
+        log.info("Scheduled next recurring alert for appliance {} on {}", appliance.getName(), nextAlertDate);
+    }
 
-        switch (interval) {
-            case "MONTHLY":
-                nextAlertDate = currentAlertDate.plusMonths(1);
-                break;
-            case "YEARLY":
-                nextAlertDate = currentAlertDate.plusYears(1);
-                break;
-            case "CUSTOM":
-                Integer days = appliance.getRecurringIntervalDays();
-                if (days != null && days > 0) {
-                    nextAlertDate = currentAlertDate.plusDays(days);
+    /**
+     * Per-run state: the date alerts are queued as due by, the owners read so far and the counters reported
+     * when the run completes.
+     */
+    private static class AlertRun {
+        private final LocalDate dueBy;
+        // Owner by user id (null if there is no such user), least recently used dropped past the cap so a run
+        // over many users stays within a fixed amount of heap
+        private final Map<Long, User> owners;
+        private int appliances;
+        private int enqueued;
+        private int applianceQueries;
+        private int ownerQueries;
+        private int writes;
+
+        AlertRun(LocalDate dueBy, int maxOwners) {
+            this.dueBy = dueBy;
+            this.owners = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, User> eldest) {
+                    return size() > maxOwners;
                 }
-                break;
+            };
         }
+    }
 
-        if (nextAlertDate != null) {
-            appliance.setAlertDate(nextAlertDate);
-            appliance.setAlertStatus("ACTIVE");
-            appliance.setSnoozeUntil(null);
-            applianceRepository.save(appliance);
-            log.info("Scheduled next recurring alert for appliance {} on {}",
-                    appliance.getName(), nextAlertDate);
-        }
+    private record Occurrence(Long applianceId, LocalDate dueDate) {
     }
 }
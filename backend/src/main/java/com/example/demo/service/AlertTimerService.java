@@ -0,0 +1,241 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Fires each alert at its own send time rather than leaving it for the daily run: keeps a timer for every
+ * alert due within alerts.timer.horizon-days in a min-heap and, every alerts.timer.tick-ms, hands those
+ * whose time has come to {@link AlertSchedulerService#checkAndSendAlerts(java.util.Collection, LocalDate)}.
+ *
+ * <p>An alert's time is when the relay may send it (AlertSchedulerService.sendAfter: the owner's alert hour
+ * on the due date), so an alert already past it, such as one saved with a date of today, fires on the next
+ * tick. The heap is filled from the appliances table at startup, topped up with the day entering the horizon
+ * when the date changes, and kept current in between from {@link ApplianceChangedEvent}s, other nodes'
+ * included. Timers are kept for every owner: whether this node may queue an alert is decided when it fires,
+ * since partitions move between nodes. A timer is only a hint of when to look; firing re-reads the appliance,
+ * so a stale one queues nothing.
+ */
+@Service
+public class AlertTimerService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertTimerService.class);
+
+    private final ApplianceRepository applianceRepository;
+    private final UserRepository userRepository;
+    private final AlertSchedulerService alertSchedulerService;
+    private final AlertProperties alertProperties;
+
+    // Earliest fire time first. Timers are never removed in place: one is live only while it is the
+    // appliance's entry in armed, and superseded ones are dropped as they reach the top.
+    private PriorityQueue<Timer> queue = newQueue();
+    private final Map<Long, Timer> armed = new HashMap<>();
+    // Last date whose alerts have been loaded from the table; null until the startup fill
+    private LocalDate filledThrough;
+
+    public AlertTimerService(ApplianceRepository applianceRepository,
+                             UserRepository userRepository,
+                             AlertSchedulerService alertSchedulerService,
+                             AlertProperties alertProperties) {
+        this.applianceRepository = applianceRepository;
+        this.userRepository = userRepository;
+        this.alertSchedulerService = alertSchedulerService;
+        this.alertProperties = alertProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        LocalDate through = horizonEnd(LocalDate.now());
+        fill(null, through);
+        log.info("Loaded {} alert timers due by {}", size(), through);
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.timer.tick-ms:30000}")
+    public void tick() {
+        LocalDate through = horizonEnd(LocalDate.now());
+        LocalDate filled = filledThrough();
+        if (filled == null) {
+            return;
+        }
+        if (filled.isBefore(through)) {
+            fill(filled, through);
+        }
+        fireDue(LocalDateTime.now());
+    }
+
+    /**
+     * Arms, moves or drops the appliance's timer for its current alert. Alerts beyond the horizon get none;
+     * the day they enter it is loaded from the table when the date changes.
+     */
+    @EventListener
+    public void onApplianceChanged(ApplianceChangedEvent event) {
+        // Computed rather than read: the instance an alert run publishes is not the one its save refreshed
+        LocalDate nextFireDate = event.isDeleted() ? null : event.appliance().computeNextFireDate();
+        if (nextFireDate == null || nextFireDate.isAfter(horizonEnd(LocalDate.now()))) {
+            disarm(event.applianceId());
+            return;
+        }
+        User owner = userRepository.findById(event.userId()).orElse(null);
+        if (owner == null) {
+            disarm(event.applianceId());
+            return;
+        }
+        arm(new Timer(alertSchedulerService.sendAfter(owner, nextFireDate), event.applianceId(), nextFireDate), true);
+    }
+
+    /**
+     * Fires every timer due by {@code now}, grouped by due date. A group that can't be queued (e.g. the
+     * database was busy) is tried again alerts.timer.retry-ms later, unless a change has re-armed it meanwhile.
+     */
+    void fireDue(LocalDateTime now) {
+        Map<LocalDate, List<Long>> due = new TreeMap<>();
+        for (Timer timer : pollDue(now)) {
+            // A due date after today only fires early for an owner ahead of server time; queue it as due then
+            LocalDate dueBy = timer.dueDate().isAfter(now.toLocalDate()) ? timer.dueDate() : now.toLocalDate();
+            due.computeIfAbsent(dueBy, date -> new ArrayList<>()).add(timer.applianceId());
+        }
+        for (Map.Entry<LocalDate, List<Long>> group : due.entrySet()) {
+            log.debug("Alert timer fired for {} appliances due by {}", group.getValue().size(), group.getKey());
+            try {
+                alertSchedulerService.checkAndSendAlerts(group.getValue(), group.getKey());
+            } catch (RuntimeException e) {
+                log.warn("Could not queue {} alerts whose send time came; retrying shortly: {}",
+                        group.getValue().size(), e.getMessage());
+                LocalDateTime retryAt = now.plus(Duration.ofMillis(alertProperties.getTimer().getRetryMs()));
+                for (Long applianceId : group.getValue()) {
+                    arm(new Timer(retryAt, applianceId, group.getKey()), false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the live timers whose fire time is at or before {@code now}.
+     */
+    synchronized List<Timer> pollDue(LocalDateTime now) {
+        List<Timer> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().fireAt().isAfter(now)) {
+            Timer timer = queue.poll();
+            if (timer.equals(armed.get(timer.applianceId()))) {
+                armed.remove(timer.applianceId());
+                due.add(timer);
+            }
+        }
+        return due;
+    }
+
+    synchronized int size() {
+        return armed.size();
+    }
+
+    synchronized LocalDateTime fireTimeOf(Long applianceId) {
+        Timer timer = armed.get(applianceId);
+        return timer == null ? null : timer.fireAt();
+    }
+
+    private synchronized LocalDate filledThrough() {
+        return filledThrough;
+    }
+
+    /**
+     * Arms timers for the alerts whose next fire date is after {@code after} (null for all, overdue ones
+     * included) and no later than {@code through}, reading the table in chunks with each chunk's owners in
+     * one query. A timer armed by a change while the fill was reading is newer than the row read, so is kept.
+     */
+    private void fill(LocalDate after, LocalDate through) {
+        int chunkSize = alertProperties.getChunkSize();
+        // Keyset cursor: after (date, Long.MAX_VALUE) starts at the first row dated after that date
+        LocalDate lastFireDate = after;
+        long lastId = after == null ? 0 : Long.MAX_VALUE;
+        List<Appliance> chunk;
+
+        do {
+            chunk = applianceRepository.findDueAlerts(through, lastFireDate, lastId, Limit.of(chunkSize));
+            Set<Long> userIds = new HashSet<>();
+            for (Appliance appliance : chunk) {
+                userIds.add(appliance.getUserId());
+            }
+            Map<Long, User> owners = new HashMap<>();
+            for (User user : userRepository.findAllById(userIds)) {
+                owners.put(user.getId(), user);
+            }
+
+            for (Appliance appliance : chunk) {
+                User owner = owners.get(appliance.getUserId());
+                if (owner != null) {
+                    LocalDateTime fireAt = alertSchedulerService.sendAfter(owner, appliance.getNextFireDate());
+                    arm(new Timer(fireAt, appliance.getId(), appliance.getNextFireDate()), false);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                Appliance last = chunk.get(chunk.size() - 1);
+                lastFireDate = last.getNextFireDate();
+                lastId = last.getId();
+            }
+        } while (chunk.size() == chunkSize);
+
+        synchronized (this) {
+            if (filledThrough == null || filledThrough.isBefore(through)) {
+                filledThrough = through;
+            }
+        }
+    }
+
+    private synchronized void arm(Timer timer, boolean replace) {
+        if (!replace && armed.containsKey(timer.applianceId())) {
+            return;
+        }
+        armed.put(timer.applianceId(), timer);
+        queue.add(timer);
+
+        // Superseded timers pile up when the same alerts are edited repeatedly; drop them
+        if (queue.size() > 2 * armed.size() + 64) {
+            PriorityQueue<Timer> compacted = newQueue();
+            compacted.addAll(armed.values());
+            queue = compacted;
+        }
+    }
+
+    private synchronized void disarm(Long applianceId) {
+        armed.remove(applianceId);
+    }
+
+    private LocalDate horizonEnd(LocalDate today) {
+        return today.plusDays(alertProperties.getTimer().getHorizonDays());
+    }
+
+    private static PriorityQueue<Timer> newQueue() {
+        return new PriorityQueue<>(Comparator.comparing(Timer::fireAt).thenComparing(Timer::applianceId));
+    }
+
+    /**
+     * When to fire an appliance's alert, and the due date it was armed for.
+     */
+    record Timer(LocalDateTime fireAt, Long applianceId, LocalDate dueDate) {
+    }
+}
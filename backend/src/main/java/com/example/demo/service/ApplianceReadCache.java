@@ -0,0 +1,192 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+
+/**
+ * Each user's appliances as last read from the database, for {@link ApplianceService}'s reads of a
+ * whole list or a single appliance.
+ *
+ * <p>Bounded by the number of appliances held (appliances.cache.max-appliances), least recently used
+ * user first out, and each user's list is re-read once it is appliances.cache.ttl-ms old. A user's
+ * entry is dropped on every {@link ApplianceChangedEvent} for them, which every write to the
+ * appliances table publishes after it commits, and which CacheInvalidationBus relays from writes
+ * made on other nodes. A read that started before such an event doesn't
+ * store what it read, so a list read just before a write can't outlive it.
+ *
+ * <p>The cached appliances are shared between requests and must not be modified; code that changes
+ * an appliance loads its own copy from the repository.
+ */
+@Service
+public class ApplianceReadCache {
+
+    // Invalidation counters, by user id modulo this
+    private static final int GENERATION_STRIPES = 64;
+
+    /**
+     * Counters since startup and current size, for monitoring.
+     *
+     * @param hits          reads answered from the cache
+     * @param misses        reads that went to the database
+     * @param evictions     users dropped to stay within max-appliances
+     * @param expirations   users dropped for being older than the TTL
+     * @param invalidations users dropped because their appliances changed
+     * @param users         users cached now
+     * @param appliances    appliances cached now
+     * @param maxAppliances most appliances the cache holds
+     */
+    public record Stats(long hits, long misses, long evictions, long expirations, long invalidations,
+                        int users, long appliances, long maxAppliances) {
+    }
+
+    private record Entry(List<Appliance> appliances, Map<Long, Appliance> byId, long loadedAt) {
+    }
+
+    private final ApplianceProperties applianceProperties;
+
+    // Least recently used first
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long[] generations = new long[GENERATION_STRIPES];
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public ApplianceReadCache(ApplianceProperties applianceProperties) {
+        this.applianceProperties = applianceProperties;
+    }
+
+    /**
+     * The user's appliances, from the cache or else from {@code loader}.
+     */
+    public List<Appliance> getAll(Long userId, Supplier<List<Appliance>> loader) {
+        long generation;
+        synchronized (this) {
+            Entry entry = lookup(userId);
+            if (entry != null) {
+                return entry.appliances();
+            }
+            generation = generations[stripe(userId)];
+        }
+
+        List<Appliance> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            if (generations[stripe(userId)] == generation) {
+                store(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * One of the user's appliances: from the cache if their list is cached, or else from
+     * {@code loader}. A single appliance read from the database isn't cached on its own.
+     */
+    public Optional<Appliance> find(Long userId, Long applianceId, Supplier<Optional<Appliance>> loader) {
+        synchronized (this) {
+            Entry entry = lookup(userId);
+            if (entry != null) {
+                return Optional.ofNullable(entry.byId().get(applianceId));
+            }
+        }
+        return loader.get();
+    }
+
+    @EventListener
+    public void onApplianceChanged(ApplianceChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    /**
+     * Drops the user's entry, and keeps reads already under way from storing what they read.
+     */
+    public synchronized void invalidate(Long userId) {
+        generations[stripe(userId)]++;
+        Entry entry = entries.remove(userId);
+        if (entry != null) {
+            weight -= weightOf(entry);
+            invalidations++;
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, invalidations, entries.size(), weight,
+                applianceProperties.getCache().getMaxAppliances());
+    }
+
+    // The live entry for the user, counting the hit or miss
+    private Entry lookup(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && isExpired(entry)) {
+            entries.remove(userId);
+            weight -= weightOf(entry);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    private void store(Long userId, List<Appliance> appliances) {
+        long maxAppliances = applianceProperties.getCache().getMaxAppliances();
+        Map<Long, Appliance> byId = new HashMap<>();
+        for (Appliance appliance : appliances) {
+            byId.put(appliance.getId(), appliance);
+        }
+        Entry entry = new Entry(appliances, byId, System.nanoTime());
+        // A user with more appliances than the whole cache holds is always read from the database
+        if (weightOf(entry) > maxAppliances) {
+            return;
+        }
+
+        Entry replaced = entries.put(userId, entry);
+        if (replaced != null) {
+            weight -= weightOf(replaced);
+        }
+        weight += weightOf(entry);
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (weight > maxAppliances) {
+            Entry evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            weight -= weightOf(evicted);
+            if (isExpired(evicted)) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(applianceProperties.getCache().getTtlMs());
+        return System.nanoTime() - entry.loadedAt() >= ttlNanos;
+    }
+
+    // Appliances held, plus one so a user without any still counts
+    private static long weightOf(Entry entry) {
+        return entry.appliances().size() + 1L;
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) GENERATION_STRIPES);
+    }
+}
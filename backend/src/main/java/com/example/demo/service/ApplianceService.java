@@ -1,11 +1,24 @@
 package com.example.demo.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.config.ApplianceProperties;
 import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+import com.example.demo.model.AppliancePage;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.model.ApplianceSummary;
 import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.ApplianceRepositoryCustom.After;
+import com.example.demo.repository.ApplianceSpecifications;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,17 +26,159 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ApplianceService {
 
+    // Cursor value of a row without a value for the sort key; not in the URL-safe Base64 alphabet
+    private static final String NULL_VALUE = "~";
+
     public final ApplianceRepository applianceRepository;
-    
-    public ApplianceService(ApplianceRepository applianceRepository) {
+    private final ApplianceProperties applianceProperties;
+    private final ApplianceReadCache applianceReadCache;
+
+    public ApplianceService(ApplianceRepository applianceRepository, ApplianceProperties applianceProperties,
+                            ApplianceReadCache applianceReadCache) {
         this.applianceRepository = applianceRepository;
+        this.applianceProperties = applianceProperties;
+        this.applianceReadCache = applianceReadCache;
     }
 
+    /**
+     * The user's appliances, through the read cache: shared instances, not to be modified.
+     */
     public List<Appliance> getAllAppliancesByUser(Long userId) {
-        return applianceRepository.findAllByUserId(userId);
+        return applianceReadCache.getAll(userId, () -> applianceRepository.findAllByUserId(userId));
+    }
+
+    /**
+     * One of the user's appliances, through the read cache: a shared instance, not to be modified;
+     * to change an appliance, load it with ApplianceRepository.findByUserIdAndId.
+     */
+    public Optional<Appliance> getAppliance(Long userId, Long applianceId) {
+        return applianceReadCache.find(userId, applianceId, () -> applianceRepository.findByUserIdAndId(userId, applianceId));
+    }
+
+    /**
+     * The user's alerts due today, oldest first, by Appliance.alertDueOn. Unlike the alert run, this
+     * keeps showing an alert after its email went out, until the user snoozes, cancels or moves it.
+     */
+    public List<Appliance> getDueAlerts(Long userId) {
+        return applianceRepository.findDueAlertsByUserId(userId, LocalDate.now());
+    }
+
+    /**
+     * The user's appliances matching {@code filter}, in {@code sort} order.
+     */
+    public List<Appliance> getAppliances(Long userId, ApplianceFilter filter, ApplianceSort sort, boolean descending) {
+        return applianceRepository.findFiltered(specification(userId, filter), sort, descending);
+    }
+
+    /**
+     * A page of the user's appliances matching {@code filter}, as list-view summaries in {@code sort}
+     * order. {@code cursor} is the {@code nextCursor} of the previous page (null for the first) and
+     * only valid with the same sort; {@code size} defaults to appliances.page.default-size and is
+     * capped at appliances.page.max-size.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or the size isn't positive
+     */
+    public AppliancePage getAppliancePage(Long userId, ApplianceFilter filter, ApplianceSort sort, boolean descending,
+                                          String cursor, Integer size) {
+        int pageSize = pageSize(size);
+
+        // One extra row tells whether there is a next page without a count query
+        List<ApplianceSummary> rows = applianceRepository.findSummaries(specification(userId, filter), sort, descending,
+                parseCursor(cursor, sort), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new AppliancePage(rows, null);
+        }
+        List<ApplianceSummary> items = List.copyOf(rows.subList(0, pageSize));
+        return new AppliancePage(items, cursorAfter(items.get(pageSize - 1), sort));
+    }
+
+    /**
+     * A page of the user's appliances matching the words of {@code query}, best match first (see
+     * ApplianceRepository.search). {@code cursor} is the {@code nextCursor} of the previous page (null
+     * for the first) and only valid with the same query; {@code size} as for getAppliancePage.
+     *
+     * @throws IllegalArgumentException if the query is blank, the cursor is malformed or the size isn't positive
+     */
+    public AppliancePage searchAppliances(Long userId, String query, String cursor, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        int pageSize = pageSize(size);
+        int offset = parseSearchCursor(cursor);
+
+        List<ApplianceSummary> rows = applianceRepository.search(userId, query, offset, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new AppliancePage(rows, null);
+        }
+        return new AppliancePage(List.copyOf(rows.subList(0, pageSize)), String.valueOf(offset + pageSize));
     }
 
     public Appliance saveAppliance(Appliance appliance) {
         return applianceRepository.save(appliance);
     }
+
+    private int pageSize(Integer size) {
+        ApplianceProperties.Page page = applianceProperties.getPage();
+        int pageSize = size == null ? page.getDefaultSize() : size;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(pageSize, page.getMaxSize());
+    }
+
+    private static Specification<Appliance> specification(Long userId, ApplianceFilter filter) {
+        return ApplianceSpecifications.matching(userId, filter, LocalDate.now());
+    }
+
+    // The id of the last row on the page, and for other sorts its sort key value: "<id>:<Base64 value>",
+    // or "<id>:~" when it has none
+    private static String cursorAfter(ApplianceSummary last, ApplianceSort sort) {
+        if (sort == ApplianceSort.ID) {
+            return String.valueOf(last.id());
+        }
+        Object value = sort.valueOf(last);
+        String encoded = value == null ? NULL_VALUE
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+        return last.id() + ":" + encoded;
+    }
+
+    private static After parseCursor(String cursor, ApplianceSort sort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            if (sort == ApplianceSort.ID) {
+                return new After(null, Long.parseLong(cursor));
+            }
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            long id = Long.parseLong(cursor.substring(0, separator));
+            String encoded = cursor.substring(separator + 1);
+            if (encoded.equals(NULL_VALUE)) {
+                return new After(null, id);
+            }
+            String value = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            return new After(sort.isDate() ? LocalDate.parse(value) : value, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Search results are ranked, not in a key order, so their cursor is the number of results already returned
+    private static int parseSearchCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 }
@@ -0,0 +1,250 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSuggestionValues;
+import com.example.demo.repository.ApplianceRepository;
+
+/**
+ * Typeahead for the appliance form: completions of brand, model and category from the values already
+ * in use on the user's own appliances, most used first, answered from memory. Each user has indexes
+ * of their own, so no one is offered another user's values.
+ *
+ * <p>The indexes are built from the appliances table at startup and kept current from
+ * {@link ApplianceChangedEvent}s, like ApplianceReadCache.
+ */
+@Service
+public class ApplianceSuggestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplianceSuggestionService.class);
+
+    private static final int REBUILD_CHUNK_SIZE = 5000;
+
+    public enum Field {
+        BRAND, MODEL, CATEGORY;
+
+        /**
+         * The field named by a request parameter, ignoring case.
+         *
+         * @throws IllegalArgumentException if it isn't brand, model or category
+         */
+        public static Field fromParam(String param) {
+            if (param != null) {
+                for (Field field : values()) {
+                    if (field.name().equals(param.trim().toUpperCase(Locale.ROOT))) {
+                        return field;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Invalid suggestion field");
+        }
+
+        String of(Appliance appliance) {
+            return switch (this) {
+                case BRAND -> appliance.getBrand();
+                case MODEL -> appliance.getModel();
+                case CATEGORY -> appliance.getCategory();
+            };
+        }
+
+        String of(ApplianceSuggestionValues values) {
+            return switch (this) {
+                case BRAND -> values.brand();
+                case MODEL -> values.model();
+                case CATEGORY -> values.category();
+            };
+        }
+    }
+
+    private final ApplianceRepository applianceRepository;
+    private final ApplianceProperties applianceProperties;
+
+    private Suggestions suggestions;
+    // Changes seen while a rebuild is reading the table, replayed once it swaps in
+    private List<ApplianceChangedEvent> changesDuringRebuild;
+
+    public ApplianceSuggestionService(ApplianceRepository applianceRepository, ApplianceProperties applianceProperties) {
+        this.applianceRepository = applianceRepository;
+        this.applianceProperties = applianceProperties;
+        this.suggestions = new Suggestions(applianceProperties.getSuggestions().getMaxResults());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reloads the indexes from every appliance.
+     */
+    public void rebuild() {
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        Suggestions rebuilt = new Suggestions(applianceProperties.getSuggestions().getMaxResults());
+        int appliances = 0;
+        long afterId = 0;
+        List<ApplianceSuggestionValues> chunk;
+        do {
+            chunk = applianceRepository.findSuggestionValues(afterId, Limit.of(REBUILD_CHUNK_SIZE));
+            for (ApplianceSuggestionValues values : chunk) {
+                rebuilt.put(values.id(), values.userId(), field -> field.of(values), false);
+            }
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).id();
+            }
+            appliances += chunk.size();
+        } while (chunk.size() == REBUILD_CHUNK_SIZE);
+        rebuilt.rankAll();
+
+        synchronized (this) {
+            suggestions = rebuilt;
+            List<ApplianceChangedEvent> missed = changesDuringRebuild;
+            changesDuringRebuild = null;
+            for (ApplianceChangedEvent event : missed) {
+                apply(event);
+            }
+            log.info("Built brand, model and category suggestions from {} appliances of {} users",
+                    appliances, suggestions.users());
+        }
+    }
+
+    @EventListener
+    public synchronized void onApplianceChanged(ApplianceChangedEvent event) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(event);
+            return;
+        }
+        apply(event);
+    }
+
+    /**
+     * Up to {@code limit} values of {@code field} on the user's appliances starting with {@code prefix},
+     * ignoring case, most used first. {@code limit} defaults to, and is capped at,
+     * appliances.suggestions.max-results.
+     *
+     * @throws IllegalArgumentException if the limit isn't positive
+     */
+    public synchronized List<String> suggest(Long userId, Field field, String prefix, Integer limit) {
+        int maxResults = applianceProperties.getSuggestions().getMaxResults();
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return suggestions.complete(userId, field, prefix == null ? "" : prefix,
+                limit == null ? maxResults : Math.min(limit, maxResults));
+    }
+
+    private void apply(ApplianceChangedEvent event) {
+        Appliance appliance = event.appliance();
+        suggestions.put(event.applianceId(), event.userId(), event.isDeleted() ? null : field -> field.of(appliance), true);
+    }
+
+    /**
+     * Every user's indexes, and what each appliance counts towards in them. Not thread-safe.
+     */
+    private static final class Suggestions {
+
+        private static final long NO_OWNER = Long.MIN_VALUE;
+
+        private final int maxResults;
+        private final Map<Long, Map<Field, PrefixIndex>> byUser = new HashMap<>();
+        // Each appliance's owner and, per field, the spelling it counts towards (the index's instance), by
+        // appliance id. Arrays rather than maps: ids are dense, and a million boxed keys would cost far more
+        // than the indexes themselves.
+        private long[] owners = new long[0];
+        private final Map<Field, String[]> spellings = new EnumMap<>(Field.class);
+
+        Suggestions(int maxResults) {
+            this.maxResults = maxResults;
+            for (Field field : Field.values()) {
+                spellings.put(field, new String[0]);
+            }
+        }
+
+        /**
+         * Counts the appliance's values ({@code null} once it is deleted) for its owner, in place of
+         * whatever it counted towards before. When filling a new index, {@code rank} is false and
+         * {@link #rankAll()} ranks once everything is in.
+         */
+        void put(long applianceId, Long userId, Function<Field, String> values, boolean rank) {
+            long previousOwner = applianceId < owners.length ? owners[(int) applianceId] : NO_OWNER;
+            long owner = userId == null || values == null ? NO_OWNER : userId;
+            if (owner == NO_OWNER && previousOwner == NO_OWNER) {
+                return;
+            }
+            grow(applianceId);
+
+            for (Field field : Field.values()) {
+                String[] byAppliance = spellings.get(field);
+                String previous = byAppliance[(int) applianceId];
+                String spelling = owner == NO_OWNER ? null : PrefixIndex.spelling(values.apply(field));
+                if (owner == previousOwner && Objects.equals(previous, spelling)) {
+                    continue;
+                }
+                if (previous != null) {
+                    byUser.get(previousOwner).get(field).remove(previous);
+                }
+                byAppliance[(int) applianceId] = spelling == null ? null : indexes(owner).get(field).add(spelling, rank);
+            }
+            owners[(int) applianceId] = owner;
+
+            Map<Field, PrefixIndex> previousIndexes = byUser.get(previousOwner);
+            if (previousIndexes != null && previousIndexes.values().stream().allMatch(PrefixIndex::isEmpty)) {
+                byUser.remove(previousOwner);
+            }
+        }
+
+        void rankAll() {
+            byUser.values().forEach(indexes -> indexes.values().forEach(PrefixIndex::rankAll));
+        }
+
+        List<String> complete(Long userId, Field field, String prefix, int limit) {
+            Map<Field, PrefixIndex> indexes = userId == null ? null : byUser.get(userId);
+            return indexes == null ? List.of() : indexes.get(field).complete(prefix, limit);
+        }
+
+        int users() {
+            return byUser.size();
+        }
+
+        private Map<Field, PrefixIndex> indexes(long userId) {
+            return byUser.computeIfAbsent(userId, id -> {
+                Map<Field, PrefixIndex> fresh = new EnumMap<>(Field.class);
+                for (Field field : Field.values()) {
+                    fresh.put(field, new PrefixIndex(maxResults));
+                }
+                return fresh;
+            });
+        }
+
+        private void grow(long applianceId) {
+            if (applianceId < owners.length) {
+                return;
+            }
+            int length = Math.toIntExact(Math.max(applianceId + 1, Math.max(1024, 2L * owners.length)));
+            int from = owners.length;
+            owners = Arrays.copyOf(owners, length);
+            Arrays.fill(owners, from, length, NO_OWNER);
+            spellings.replaceAll((field, byAppliance) -> Arrays.copyOf(byAppliance, length));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.event.EntityChange;
+import com.example.demo.model.Appliance;
+import com.example.demo.repository.ApplianceRepository;
+
+/**
+ * Keeps the in-memory views of every backend node (the read cache and suggestions)
+ * in step with changes made on the others. Each {@link ApplianceChangedEvent} made here goes out
+ * through the configured {@link InvalidationTransport}; each change coming in is published here as
+ * the same event, marked as from another node, so the same listeners handle both. Appliances are
+ * re-read by id first, since listeners other than the read cache need the appliance as it now is.
+ *
+ * <p>Off by default (appliances.invalidation.transport=none), as a single node has no one to tell;
+ * set it to change-log when running several.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final List<InvalidationTransport> transports;
+    private final ApplianceRepository applianceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplianceProperties applianceProperties;
+
+    private InvalidationTransport transport;
+
+    public CacheInvalidationBus(List<InvalidationTransport> transports,
+                                ApplianceRepository applianceRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                ApplianceProperties applianceProperties) {
+        this.transports = transports;
+        this.applianceRepository = applianceRepository;
+        this.eventPublisher = eventPublisher;
+        this.applianceProperties = applianceProperties;
+    }
+
+    // Before ApplicationReadyEvent, when the in-memory views load: a change landing between their load
+    // and the transport starting would otherwise be missed
+    @PostConstruct
+    public void start() {
+        String name = applianceProperties.getInvalidation().getTransport();
+        if ("none".equals(name)) {
+            return;
+        }
+        transport = transports.stream()
+            .filter(candidate -> candidate.name().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Unknown appliances.invalidation.transport: " + name));
+        transport.start(this::receive);
+        log.info("Relaying appliance changes between nodes through {}", name);
+    }
+
+    @EventListener
+    public void onApplianceChanged(ApplianceChangedEvent event) {
+        if (transport != null && !event.fromOtherNode()) {
+            transport.send(EntityChange.appliance(event.applianceId(), event.userId()));
+        }
+    }
+
+    /**
+     * Publishes changes made on other nodes here, in the order they were made.
+     */
+    void receive(List<EntityChange> changes) {
+        List<Long> applianceIds = new ArrayList<>();
+        for (EntityChange change : changes) {
+            applianceIds.add(change.id());
+        }
+        Map<Long, Appliance> current = new HashMap<>();
+        applianceRepository.findAllById(applianceIds).forEach(appliance -> current.put(appliance.getId(), appliance));
+
+        for (EntityChange change : changes) {
+            eventPublisher.publishEvent(ApplianceChangedEvent.fromOtherNode(change.id(), change.userId(),
+                current.get(change.id())));
+        }
+    }
+}
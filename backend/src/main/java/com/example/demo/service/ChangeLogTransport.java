@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.config.NodeProperties;
+import com.example.demo.event.EntityChange;
+import com.example.demo.model.EntityChangeLogEntry;
+import com.example.demo.repository.EntityChangeLogRepository;
+
+/**
+ * The invalidation transport for several nodes ("change-log"): the shared database itself. Changes are
+ * appended to entity_change_log, and every node reads the entries past the highest id it has seen
+ * (its high-water mark), skipping its own.
+ *
+ * <p>A high-water mark only works if ids become visible in order. SQLite has a single writer, so an
+ * entry with a lower id is always committed before one with a higher id; a database with concurrent
+ * writers would need gaps tracked instead.
+ *
+ * <p>One thread per node does all the work every appliances.invalidation.poll-ms: it writes the
+ * changes sent since its last round in one transaction, then reads. So a change reaches the other
+ * nodes within about two poll intervals, and a request that changes an appliance doesn't wait on
+ * an extra write. Entries older than appliances.invalidation.retention-ms are deleted as it goes.
+ */
+@Service
+public class ChangeLogTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogTransport.class);
+
+    private static final int READ_BATCH_SIZE = 500;
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    private final EntityChangeLogRepository changeLogRepository;
+    private final String nodeId;
+    private final ApplianceProperties applianceProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService pollExecutor;
+
+    // Changes made here and not yet written
+    private List<EntityChangeLogEntry> unsent = new ArrayList<>();
+    private long highWaterMark;
+    private long prunedAt = System.nanoTime();
+    private Consumer<List<EntityChange>> receiver;
+
+    public ChangeLogTransport(EntityChangeLogRepository changeLogRepository,
+                              NodeProperties nodeProperties,
+                              PlatformTransactionManager transactionManager,
+                              ApplianceProperties applianceProperties) {
+        this.changeLogRepository = changeLogRepository;
+        this.nodeId = nodeProperties.getId();
+        this.applianceProperties = applianceProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-log-");
+        threadFactory.setDaemon(true);
+        this.pollExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public String name() {
+        return "change-log";
+    }
+
+    /**
+     * Starts from the end of the log: whatever changed before is already in the caches' startup loads.
+     */
+    @Override
+    public void start(Consumer<List<EntityChange>> receiver) {
+        this.receiver = receiver;
+        this.highWaterMark = changeLogRepository.findMaxId();
+        long pollMs = applianceProperties.getInvalidation().getPollMs();
+        pollExecutor.scheduleWithFixedDelay(this::pollQuietly, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pollExecutor.shutdown();
+        try {
+            // Let a round under way finish, then write what is left so other nodes hear of it
+            pollExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            if (receiver != null) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Could not write pending entity changes on shutdown: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void send(EntityChange change) {
+        unsent.add(EntityChangeLogEntry.builder()
+            .entityType(change.type().name())
+            .entityId(change.id())
+            .userId(change.userId())
+            .nodeId(nodeId)
+            .createdAt(LocalDateTime.now())
+            .build());
+    }
+
+    /**
+     * One round: writes the changes sent since the last, then hands the other nodes' new entries to
+     * the receiver. Normally run by the poll thread.
+     */
+    void poll() {
+        flush();
+
+        List<EntityChangeLogEntry> entries;
+        do {
+            entries = changeLogRepository.findByIdGreaterThanOrderByIdAsc(highWaterMark, Limit.of(READ_BATCH_SIZE));
+            List<EntityChange> changes = new ArrayList<>();
+            for (EntityChangeLogEntry entry : entries) {
+                if (!nodeId.equals(entry.getNodeId())) {
+                    changes.add(new EntityChange(EntityChange.Type.valueOf(entry.getEntityType()),
+                            entry.getEntityId(), entry.getUserId()));
+                }
+            }
+            if (!changes.isEmpty()) {
+                receiver.accept(changes);
+            }
+            // Only past entries the receiver took, so a batch it failed on is read again next round
+            if (!entries.isEmpty()) {
+                highWaterMark = entries.get(entries.size() - 1).getId();
+            }
+        } while (entries.size() == READ_BATCH_SIZE);
+
+        pruneIfDue();
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Entity change log round failed; retrying next round: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        List<EntityChangeLogEntry> batch;
+        synchronized (this) {
+            if (unsent.isEmpty()) {
+                return;
+            }
+            batch = unsent;
+            unsent = new ArrayList<>();
+        }
+        // A transaction per chunk, so an alert run's worth of reschedules doesn't hold the write lock throughout
+        for (int from = 0; from < batch.size(); from += WRITE_BATCH_SIZE) {
+            List<EntityChangeLogEntry> chunk = batch.subList(from, Math.min(from + WRITE_BATCH_SIZE, batch.size()));
+            try {
+                changeLogRepository.saveAll(chunk);
+            } catch (RuntimeException e) {
+                List<EntityChangeLogEntry> failed = new ArrayList<>(batch.subList(from, batch.size()));
+                log.warn("Could not write {} entity changes; retrying next round: {}", failed.size(), e.getMessage());
+                // Put them back in front of anything sent meanwhile, as new rows again
+                failed.forEach(entry -> entry.setId(null));
+                synchronized (this) {
+                    failed.addAll(unsent);
+                    unsent = failed;
+                }
+                return;
+            }
+        }
+    }
+
+    private void pruneIfDue() {
+        long retentionMs = applianceProperties.getInvalidation().getRetentionMs();
+        if (System.nanoTime() - prunedAt < TimeUnit.MILLISECONDS.toNanos(retentionMs) / 10) {
+            return;
+        }
+        prunedAt = System.nanoTime();
+        LocalDateTime before = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(retentionMs));
+        Integer deleted = transactionTemplate.execute(status ->
+            changeLogRepository.deleteOlderThan(before, changeLogRepository.findMaxId()));
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} entity change log entries older than {}", deleted, before);
+        }
+    }
+}
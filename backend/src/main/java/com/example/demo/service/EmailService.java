@@ -1,52 +1,257 @@
 package com.example.demo.service;
 
+import com.example.demo.config.AlertProperties;
 import com.example.demo.model.Appliance;
 import com.example.demo.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class EmailService {
 
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+    private static final String ALERT_TEMPLATE = "maintenance-alert";
+    private static final String DIGEST_TEMPLATE = "maintenance-digest";
+    private static final String CHARSET = StandardCharsets.UTF_8.name();
+
     private final JavaMailSender mailSender;
+    private final AlertProperties alertProperties;
+    private final MailTemplates mailTemplates;
+    private final MailCircuitBreaker circuitBreaker;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, AlertProperties alertProperties, MailTemplates mailTemplates) {
         this.mailSender = mailSender;
+        this.alertProperties = alertProperties;
+        this.mailTemplates = mailTemplates;
+        this.circuitBreaker = new MailCircuitBreaker(alertProperties);
     }
 
-    public void sendMaintenanceAlert(User user, Appliance appliance) {
+    /**
+     * The alert email for the occurrence due on {@code dueDate}, for sending with {@link #sendAll}: the
+     * maintenance-alert templates in the user's locale, as plain text and HTML. If that date has passed,
+     * the email says the maintenance is overdue and how many later occurrences of a recurring alert were
+     * skipped, so a long-overdue alert produces this one notice instead of one email per missed interval.
+     */
+    public AlertEmail buildMaintenanceAlert(User user, Appliance appliance, LocalDate dueDate, int missedOccurrences) {
+        Map<String, Object> model = applianceModel(appliance);
+        model.put("userName", user.getName());
+        model.put("applianceName", appliance.getName());
+        if (dueDate != null && dueDate.isBefore(LocalDate.now())) {
+            model.put("overdue", true);
+            model.put("dueDate", dueDate);
+            model.put("missed", missedOccurrences);
+            model.put("missedOne", missedOccurrences == 1);
+            model.put("missedMany", missedOccurrences > 1);
+            model.put("nextAlertDate", appliance.getAlertDate());
+        }
+        return render(ALERT_TEMPLATE, user, model);
+    }
+
+    /**
+     * One email listing all of the user's due appliances, for users who opted into digests; sent with {@link #sendAll}.
+     */
+    public AlertEmail buildMaintenanceDigest(User user, List<Appliance> appliances) {
+        List<Map<String, Object>> items = new ArrayList<>(appliances.size());
+        for (Appliance appliance : appliances) {
+            items.add(applianceModel(appliance));
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("userName", user.getName());
+        model.put("count", appliances.size());
+        model.put("appliances", items);
+        model.put("listUrl", alertProperties.getAppUrl() + "/list/appliances");
+        return render(DIGEST_TEMPLATE, user, model);
+    }
+
+    /**
+     * Sends the messages over a single SMTP connection (one connect and handshake for the lot) and
+     * reports the outcome of each: the returned list lines up with {@code messages}, holding null for
+     * a message the server accepted and the failure for one it didn't. A failure to connect or log in
+     * fails every message; otherwise one rejected message doesn't stop the rest. While the mail circuit
+     * is open every message fails with {@link MailCircuitBreaker.CircuitOpenException} without being tried.
+     */
+    public List<Exception> sendAll(List<AlertEmail> emails) {
+        List<Exception> failures = new ArrayList<>(Collections.nCopies(emails.size(), null));
+
+        // An email that can't be turned into a MIME message fails on its own; the rest still go out
+        List<Integer> indexes = new ArrayList<>(emails.size());
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                messages.add(toMimeMessage(emails.get(i)));
+                indexes.add(i);
+            } catch (MailException e) {
+                failures.set(i, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            for (int index : indexes) {
+                failures.set(index, circuitBreaker.refusal());
+            }
+            return failures;
+        }
+
+        Exception transportFailure = null;
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Maintenance Alert: " + appliance.getName());
-            message.setText(buildAlertMessage(user, appliance));
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Keyed by the messages passed in; empty if the failure wasn't tied to particular messages
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (int i = 0; i < messages.size(); i++) {
+                failures.set(indexes.get(i), failed.isEmpty() ? e : failed.get(messages.get(i)));
+            }
+            if (MailCircuitBreaker.isTransportFailure(e)) {
+                transportFailure = e;
+            }
+        } catch (MailException e) {
+            for (int index : indexes) {
+                failures.set(index, e);
+            }
+            if (MailCircuitBreaker.isTransportFailure(e)) {
+                transportFailure = e;
+            }
+        } catch (RuntimeException e) {
+            // Not from the mail stack, so nothing says the server was reached
+            circuitBreaker.recordFailure(e);
+            throw e;
+        }
+
+        // Only a transport failure counts against the breaker. Messages the server rejected (every one of
+        // them, even) show it is up; they go back to the caller for their own retries or dead-lettering.
+        long sent = indexes.stream().filter(index -> failures.get(index) == null).count();
+        if (transportFailure == null) {
+            // A timeout or dropped connection part-way through is listed against the message it hit
+            transportFailure = indexes.stream()
+                    .map(failures::get)
+                    .filter(failure -> failure != null && MailCircuitBreaker.isTransportFailure(failure))
+                    .findFirst()
+                    .orElse(null);
+        }
+        if (sent == 0 && transportFailure != null) {
+            circuitBreaker.recordFailure(transportFailure);
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+        log.info("Sent {} of {} emails over one SMTP connection", sent, emails.size());
+        return failures;
+    }
+
+    /**
+     * Whether sends are currently refused by the mail circuit breaker; callers with queued work can
+     * leave it for later instead of failing it.
+     */
+    public boolean isTransportRefusing() {
+        return circuitBreaker.isRefusing();
+    }
 
-            mailSender.send(message);
-            log.info("Sent maintenance alert email to {} for appliance {}", user.getEmail(), appliance.getName());
-        } catch (Exception e) {
-            log.error("Failed to send maintenance alert email to {} for appliance {}: {}",
-                user.getEmail(), appliance.getName(), e.getMessage());
+    public MailCircuitBreaker.Status getTransportStatus() {
+        return circuitBreaker.status();
+    }
+
+    /**
+     * Once an open circuit's wait is over, checks the mail server with a bare connect (no email
+     * sent), so the circuit closes even when nothing is waiting to be sent.
+     */
+    @Scheduled(fixedDelayString = "${alerts.mail-breaker.probe-interval-ms:10000}",
+               initialDelayString = "${alerts.mail-breaker.probe-interval-ms:10000}")
+    public void probeTransport() {
+        if (!(mailSender instanceof JavaMailSenderImpl javaMailSender)
+                || !circuitBreaker.isProbeDue() || !circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            javaMailSender.testConnection();
+            circuitBreaker.recordSuccess();
+        } catch (MessagingException | RuntimeException e) {
+            circuitBreaker.recordFailure(e);
         }
     }
 
-    private String buildAlertMessage(User user, Appliance appliance) {
-        StringBuilder message = new StringBuilder();
-        message.append("Hello ").append(user.getName()).append(",\n\n");
-        message.append("This is a reminder that your appliance requires attention:\n\n");
-        message.append("Appliance: ").append(appliance.getName()).append("\n");
+    private AlertEmail render(String template, User user, Map<String, Object> model) {
+        MailTemplates.Variant variant = mailTemplates.get(template, user.getLocale());
+        return new AlertEmail(user.getEmail(),
+                variant.subject().render(model),
+                variant.text().render(model),
+                variant.html() == null ? null : variant.html().render(model));
+    }
+
+    /**
+     * The appliance fields the templates show, plus its warranty status and links into the web app.
+     * Absent values are left out, so {{#field}} sections skip them.
+     */
+    private Map<String, Object> applianceModel(Appliance appliance) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("name", appliance.getName());
+        putIfPresent(model, "description", appliance.getDescription());
+        putIfPresent(model, "category", appliance.getCategory());
+        putIfPresent(model, "brand", appliance.getBrand());
+        putIfPresent(model, "model", appliance.getModel());
+        putIfPresent(model, "serialNumber", appliance.getSerialNumber());
 
-        if (appliance.getDescription() != null && !appliance.getDescription().isEmpty()) {
-            message.append("Description: ").append(appliance.getDescription()).append("\n");
+        LocalDate warrantyExpiry = appliance.warrantyExpiry();
+        if (warrantyExpiry != null) {
+            model.put("warrantyExpires", warrantyExpiry);
+            model.put(warrantyExpiry.isBefore(LocalDate.now()) ? "warrantyExpired" : "warrantyActive", true);
         }
 
-        message.append("\nPlease schedule the necessary maintenance or updates.\n\n");
-        message.append("Best regards,\n");
-        message.append("Appliance Logbook System");
+        String viewUrl = alertProperties.getAppUrl() + "/list/appliances/" + appliance.getId() + "/view";
+        model.put("viewUrl", viewUrl);
+        model.put("snoozeDayUrl", viewUrl + "?snooze=1");
+        model.put("snoozeWeekUrl", viewUrl + "?snooze=7");
+        model.put("snoozeMonthUrl", viewUrl + "?snooze=30");
+        return model;
+    }
+
+    private static void putIfPresent(Map<String, Object> model, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            model.put(key, value);
+        }
+    }
 
-        return message.toString();
+    private MimeMessage toMimeMessage(AlertEmail email) {
+        MimeMessage message = mailSender.createMimeMessage();
+        try {
+            message.setRecipients(Message.RecipientType.TO, email.to());
+            message.setSubject(email.subject(), CHARSET);
+            if (email.html() != null) {
+                // A plain multipart/alternative: MimeMessageHelper would nest it in mixed and related
+                // parts for attachments and inline images these emails never have
+                MimeBodyPart text = new MimeBodyPart();
+                text.setText(email.text(), CHARSET);
+                MimeBodyPart html = new MimeBodyPart();
+                html.setText(email.html(), CHARSET, "html");
+                message.setContent(new MimeMultipart("alternative", text, html));
+            } else {
+                message.setText(email.text(), CHARSET);
+            }
+        } catch (MessagingException e) {
+            throw new MailPreparationException("Could not build email to " + email.to(), e);
+        }
+        return message;
     }
 }
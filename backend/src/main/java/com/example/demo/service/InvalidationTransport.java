@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.demo.event.EntityChange;
+
+/**
+ * Carries entity changes between backend nodes for {@link CacheInvalidationBus}. Implementations
+ * are beans; appliances.invalidation.transport names the one in use.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * The value of appliances.invalidation.transport that selects this transport.
+     */
+    String name();
+
+    /**
+     * Starts delivering changes made on other nodes to {@code receiver}, a batch at a time, each
+     * within appliances.invalidation.poll-ms or so of being sent. A node never receives its own changes.
+     */
+    void start(Consumer<List<EntityChange>> receiver);
+
+    /**
+     * Tells the other nodes about a change made here. Doesn't throw: a change that can't be sent
+     * only leaves their caches stale until appliances.cache.ttl-ms runs out.
+     */
+    void send(EntityChange change);
+}
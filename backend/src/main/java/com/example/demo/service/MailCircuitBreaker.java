@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import jakarta.mail.AuthenticationFailedException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+
+import com.example.demo.config.AlertProperties;
+
+/**
+ * Circuit breaker around the mail transport, owned by EmailService. After
+ * alerts.mail-breaker.failure-threshold sends in a row in which nothing got through it opens:
+ * sends are refused straight away instead of each waiting out a connection timeout. Once
+ * alerts.mail-breaker.open-ms has passed it lets a single probe through (half-open); the probe's
+ * outcome closes it again or reopens it for another period. Only failures to reach the server count
+ * ({@link #isTransportFailure}); a message the server rejects is left to that message's own retries.
+ */
+public class MailCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * What a refused send fails with; nothing was attempted, so callers can treat the message as not tried.
+     */
+    public static class CircuitOpenException extends MailSendException {
+        public CircuitOpenException(LocalDateTime retryAt) {
+            super("Mail transport unavailable (circuit open until " + retryAt + "); send not attempted");
+        }
+    }
+
+    /**
+     * Breaker state for monitoring.
+     */
+    public record Status(State state, int consecutiveFailures, LocalDateTime openedAt, LocalDateTime retryAt,
+                         String lastError) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MailCircuitBreaker.class);
+
+    private final AlertProperties alertProperties;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private LocalDateTime openedAt;
+    private LocalDateTime retryAt;
+    private String lastError;
+
+    public MailCircuitBreaker(AlertProperties alertProperties) {
+        this.alertProperties = alertProperties;
+    }
+
+    /**
+     * Whether a send may go ahead now. Moves an open breaker whose wait is over to half-open and
+     * admits that one caller as the probe; everyone else is refused until the probe reports back.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && !LocalDateTime.now().isBefore(retryAt)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * True while sends are being refused, so callers can defer work instead of trying.
+     */
+    public synchronized boolean isRefusing() {
+        return state == State.HALF_OPEN || (state == State.OPEN && LocalDateTime.now().isBefore(retryAt));
+    }
+
+    public synchronized boolean isProbeDue() {
+        return state == State.OPEN && !LocalDateTime.now().isBefore(retryAt);
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Mail transport reachable again; circuit closed after being open since {}", openedAt);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openedAt = null;
+        retryAt = null;
+    }
+
+    public synchronized void recordFailure(Exception error) {
+        consecutiveFailures++;
+        lastError = error.getMessage();
+        if (state == State.HALF_OPEN || consecutiveFailures >= alertProperties.getMailBreaker().getFailureThreshold()) {
+            LocalDateTime now = LocalDateTime.now();
+            if (state == State.CLOSED) {
+                openedAt = now;
+            }
+            retryAt = now.plus(Duration.ofMillis(alertProperties.getMailBreaker().getOpenMs()));
+            if (state != State.OPEN) {
+                log.warn("Mail transport circuit open after {} failed sends; refusing sends until {}: {}",
+                        consecutiveFailures, retryAt, lastError);
+            }
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Whether a send failure means the mail server couldn't be reached or wouldn't let us in: a failed
+     * connect or login, a dropped connection or a timeout. A message the server answered with a
+     * rejection (an unknown recipient, say) shows it is up.
+     *
+     * <p>JavaMailSenderImpl reports a connection it couldn't open (or close) as a MailSendException
+     * with that error as its cause, listed against every message; per-message failures come without
+     * a cause. One not tied to any message at all is taken as a connection failure too.
+     */
+    public static boolean isTransportFailure(Exception error) {
+        if (error instanceof CircuitOpenException) {
+            return false;
+        }
+        if (error instanceof MailAuthenticationException) {
+            return true;
+        }
+        if (error instanceof MailSendException send) {
+            return send.getFailedMessages().isEmpty() || send.getCause() != null;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AuthenticationFailedException || cause instanceof SocketException
+                    || cause instanceof SocketTimeoutException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized CircuitOpenException refusal() {
+        return new CircuitOpenException(retryAt);
+    }
+
+    public synchronized Status status() {
+        return new Status(state, consecutiveFailures, openedAt, retryAt, lastError);
+    }
+}
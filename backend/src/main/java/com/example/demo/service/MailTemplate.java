@@ -0,0 +1,185 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An email template compiled once into a tree of literal text, variables and sections, so rendering
+ * is a walk over that tree with no parsing. The syntax is a small subset of Mustache:
+ * <ul>
+ *   <li>{@code {{name}}} - the value of {@code name}, HTML-escaped in HTML templates</li>
+ *   <li>{@code {{#name}}...{{/name}}} - rendered once if {@code name} is true or a non-empty value,
+ *       or once per element (with the element's keys in scope) if it is a list</li>
+ *   <li>{@code {{^name}}...{{/name}}} - rendered if {@code name} is missing, false or empty</li>
+ * </ul>
+ * Output goes into a per-thread buffer that is reused across renders.
+ */
+public final class MailTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+
+    private final String name;
+    private final boolean html;
+    private final List<Node> nodes;
+
+    private MailTemplate(String name, boolean html, List<Node> nodes) {
+        this.name = name;
+        this.html = html;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Parses {@code source}; an unclosed or mismatched section fails here, not at render time.
+     */
+    public static MailTemplate compile(String name, String source, boolean html) {
+        Deque<Section> open = new ArrayDeque<>();
+        List<Node> root = new ArrayList<>();
+        List<Node> current = root;
+        int pos = 0;
+
+        while (pos < source.length()) {
+            int start = source.indexOf("{{", pos);
+            if (start < 0) {
+                current.add(new Text(source.substring(pos)));
+                break;
+            }
+            if (start > pos) {
+                current.add(new Text(source.substring(pos, start)));
+            }
+            int end = source.indexOf("}}", start);
+            if (end < 0) {
+                throw new IllegalArgumentException(name + ": unclosed tag at offset " + start);
+            }
+            String tag = source.substring(start + 2, end).trim();
+            pos = end + 2;
+
+            if (tag.startsWith("#") || tag.startsWith("^")) {
+                Section section = new Section(tag.substring(1).trim(), tag.startsWith("^"), new ArrayList<>());
+                current.add(section);
+                open.push(section);
+                current = section.children();
+            } else if (tag.startsWith("/")) {
+                String key = tag.substring(1).trim();
+                if (open.isEmpty() || !open.peek().key().equals(key)) {
+                    throw new IllegalArgumentException(name + ": unexpected {{/" + key + "}} at offset " + start);
+                }
+                open.pop();
+                current = open.isEmpty() ? root : open.peek().children();
+            } else {
+                current.add(new Variable(tag));
+            }
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException(name + ": section {{#" + open.peek().key() + "}} is never closed");
+        }
+        return new MailTemplate(name, html, List.copyOf(root));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String render(Map<String, ?> model) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        Deque<Map<String, ?>> scopes = new ArrayDeque<>();
+        scopes.push(model);
+        render(nodes, scopes, out);
+        return out.toString();
+    }
+
+    private void render(List<Node> nodes, Deque<Map<String, ?>> scopes, StringBuilder out) {
+        for (Node node : nodes) {
+            if (node instanceof Text text) {
+                out.append(text.value());
+            } else if (node instanceof Variable variable) {
+                Object value = lookup(scopes, variable.key());
+                if (value != null) {
+                    if (html) {
+                        escapeHtml(value.toString(), out);
+                    } else {
+                        out.append(value);
+                    }
+                }
+            } else if (node instanceof Section section) {
+                renderSection(section, scopes, out);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void renderSection(Section section, Deque<Map<String, ?>> scopes, StringBuilder out) {
+        Object value = lookup(scopes, section.key());
+        if (section.inverted()) {
+            if (!truthy(value)) {
+                render(section.children(), scopes, out);
+            }
+            return;
+        }
+        if (value instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (item instanceof Map<?, ?> itemScope) {
+                    scopes.push((Map<String, ?>) itemScope);
+                    render(section.children(), scopes, out);
+                    scopes.pop();
+                } else {
+                    render(section.children(), scopes, out);
+                }
+            }
+        } else if (truthy(value)) {
+            render(section.children(), scopes, out);
+        }
+    }
+
+    private static Object lookup(Deque<Map<String, ?>> scopes, String key) {
+        for (Map<String, ?> scope : scopes) {
+            if (scope.containsKey(key)) {
+                return scope.get(key);
+            }
+        }
+        return null;
+    }
+
+    private static boolean truthy(Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return false;
+        }
+        if (value instanceof Collection<?> items) {
+            return !items.isEmpty();
+        }
+        if (value instanceof Number number) {
+            return number.longValue() != 0;
+        }
+        return !value.toString().isEmpty();
+    }
+
+    private static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private sealed interface Node permits Text, Variable, Section {
+    }
+
+    private record Text(String value) implements Node {
+    }
+
+    private record Variable(String key) implements Node {
+    }
+
+    private record Section(String key, boolean inverted, List<Node> children) implements Node {
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * The email templates under {@code classpath:mail/}, compiled once at startup. Each email has a
+ * {@code <name>.subject}, a plain-text {@code <name>.txt} and optionally an {@code <name>.html};
+ * a locale variant adds a suffix, e.g. {@code maintenance-alert_es.txt}, and may override any of
+ * the three parts. Which variant a locale gets is worked out on first use and cached.
+ */
+@Component
+public class MailTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(MailTemplates.class);
+
+    private static final String LOCATION = "classpath*:mail/*";
+
+    /**
+     * The templates an email is rendered from for one locale; {@code html} is null for plain-text-only emails.
+     */
+    public record Variant(MailTemplate subject, MailTemplate text, MailTemplate html) {
+    }
+
+    // "<name>.<part>" or "<name>_<locale>.<part>" -> compiled template
+    private final Map<String, MailTemplate> compiled;
+    private final Map<String, Variant> resolved = new ConcurrentHashMap<>();
+
+    public MailTemplates() throws IOException {
+        this(new PathMatchingResourcePatternResolver());
+    }
+
+    MailTemplates(ResourcePatternResolver resolver) throws IOException {
+        Map<String, MailTemplate> templates = new HashMap<>();
+        for (Resource resource : resolver.getResources(LOCATION)) {
+            String file = resource.getFilename();
+            if (file == null || !(file.endsWith(".subject") || file.endsWith(".txt") || file.endsWith(".html"))) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                if (file.endsWith(".subject")) {
+                    source = source.strip();
+                }
+                templates.put(file, MailTemplate.compile(file, source, file.endsWith(".html")));
+            }
+        }
+        this.compiled = Map.copyOf(templates);
+        log.info("Compiled {} email templates", compiled.size());
+    }
+
+    /**
+     * The templates for email {@code name} in the closest available match for {@code languageTag}
+     * (e.g. es-MX, then es, then the default), part by part.
+     *
+     * @throws IllegalArgumentException if there is no default subject and text for {@code name}
+     */
+    public Variant get(String name, String languageTag) {
+        String tag = languageTag == null ? "" : languageTag;
+        return resolved.computeIfAbsent(name + "|" + tag, key -> resolve(name, tag));
+    }
+
+    private Variant resolve(String name, String languageTag) {
+        List<String> suffixes = candidateSuffixes(languageTag);
+        MailTemplate subject = find(name, suffixes, "subject");
+        MailTemplate text = find(name, suffixes, "txt");
+        if (subject == null || text == null) {
+            throw new IllegalArgumentException("No email template " + name + " (needs mail/" + name
+                    + ".subject and mail/" + name + ".txt)");
+        }
+        return new Variant(subject, text, find(name, suffixes, "html"));
+    }
+
+    private MailTemplate find(String name, List<String> suffixes, String part) {
+        for (String suffix : suffixes) {
+            MailTemplate template = compiled.get(name + suffix + "." + part);
+            if (template != null) {
+                return template;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> candidateSuffixes(String languageTag) {
+        Locale locale = Locale.forLanguageTag(languageTag.replace('_', '-'));
+        String language = locale.getLanguage();
+        if (language.isEmpty()) {
+            return List.of("");
+        }
+        if (locale.getCountry().isEmpty()) {
+            return List.of("_" + language, "");
+        }
+        return List.of("_" + language + "_" + locale.getCountry(), "_" + language, "");
+    }
+}
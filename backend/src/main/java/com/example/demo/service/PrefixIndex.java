@@ -0,0 +1,256 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix completion over the values of one field of a user's appliances, most
+ * used first.
+ *
+ * <p>A character trie over the lower-cased values in which every node keeps the top
+ * {@code maxResults} values of its subtree, so a lookup is a walk down the prefix and a copy of that
+ * list. Counting a value up or down re-ranks only the nodes on its path, each from its own value and
+ * its children's lists. Not thread-safe; {@link ApplianceSuggestionService} synchronizes.
+ */
+final class PrefixIndex {
+
+    private static final Value[] NO_VALUES = new Value[0];
+
+    private final int maxResults;
+    private final Node root = new Node();
+
+    PrefixIndex(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Counts one more use of {@code spelling} (as returned by {@link #spelling}) and, if {@code rank},
+     * re-ranks its path; filling a new index leaves that to {@link #rankAll()}, since re-ranking the
+     * path of every value as it is added would repeat the same work. Returns the index's instance of
+     * the spelling, shared by everything that counts towards it.
+     */
+    String add(String spelling, boolean rank) {
+        return count(spelling, 1, rank);
+    }
+
+    /**
+     * Counts one use fewer of a spelling {@link #add} returned.
+     */
+    void remove(String spelling) {
+        count(spelling, -1, true);
+    }
+
+    boolean isEmpty() {
+        return root.value == null && root.labels.length == 0;
+    }
+
+    /**
+     * Ranks every node, children before parents; after loading.
+     */
+    void rankAll() {
+        rankAll(root);
+    }
+
+    /**
+     * Up to {@code limit} (at most maxResults) values starting with {@code prefix}, ignoring case,
+     * most used first, each in its most used spelling.
+     */
+    List<String> complete(String prefix, int limit) {
+        String key = prefix.stripLeading().toLowerCase(Locale.ROOT);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int size = Math.min(limit, node.top.length);
+        List<String> completions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            completions.add(node.top[i].display());
+        }
+        return completions;
+    }
+
+    private void rankAll(Node node) {
+        for (Node child : node.children) {
+            rankAll(child);
+        }
+        node.rank(maxResults);
+    }
+
+    /**
+     * The spelling a field value counts as: trimmed, or null if it is null or blank.
+     */
+    static String spelling(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Adds delta to the spelling's count and, if asked, re-ranks its path, pruning nodes left empty.
+    // Returns the index's instance of the spelling.
+    private String count(String spelling, int delta, boolean rank) {
+        String key = spelling.toLowerCase(Locale.ROOT);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = path[i].child(key.charAt(i));
+            path[i + 1] = next != null ? next : path[i].addChild(key.charAt(i));
+        }
+
+        Node leaf = path[key.length()];
+        if (leaf.value == null) {
+            leaf.value = new Value(key);
+        }
+        String instance = leaf.value.count(spelling, delta);
+        if (leaf.value.total <= 0) {
+            leaf.value = null;
+        }
+        if (!rank) {
+            return instance;
+        }
+
+        for (int i = key.length(); i >= 0; i--) {
+            Node node = path[i];
+            if (i > 0 && node.value == null && node.labels.length == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            } else {
+                node.rank(maxResults);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * One value, case aside, with how many appliances use each spelling of it.
+     */
+    private static final class Value {
+
+        final String key;
+        String[] spellings = new String[0];
+        int[] counts = new int[0];
+        int total;
+
+        Value(String key) {
+            this.key = key;
+        }
+
+        String count(String spelling, int delta) {
+            total += delta;
+            for (int i = 0; i < spellings.length; i++) {
+                if (spellings[i].equals(spelling)) {
+                    String instance = spellings[i];
+                    counts[i] += delta;
+                    if (counts[i] <= 0) {
+                        remove(i);
+                    }
+                    return instance;
+                }
+            }
+            spellings = Arrays.copyOf(spellings, spellings.length + 1);
+            counts = Arrays.copyOf(counts, counts.length + 1);
+            spellings[spellings.length - 1] = spelling;
+            counts[counts.length - 1] = delta;
+            return spelling;
+        }
+
+        private void remove(int i) {
+            String[] newSpellings = new String[spellings.length - 1];
+            int[] newCounts = new int[counts.length - 1];
+            System.arraycopy(spellings, 0, newSpellings, 0, i);
+            System.arraycopy(counts, 0, newCounts, 0, i);
+            System.arraycopy(spellings, i + 1, newSpellings, i, spellings.length - i - 1);
+            System.arraycopy(counts, i + 1, newCounts, i, counts.length - i - 1);
+            spellings = newSpellings;
+            counts = newCounts;
+        }
+
+        String display() {
+            int best = 0;
+            for (int i = 1; i < counts.length; i++) {
+                if (counts[i] > counts[best]) {
+                    best = i;
+                }
+            }
+            return spellings[best];
+        }
+    }
+
+    private static final class Node {
+
+        // Children by character, labels kept sorted
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        Value value;
+        Value[] top = NO_VALUES;
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char label) {
+            int at = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            Node child = new Node();
+            newLabels[at] = label;
+            newChildren[at] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        // The subtree's top values are among this node's own value and its children's top values: merge
+        // those already-ranked lists until maxResults are taken
+        void rank(int maxResults) {
+            Value[] ranked = new Value[maxResults];
+            int[] taken = new int[children.length];
+            boolean ownTaken = value == null;
+            int size = 0;
+            while (size < maxResults) {
+                Value best = ownTaken ? null : value;
+                int from = -1;
+                for (int c = 0; c < children.length; c++) {
+                    Value[] childTop = children[c].top;
+                    if (taken[c] < childTop.length && (best == null || ranksBefore(childTop[taken[c]], best))) {
+                        best = childTop[taken[c]];
+                        from = c;
+                    }
+                }
+                if (best == null) {
+                    break;
+                }
+                if (from < 0) {
+                    ownTaken = true;
+                } else {
+                    taken[from]++;
+                }
+                ranked[size++] = best;
+            }
+            top = size == maxResults ? ranked : Arrays.copyOf(ranked, size);
+        }
+    }
+
+    // Most used first; ties alphabetically
+    private static boolean ranksBefore(Value a, Value b) {
+        return a.total != b.total ? a.total > b.total : a.key.compareTo(b.key) < 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import com.example.demo.model.Appliance;
+
+/**
+ * Date arithmetic for recurring alerts (MONTHLY, YEARLY, or CUSTOM every N days). Occurrences are
+ * counted from an anchor date as anchor + k intervals, so finding the first one after a given date
+ * takes constant time however far behind the anchor is.
+ */
+public final class RecurrenceCalculator {
+
+    private RecurrenceCalculator() {
+    }
+
+    public static boolean isRecurring(Appliance appliance) {
+        return step(appliance.getRecurringInterval(), appliance.getRecurringIntervalDays()) != null;
+    }
+
+    /**
+     * First occurrence of the appliance's recurrence, counted from its recurrence anchor, that falls after
+     * {@code after}. {@code null} if the appliance doesn't recur.
+     */
+    public static LocalDate nextOccurrence(Appliance appliance, LocalDate after) {
+        return nextOccurrence(appliance.getRecurringInterval(), appliance.getRecurringIntervalDays(),
+                anchor(appliance), after);
+    }
+
+    /**
+     * Occurrences of the appliance's recurrence after its current alert date and on or before {@code until}:
+     * the ones moving it to {@link #nextOccurrence(Appliance, LocalDate)} skips. 0 if it doesn't recur.
+     */
+    public static long missedOccurrences(Appliance appliance, LocalDate until) {
+        return missedOccurrences(appliance.getRecurringInterval(), appliance.getRecurringIntervalDays(),
+                anchor(appliance), appliance.getAlertDate(), until);
+    }
+
+    /**
+     * First occurrence {@code anchor + k * interval} (k >= 1) that falls after {@code after}.
+     * {@code null} if the interval isn't a recurring one.
+     */
+    public static LocalDate nextOccurrence(String interval, Integer intervalDays, LocalDate anchor, LocalDate after) {
+        ChronoUnit unit = step(interval, intervalDays);
+        if (unit == null) {
+            return null;
+        }
+        return occurrence(unit, intervalDays, anchor, stepsPast(unit, intervalDays, anchor, after));
+    }
+
+    /**
+     * Occurrences strictly after {@code anchor} and on or before {@code until}: the ones a catch-up
+     * from {@code anchor} to the next occurrence after {@code until} skips. 0 if not recurring.
+     */
+    public static long missedOccurrences(String interval, Integer intervalDays, LocalDate anchor, LocalDate until) {
+        return missedOccurrences(interval, intervalDays, anchor, anchor, until);
+    }
+
+    /**
+     * Occurrences counted from {@code anchor} that fall strictly after {@code from} and on or before
+     * {@code until}. 0 if not recurring.
+     */
+    public static long missedOccurrences(String interval, Integer intervalDays, LocalDate anchor, LocalDate from,
+                                         LocalDate until) {
+        ChronoUnit unit = step(interval, intervalDays);
+        if (unit == null) {
+            return 0;
+        }
+        return Math.max(0, stepsPast(unit, intervalDays, anchor, until) - stepsPast(unit, intervalDays, anchor, from));
+    }
+
+    /**
+     * Smallest k >= 1 with {@code anchor + k * interval} after {@code after}.
+     */
+    private static long stepsPast(ChronoUnit unit, Integer intervalDays, LocalDate anchor, LocalDate after) {
+        if (!after.isAfter(anchor)) {
+            return 1;
+        }
+        long k = unit == ChronoUnit.DAYS
+                ? ChronoUnit.DAYS.between(anchor, after) / intervalDays
+                : unit.between(anchor, after);
+        // between() rounds down, and month/year arithmetic clamps to month ends (Jan 31 + 1 month = Feb 28),
+        // so the estimate can sit one step short; this corrects it in at most two iterations
+        k = Math.max(k, 1);
+        while (!occurrence(unit, intervalDays, anchor, k).isAfter(after)) {
+            k++;
+        }
+        return k;
+    }
+
+    private static LocalDate occurrence(ChronoUnit unit, Integer intervalDays, LocalDate anchor, long k) {
+        return switch (unit) {
+            case MONTHS -> anchor.plusMonths(k);
+            case YEARS -> anchor.plusYears(k);
+            default -> anchor.plusDays(k * intervalDays);
+        };
+    }
+
+    // Rows saved before the anchor existed and not yet backfilled count from their alert date
+    private static LocalDate anchor(Appliance appliance) {
+        return appliance.getRecurrenceAnchor() != null ? appliance.getRecurrenceAnchor() : appliance.getAlertDate();
+    }
+
+    private static ChronoUnit step(String interval, Integer intervalDays) {
+        if (interval == null) {
+            return null;
+        }
+        return switch (interval) {
+            case "MONTHLY" -> ChronoUnit.MONTHS;
+            case "YEARLY" -> ChronoUnit.YEARS;
+            case "CUSTOM" -> intervalDays != null && intervalDays > 0 ? ChronoUnit.DAYS : null;
+            default -> null;
+        };
+    }
+}
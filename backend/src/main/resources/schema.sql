@@ -0,0 +1,44 @@
+-- Applied on every startup after Hibernate's schema update; statements must be idempotent.
+
+-- An alert occurrence is queued at most once, which makes alert re-runs idempotent
+CREATE UNIQUE INDEX IF NOT EXISTS uk_alert_outbox_occurrence ON alert_outbox (appliance_id, due_date);
+
+-- One-time backfill of appliances.alert_due_from and next_fire_date for rows written before the columns
+-- existed; afterwards every insert and update sets them (Appliance.refreshDerivedDates), so these match
+-- nothing but rows whose alert never comes due (no alert date, cancelled) and, for next_fire_date, rows the
+-- alert run marked queued (alert_queued_for, which rows from before the column never have). The only copy
+-- of Appliance.computeAlertDueFrom outside Java; next_fire_date follows from it.
+UPDATE appliances
+SET alert_due_from = CASE
+        WHEN alert_status = 'SNOOZED' AND snooze_until IS NOT NULL AND snooze_until > alert_date THEN snooze_until
+        ELSE alert_date
+    END
+WHERE alert_due_from IS NULL
+  AND alert_date IS NOT NULL
+  AND (alert_status IS NULL OR alert_status IN ('ACTIVE', 'SNOOZED'));
+
+UPDATE appliances
+SET next_fire_date = alert_due_from
+WHERE next_fire_date IS NULL
+  AND alert_due_from IS NOT NULL
+  AND alert_queued_for IS NULL;
+
+-- One-time backfill of appliances.recurrence_anchor for rows written before the column existed; afterwards
+-- every insert and update fills it in (Appliance.refreshDerivedDates). A month-end date the alert run already
+-- clamped (Jan 31 to Feb 28) can't be told apart from one the user chose, so such rows keep the clamped day.
+UPDATE appliances
+SET recurrence_anchor = alert_date
+WHERE recurrence_anchor IS NULL
+  AND alert_date IS NOT NULL;
+
+-- Superseded by idx_appliances_next_fire
+DROP INDEX IF EXISTS idx_appliances_alert_due;
+
+-- The alerts view reads idx_appliances_user_alert_date now that next_fire_date leaves out queued alerts
+DROP INDEX IF EXISTS idx_appliances_user_next_fire;
+
+-- Case-insensitive filters and sort keys of the appliance list (ApplianceSpecifications, ApplianceRepositoryImpl
+-- compare and order with COLLATE NOCASE). Hibernate's @Index can't declare a collation.
+CREATE INDEX IF NOT EXISTS idx_appliances_user_name ON appliances (user_id, name COLLATE NOCASE);
+CREATE INDEX IF NOT EXISTS idx_appliances_user_brand ON appliances (user_id, brand COLLATE NOCASE);
+CREATE INDEX IF NOT EXISTS idx_appliances_user_category ON appliances (user_id, category COLLATE NOCASE);
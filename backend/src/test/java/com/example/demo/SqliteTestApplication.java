@@ -0,0 +1,48 @@
+package com.example.demo;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the whole application on a SQLite file of its own, for tests that need the real schema,
+ * triggers and queries. Several contexts on one file stand in for several backend nodes.
+ */
+public final class SqliteTestApplication {
+
+    private SqliteTestApplication() {
+    }
+
+    /**
+     * Starts a context on {@code db}. Settings go in as command-line arguments, so they win over
+     * application.properties; each of {@code overrides} ("--name=value") replaces one of the defaults
+     * here or adds a setting. By default SQL isn't logged and nothing listens on the mail port, so
+     * sends fail fast.
+     */
+    public static ConfigurableApplicationContext start(Path db, String... overrides) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.datasource.url", "jdbc:sqlite:" + db);
+        settings.put("server.port", "0");
+        settings.put("spring.jpa.show-sql", "false");
+        settings.put("logging.level.org.hibernate.SQL", "WARN");
+        settings.put("spring.mail.port", "1");
+        for (String override : overrides) {
+            int equals = override.indexOf('=');
+            if (!override.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + override);
+            }
+            // Replaced rather than repeated: a repeated argument binds as both values joined by a comma
+            settings.put(override.substring(2, equals), override.substring(equals + 1));
+        }
+
+        String[] args = settings.entrySet().stream()
+            .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+            .toArray(String[]::new);
+        // What DemoApplication.main does before starting, so benchmarks build emails as production does
+        DemoApplication.configureMailStreamProvider();
+        return new SpringApplicationBuilder(DemoApplication.class).run(args);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.service.AlertOutboxRelay;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.MailCircuitBreaker;
+
+@WebMvcTest(AlertOutboxController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ContextConfiguration(classes = DemoApplication.class)
+class AlertOutboxControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AlertOutboxRepository alertOutboxRepository;
+
+    @MockBean
+    private AlertOutboxRelay alertOutboxRelay;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void testGetEntries_ListsDeadLettersByDefault() throws Exception {
+        // Arrange
+        when(alertOutboxRepository.findByUserIdAndStatusOrderByIdDesc(1L, "FAILED", Limit.of(100)))
+            .thenReturn(Arrays.asList(failedEntry(2L), failedEntry(1L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/{userId}/alert-outbox", 1L))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].id").value(2))
+            .andExpect(jsonPath("$[0].lastError").value("550 Mailbox unavailable"));
+    }
+
+    @Test
+    void testGetMailTransport_ReportsBreakerState() throws Exception {
+        // Arrange
+        LocalDateTime openedAt = LocalDateTime.now();
+        when(emailService.getTransportStatus()).thenReturn(new MailCircuitBreaker.Status(
+            MailCircuitBreaker.State.OPEN, 5, openedAt, openedAt.plusSeconds(30), "Connection refused"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/{userId}/alert-outbox/mail-transport", 1L))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value("OPEN"))
+            .andExpect(jsonPath("$.consecutiveFailures").value(5))
+            .andExpect(jsonPath("$.lastError").value("Connection refused"));
+    }
+
+    @Test
+    void testRetryEntry_RequeuesDeadLetter() throws Exception {
+        // Arrange
+        AlertOutboxEntry entry = failedEntry(1L);
+        when(alertOutboxRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(entry));
+        when(alertOutboxRepository.save(any(AlertOutboxEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/{userId}/alert-outbox/{id}/retry", 1L, 1L))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("PENDING"))
+            .andExpect(jsonPath("$.attempts").value(0));
+
+        verify(alertOutboxRelay, times(1)).requestDrain();
+    }
+
+    @Test
+    void testRetryEntry_OnlyDeadLettersRetried() throws Exception {
+        // Arrange
+        AlertOutboxEntry entry = failedEntry(1L);
+        entry.setStatus("RETRYING");
+        when(alertOutboxRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(entry));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/{userId}/alert-outbox/{id}/retry", 1L, 1L))
+            .andExpect(status().isConflict());
+
+        verify(alertOutboxRepository, never()).save(any(AlertOutboxEntry.class));
+    }
+
+    @Test
+    void testRetryEntry_NotFound() throws Exception {
+        // Arrange
+        when(alertOutboxRepository.findByIdAndUserId(99L, 1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/{userId}/alert-outbox/{id}/retry", 1L, 99L))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testRetryEntry_OtherUsersEntryNotFound() throws Exception {
+        // Arrange - entry 1 belongs to user 1
+        when(alertOutboxRepository.findByIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/{userId}/alert-outbox/{id}/retry", 2L, 1L))
+            .andExpect(status().isNotFound());
+
+        verify(alertOutboxRepository, never()).save(any(AlertOutboxEntry.class));
+        verify(alertOutboxRelay, never()).requestDrain();
+    }
+
+    private static AlertOutboxEntry failedEntry(Long id) {
+        return AlertOutboxEntry.builder()
+            .id(id)
+            .applianceId(5L)
+            .userId(1L)
+            .dueDate(LocalDate.now())
+            .status("FAILED")
+            .attempts(5)
+            .lastError("550 Mailbox unavailable")
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
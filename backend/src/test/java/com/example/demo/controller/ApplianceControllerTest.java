@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -12,24 +13,36 @@ import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.example.demo.DemoApplication;
+import com.example.demo.event.ApplianceChangedEvent;
 import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+import com.example.demo.model.AppliancePage;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.model.ApplianceSummary;
 import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.service.AlertOutboxRelay;
 import com.example.demo.service.AlertSchedulerService;
 import com.example.demo.service.ApplianceService;
+import com.example.demo.service.ApplianceSuggestionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(ApplianceController.class)
 @AutoConfigureMockMvc(addFilters = false)
 @ContextConfiguration(classes = DemoApplication.class)
+@RecordApplicationEvents
 class ApplianceControllerTest {
 
     @Autowired
@@ -44,9 +57,18 @@ class ApplianceControllerTest {
     @MockBean
     private AlertSchedulerService alertSchedulerService;
 
+    @MockBean
+    private AlertOutboxRelay alertOutboxRelay;
+
+    @MockBean
+    private ApplianceSuggestionService applianceSuggestionService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     @Test
     void testGetAllAppliancesByUserId() throws Exception {
         Long userId = 1L;
@@ -88,6 +110,114 @@ class ApplianceControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void testGetAllAppliancesByUserId_FilteredAndSorted() throws Exception {
+        Long userId = 1L;
+        Appliance dishwasher = Appliance.builder().id(1L).name("Dishwasher").category("Kitchen").userId(userId).build();
+
+        when(applianceService.getAppliances(userId, new ApplianceFilter("Kitchen", null, "SNOOZED", null),
+                ApplianceSort.NAME, true))
+               .thenReturn(List.of(dishwasher));
+
+        mockMvc.perform(get("/api/{userId}/appliances", userId)
+                        .param("category", "Kitchen").param("status", "snoozed")
+                        .param("sort", "name").param("order", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Dishwasher")));
+        verify(applianceService, never()).getAllAppliancesByUser(any());
+    }
+
+    @Test
+    void testGetAllAppliancesByUserId_InvalidParameters() throws Exception {
+        mockMvc.perform(get("/api/{userId}/appliances", 1L).param("status", "LATE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid status filter"));
+        mockMvc.perform(get("/api/{userId}/appliances", 1L).param("sort", "color"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid sort key"));
+        mockMvc.perform(get("/api/{userId}/appliances", 1L).param("order", "up"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid sort order"));
+    }
+
+    @Test
+    void testGetAppliancePage() throws Exception {
+        Long userId = 1L;
+        ApplianceSummary summary = new ApplianceSummary(7L, "Dishwasher", "Kitchen", "Bosch", "300",
+                LocalDate.now().minusDays(1), "SNOOZED", LocalDate.now().minusDays(1), null, null);
+
+        when(applianceService.getAppliancePage(userId, new ApplianceFilter(null, "Bosch", null, "ACTIVE"),
+                ApplianceSort.ALERT_DATE, false, "5:MjAyNS0wMS0wMQ", 1))
+               .thenReturn(new AppliancePage(List.of(summary), "7:MjAyNS0wMS0wMg"));
+
+        mockMvc.perform(get("/api/{userId}/appliances/page", userId)
+                        .param("brand", "Bosch").param("warranty", "active").param("sort", "alertDate")
+                        .param("cursor", "5:MjAyNS0wMS0wMQ").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Dishwasher")))
+                .andExpect(jsonPath("$.items[0].effectiveAlertStatus", is("ACTIVE")))
+                .andExpect(jsonPath("$.items[0].notes").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor", is("7:MjAyNS0wMS0wMg")));
+    }
+
+    @Test
+    void testGetAppliancePage_InvalidCursor() throws Exception {
+        when(applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, "abc", null))
+               .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/{userId}/appliances/page", 1L).param("cursor", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor"));
+    }
+
+    @Test
+    void testSearchAppliances() throws Exception {
+        ApplianceSummary summary = new ApplianceSummary(3L, "Dishwasher", null, "Whirlpool", "WDT730",
+                null, null, null, null, null);
+
+        when(applianceService.searchAppliances(1L, "whirlpool dishwasher", "20", 10))
+               .thenReturn(new AppliancePage(List.of(summary), "30"));
+
+        mockMvc.perform(get("/api/{userId}/appliances/search", 1L)
+                        .param("q", "whirlpool dishwasher").param("cursor", "20").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].brand", is("Whirlpool")))
+                .andExpect(jsonPath("$.nextCursor", is("30")));
+    }
+
+    @Test
+    void testSearchAppliances_MissingQuery() throws Exception {
+        when(applianceService.searchAppliances(1L, null, null, null))
+               .thenThrow(new IllegalArgumentException("Search query is required"));
+
+        mockMvc.perform(get("/api/{userId}/appliances/search", 1L))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Search query is required"));
+    }
+
+    @Test
+    void testGetSuggestions() throws Exception {
+        when(applianceSuggestionService.suggest(1L, ApplianceSuggestionService.Field.BRAND, "wh", 5))
+               .thenReturn(List.of("Whirlpool", "White-Westinghouse"));
+
+        mockMvc.perform(get("/api/{userId}/appliances/suggestions", 1L)
+                        .param("field", "brand").param("prefix", "wh").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("Whirlpool", "White-Westinghouse")));
+    }
+
+    @Test
+    void testGetSuggestions_InvalidField() throws Exception {
+        mockMvc.perform(get("/api/{userId}/appliances/suggestions", 1L)
+                        .param("field", "serialNumber").param("prefix", "a"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid suggestion field"));
+
+        verifyNoInteractions(applianceSuggestionService);
+    }
+
     @Test
     void testGetAppliancesById() throws Exception {
         Long userId = 1L;
@@ -100,7 +230,7 @@ class ApplianceControllerTest {
                     .userId(userId)
                     .build();
 
-        when(applianceRepository.findByUserIdAndId(userId, applianceId))
+        when(applianceService.getAppliance(userId, applianceId))
                .thenReturn(Optional.of(appliance));
 
         mockMvc.perform(get("/api/{userId}/appliances/{applianceId}", userId, applianceId))
@@ -114,7 +244,7 @@ class ApplianceControllerTest {
         Long userId = 1L;
         Long applianceId = 999L;    
 
-        when(applianceRepository.findByUserIdAndId(userId, applianceId))
+        when(applianceService.getAppliance(userId, applianceId))
                .thenReturn(Optional.empty());    
         mockMvc.perform(get("/api/{userId}/appliances/{applianceId}", userId, applianceId))
                 .andExpect(status().isNotFound());
@@ -145,6 +275,39 @@ class ApplianceControllerTest {
                 .andExpect(jsonPath("$.name", is("Washer")));
     }
 
+    @Test
+    void testCreateAppliance_IgnoresDerivedDates() throws Exception {
+        // Arrange - a client claiming the alert was already queued, to keep it from being sent
+        when(applianceService.saveAppliance(any(Appliance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String body = "{\"name\":\"Washer\",\"alertDate\":\"2025-12-01\",\"alertQueuedFor\":\"2025-12-01\","
+                + "\"nextFireDate\":\"2099-01-01\",\"warrantyExpires\":\"2099-01-01\"}";
+
+        // Act
+        mockMvc.perform(post("/api/{userId}/appliances", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk());
+
+        // Assert
+        ArgumentCaptor<Appliance> saved = ArgumentCaptor.forClass(Appliance.class);
+        verify(applianceService).saveAppliance(saved.capture());
+        assertThat(saved.getValue().getAlertDate(), is(LocalDate.of(2025, 12, 1)));
+        assertThat(saved.getValue().getAlertQueuedFor(), is(nullValue()));
+        assertThat(saved.getValue().getNextFireDate(), is(nullValue()));
+        assertThat(saved.getValue().getWarrantyExpires(), is(nullValue()));
+    }
+
+    @Test
+    void testCreateAppliance_InvalidAlertStatus() throws Exception {
+        mockMvc.perform(post("/api/{userId}/appliances", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Washer\",\"alertDate\":\"2025-12-01\",\"alertStatus\":\"PAUSED\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid alert status"));
+
+        verify(applianceService, never()).saveAppliance(any());
+    }
+
     @Test
     void testUpdateAppliance_Success() throws Exception {
         // Arrange
@@ -229,6 +392,33 @@ class ApplianceControllerTest {
                 .andExpect(jsonPath("$.alertStatus").value("ACTIVE"));
     }
 
+    @Test
+    void testPatchAppliance_NewAlertDateResetsRecurrenceAnchor() throws Exception {
+        // Arrange - a monthly alert the run already moved from Jan 31 to Feb 28
+        Appliance existingAppliance = Appliance.builder()
+                .name("appliance")
+                .userId(1L)
+                .alertDate(LocalDate.of(2025, 2, 28))
+                .recurrenceAnchor(LocalDate.of(2025, 1, 31))
+                .recurringInterval("MONTHLY")
+                .build();
+        when(applianceRepository.findByUserIdAndId(1L, 1L)).thenReturn(Optional.of(existingAppliance));
+        when(applianceService.saveAppliance(any(Appliance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert - a name change keeps the anchor, a new date moves it
+        mockMvc.perform(patch("/api/{userId}/appliances/{applianceId}", 1L, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recurrenceAnchor").value("2025-01-31"));
+
+        mockMvc.perform(patch("/api/{userId}/appliances/{applianceId}", 1L, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"alertDate\":\"2025-03-15\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recurrenceAnchor").value("2025-03-15"));
+    }
+
     @Test
     void testPatchAppliance_NotFound() throws Exception {
         // Arrange
@@ -276,20 +466,36 @@ class ApplianceControllerTest {
     @Test
     void testTriggerAlerts_Success() throws Exception {
         // Arrange - alertSchedulerService.checkAndSendAlerts() is mocked, returns void
+        when(alertOutboxRelay.drainNow()).thenReturn(new AlertOutboxRelay.DrainResult(2, 1, 0, true));
 
         // Act & Assert
         mockMvc.perform(post("/api/1/appliances/trigger-alerts"))
             .andExpect(status().isOk())
-            .andExpect(content().string("Alert check triggered manually. Check logs for results."));
+            .andExpect(content().string("Alert check complete: 2 alerts sent, 1 queued for retry, 0 failed."));
 
-        // Verify the service method was called
-        verify(alertSchedulerService, times(1)).checkAndSendAlerts();
+        // Verify the run was followed by an immediate send of what it queued
+        InOrder inOrder = inOrder(alertSchedulerService, alertOutboxRelay);
+        inOrder.verify(alertSchedulerService).checkAndSendAlerts();
+        inOrder.verify(alertOutboxRelay).drainNow();
+    }
+
+    @Test
+    void testTriggerAlerts_ReportsAlertsLeftQueued() throws Exception {
+        // Arrange - the per-minute ceiling or the mail circuit stopped the send part way
+        when(alertOutboxRelay.drainNow()).thenReturn(new AlertOutboxRelay.DrainResult(100, 0, 0, false));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/1/appliances/trigger-alerts"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("Alert check complete: 100 alerts sent, 0 queued for retry, 0 failed."
+                + " Others are still queued and will be sent by the relay."));
     }
 
     @Test
     void testTriggerAlerts_ServiceCalled() throws Exception {
         // Arrange
         doNothing().when(alertSchedulerService).checkAndSendAlerts();
+        when(alertOutboxRelay.drainNow()).thenReturn(new AlertOutboxRelay.DrainResult(0, 0, 0, true));
 
         // Act
         mockMvc.perform(post("/api/1/appliances/trigger-alerts"));
@@ -299,6 +505,32 @@ class ApplianceControllerTest {
         verifyNoMoreInteractions(alertSchedulerService);
     }
 
+    @Test
+    void testGetUpcomingAlerts_ReadsDueAlertsFromService() throws Exception {
+        // Arrange - the service's query applies the due rule; an expired snooze is among the results
+        Long userId = 1L;
+        LocalDate today = LocalDate.now();
+        Appliance due = Appliance.builder().id(1L).name("Washer").userId(userId)
+            .alertDate(today.minusDays(1)).alertStatus("ACTIVE").build();
+        Appliance snoozeExpired = Appliance.builder().id(2L).name("Dryer").userId(userId)
+            .alertDate(today.minusDays(5)).alertStatus("SNOOZED").snoozeUntil(today).build();
+
+        when(applianceService.getDueAlerts(userId))
+            .thenReturn(Arrays.asList(due, snoozeExpired));
+
+        // Act & Assert - the stored status is left as is; the effective one is reported alongside it
+        mockMvc.perform(get("/api/{userId}/appliances/alerts", userId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[1].id").value(2))
+            .andExpect(jsonPath("$[1].alertStatus").value("SNOOZED"))
+            .andExpect(jsonPath("$[1].effectiveAlertStatus").value("ACTIVE"));
+
+        verify(applianceRepository, never()).findAllByUserId(any());
+        verify(applianceRepository, never()).save(any(Appliance.class));
+    }
+
     @Test
     void testSnoozeAlert_Success() throws Exception {
         // Arrange
@@ -385,6 +617,9 @@ class ApplianceControllerTest {
             .andExpect(jsonPath("$.alertStatus").value("CANCELLED"));
 
         verify(applianceRepository, times(1)).save(any(Appliance.class));
+        List<ApplianceChangedEvent> events = applicationEvents.stream(ApplianceChangedEvent.class).toList();
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).appliance().getAlertStatus(), is("CANCELLED"));
     }
 
     @Test
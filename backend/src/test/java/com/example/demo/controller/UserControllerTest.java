@@ -177,6 +177,93 @@ class UserControllerTest {
         verify(userService).updateUser(any(User.class));
     }
 
+    @Test
+    void testUpdateProfile_AlertDigestPreference() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setAlertDigest(true);
+
+        when(userService.getUserByEmail("test@example.com")).thenReturn(testUser);
+        when(userService.updateUser(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<?> response = userController.updateProfile(validAuthHeader, request);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userService).updateUser(argThat(user -> Boolean.TRUE.equals(user.getAlertDigest())));
+    }
+
+    @Test
+    void testUpdateProfile_AlertTimeZoneAndHour() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setTimeZone("America/Chicago");
+        request.setAlertHour(7);
+
+        when(userService.getUserByEmail("test@example.com")).thenReturn(testUser);
+        when(userService.updateUser(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<?> response = userController.updateProfile(validAuthHeader, request);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userService).updateUser(argThat(user ->
+            "America/Chicago".equals(user.getTimeZone()) && Integer.valueOf(7).equals(user.getAlertHour())));
+    }
+
+    @Test
+    void testUpdateProfile_InvalidTimeZone() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setTimeZone("Mars/Olympus_Mons");
+
+        when(userService.getUserByEmail("test@example.com")).thenReturn(testUser);
+
+        // Act
+        ResponseEntity<?> response = userController.updateProfile(validAuthHeader, request);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid time zone", response.getBody());
+        verify(userService, never()).updateUser(any(User.class));
+    }
+
+    @Test
+    void testUpdateProfile_AlertLocale() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setLocale("es_MX");
+
+        when(userService.getUserByEmail("test@example.com")).thenReturn(testUser);
+        when(userService.updateUser(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<?> response = userController.updateProfile(validAuthHeader, request);
+
+        // Assert - stored as a normalized language tag
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userService).updateUser(argThat(user -> "es-MX".equals(user.getLocale())));
+    }
+
+    @Test
+    void testUpdateProfile_InvalidLocale() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setLocale("not a locale");
+
+        when(userService.getUserByEmail("test@example.com")).thenReturn(testUser);
+
+        // Act
+        ResponseEntity<?> response = userController.updateProfile(validAuthHeader, request);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid locale", response.getBody());
+        verify(userService, never()).updateUser(any(User.class));
+    }
+
     @Test
     void testChangePassword_Success() {
         // Arrange
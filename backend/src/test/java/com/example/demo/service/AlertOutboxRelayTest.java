@@ -0,0 +1,591 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+class AlertOutboxRelayTest {
+
+    @Mock
+    private AlertOutboxRepository alertOutboxRepository;
+
+    @Mock
+    private ApplianceRepository applianceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private AlertPartitionService alertPartitionService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private AlertProperties alertProperties = new AlertProperties();
+
+    @InjectMocks
+    private AlertOutboxRelay alertOutboxRelay;
+
+    private User testUser;
+    private Appliance testAppliance;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(alertPartitionService.ownedPartitions()).thenReturn(List.of(0));
+        when(alertPartitionService.partitionCount()).thenReturn(1);
+        when(emailService.buildMaintenanceAlert(any(), any(), any(), anyInt()))
+            .thenAnswer(invocation -> message(invocation.<Appliance>getArgument(1).getName()));
+        when(emailService.buildMaintenanceDigest(any(), any()))
+            .thenAnswer(invocation -> message("Digest of " + invocation.<List<?>>getArgument(1).size()));
+        stubSendAll(message -> null);
+        when(alertOutboxRepository.claim(any(), any(), anyInt(), any())).thenReturn(1);
+
+        testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        testAppliance = Appliance.builder()
+            .id(5L)
+            .name("Test Refrigerator")
+            .alertDate(LocalDate.now())
+            .alertQueuedFor(LocalDate.now())
+            .userId(1L)
+            .build();
+    }
+
+    @Test
+    void testDrain_SendsPendingEntryAndMarksSent() {
+        // Arrange
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, times(1)).buildMaintenanceAlert(eq(testUser), eq(testAppliance), any(), anyInt());
+        verify(emailService, times(1)).sendAll(List.of(message("Test Refrigerator")));
+        assertEquals("SENT", entry.getStatus());
+        assertEquals(1, entry.getAttempts());
+        assertNotNull(entry.getSentAt());
+        verify(alertOutboxRepository, times(1)).saveAll(Arrays.asList(entry));
+    }
+
+    @Test
+    void testDrain_SkipsEntryWhoseAlertWasCancelledSinceQueued() {
+        // Arrange
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        testAppliance.setAlertStatus("CANCELLED");
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, never()).sendAll(any());
+        assertEquals("SKIPPED", entry.getStatus());
+        assertEquals(0, entry.getAttempts());
+        verify(alertOutboxRepository, times(1)).saveAll(Arrays.asList(entry));
+    }
+
+    @Test
+    void testDrain_SkipsEntryWhoseAlertWasSnoozedSinceQueued() {
+        // Arrange - snoozing clears the queued mark (ApplianceController.snoozeAlert)
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        testAppliance.setAlertStatus("SNOOZED");
+        testAppliance.setSnoozeUntil(LocalDate.now().plusDays(3));
+        testAppliance.setAlertQueuedFor(null);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, never()).sendAll(any());
+        assertEquals("SKIPPED", entry.getStatus());
+    }
+
+    @Test
+    void testDrain_SendsRecurringAlertMovedOnByTheRun() {
+        // Arrange - the run queued today's occurrence and moved the alert to next month
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        testAppliance.setRecurringInterval("MONTHLY");
+        testAppliance.setAlertDate(LocalDate.now().plusMonths(1));
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        assertEquals("SENT", entry.getStatus());
+    }
+
+    @Test
+    void testDrain_FailedSendMarkedRetrying() {
+        // Arrange
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+        stubSendAll(message -> new MailSendException("Mail server connection failed"));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert - held back for the first backoff interval
+        assertEquals("RETRYING", entry.getStatus());
+        assertEquals(1, entry.getAttempts());
+        assertEquals("Mail server connection failed", entry.getLastError());
+        assertTrue(entry.getSendAfter().isAfter(LocalDateTime.now().plusSeconds(50)));
+        assertTrue(entry.getSendAfter().isBefore(LocalDateTime.now().plusSeconds(70)));
+    }
+
+    @Test
+    void testDrain_DeferredWhileMailTransportDown() {
+        // Arrange - the breaker is open, so nothing is even looked up
+        stubReady(pendingEntry(1L, 5L));
+        when(emailService.isTransportRefusing()).thenReturn(true);
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(alertOutboxRepository, never()).findSendable(any(), any(), any(), any());
+        verify(emailService, never()).sendAll(any());
+        verify(alertOutboxRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testDrain_RefusedSendNotCountedAsAttempt() {
+        // Arrange - the breaker opens while the chunk is being sent
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+        stubSendAll(message -> new MailCircuitBreaker.CircuitOpenException(LocalDateTime.now().plusSeconds(30)));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert - still queued as it was
+        assertEquals("PENDING", entry.getStatus());
+        assertEquals(0, entry.getAttempts());
+        assertNull(entry.getSendAfter());
+        assertNull(entry.getLastError());
+    }
+
+    @Test
+    void testRetryBackoff_DoublesUpToCap() {
+        assertEquals(Duration.ofMinutes(1), alertOutboxRelay.retryBackoff(1));
+        assertEquals(Duration.ofMinutes(2), alertOutboxRelay.retryBackoff(2));
+        assertEquals(Duration.ofMinutes(8), alertOutboxRelay.retryBackoff(4));
+        assertEquals(Duration.ofHours(1), alertOutboxRelay.retryBackoff(40));
+    }
+
+    @Test
+    void testDrain_FailedSendAtMaxAttemptsMarkedFailed() {
+        // Arrange
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        entry.setStatus("RETRYING");
+        entry.setAttempts(alertProperties.getOutbox().getMaxAttempts() - 1);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+        stubSendAll(message -> new MailSendException("Mailbox unavailable"));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        assertEquals("FAILED", entry.getStatus());
+        assertEquals(alertProperties.getOutbox().getMaxAttempts(), entry.getAttempts());
+    }
+
+    @Test
+    void testDrain_DeletedApplianceMarkedFailedWithoutSending() {
+        // Arrange
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        stubReady(entry);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList());
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, never()).buildMaintenanceAlert(any(), any(), any(), anyInt());
+        verify(emailService, never()).sendAll(any());
+        assertEquals("FAILED", entry.getStatus());
+        assertEquals("Appliance no longer exists", entry.getLastError());
+    }
+
+    @Test
+    void testDrain_NothingPending() {
+        // Arrange
+        stubReady();
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, never()).sendAll(any());
+        verify(alertOutboxRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testDrain_DispatchesConcurrentlyWithinLimit() {
+        // Arrange - 6 slow single-email batches with at most 2 connections in flight
+        AlertProperties properties = new AlertProperties();
+        properties.setMaxInFlight(2);
+        properties.getDelivery().setBatchSize(1);
+        AlertOutboxRelay relay = new AlertOutboxRelay(alertOutboxRepository, applianceRepository,
+            userRepository, emailService, alertPartitionService, entityManager, transactionManager, properties);
+
+        List<AlertOutboxEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            entries.add(pendingEntry(id, 5L));
+        }
+        stubReady(entries.toArray(new AlertOutboxEntry[0]));
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            completed.incrementAndGet();
+            return Arrays.asList((Exception) null);
+        }).when(emailService).sendAll(any());
+
+        // Act
+        relay.drain();
+        relay.shutdown();
+
+        // Assert - every send finished before drain returned, never more than 2 at once
+        assertEquals(6, completed.get());
+        assertTrue(maxInFlight.get() <= 2, "At most 2 sends should be in flight");
+        entries.forEach(entry -> assertEquals("SENT", entry.getStatus()));
+    }
+
+    @Test
+    void testDrain_DigestUserGetsOneEmailForAllEntries() {
+        // Arrange
+        testUser.setAlertDigest(true);
+        Appliance secondAppliance = Appliance.builder()
+            .id(6L)
+            .name("Dishwasher")
+            .alertDate(LocalDate.now())
+            .alertQueuedFor(LocalDate.now())
+            .userId(1L)
+            .build();
+        AlertOutboxEntry first = pendingEntry(1L, 5L);
+        AlertOutboxEntry second = pendingEntry(2L, 6L);
+        stubReady(first, second);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance, secondAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, times(1)).buildMaintenanceDigest(testUser, Arrays.asList(testAppliance, secondAppliance));
+        verify(emailService, never()).buildMaintenanceAlert(any(), any(), any(), anyInt());
+        verify(emailService, times(1)).sendAll(List.of(message("Digest of 2")));
+        assertEquals("SENT", first.getStatus());
+        assertEquals("SENT", second.getStatus());
+    }
+
+    @Test
+    void testDrain_IndividualUserGetsOneEmailPerEntry() {
+        // Arrange - no digest preference set
+        Appliance secondAppliance = Appliance.builder()
+            .id(6L)
+            .name("Dishwasher")
+            .alertDate(LocalDate.now())
+            .alertQueuedFor(LocalDate.now())
+            .userId(1L)
+            .build();
+        stubReady(pendingEntry(1L, 5L), pendingEntry(2L, 6L));
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance, secondAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, times(1)).buildMaintenanceAlert(eq(testUser), eq(testAppliance), any(), anyInt());
+        verify(emailService, times(1)).buildMaintenanceAlert(eq(testUser), eq(secondAppliance), any(), anyInt());
+        verify(emailService, never()).buildMaintenanceDigest(any(), any());
+    }
+
+    @Test
+    void testDrain_BatchesEmailsOverFewConnections() {
+        // Arrange - 8 emails, 2 connections at most
+        alertProperties.setMaxInFlight(2);
+        AlertOutboxRelay relay = new AlertOutboxRelay(alertOutboxRepository, applianceRepository,
+            userRepository, emailService, alertPartitionService, entityManager, transactionManager, alertProperties);
+        List<AlertOutboxEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            entries.add(pendingEntry(id, 5L));
+        }
+        stubReady(entries.toArray(new AlertOutboxEntry[0]));
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        relay.drain();
+        relay.shutdown();
+
+        // Assert - two batches of four, one per connection
+        verify(emailService, times(2)).sendAll(argThat(batch -> batch.size() == 4));
+        entries.forEach(entry -> assertEquals("SENT", entry.getStatus()));
+    }
+
+    @Test
+    void testDrain_BatchFailuresRecordedPerEmail() {
+        // Arrange - one email in the batch is rejected, the other accepted
+        Appliance secondAppliance = Appliance.builder()
+            .id(6L)
+            .name("Dishwasher")
+            .alertDate(LocalDate.now())
+            .alertQueuedFor(LocalDate.now())
+            .userId(1L)
+            .build();
+        alertProperties.setMaxInFlight(1);
+        AlertOutboxEntry first = pendingEntry(1L, 5L);
+        AlertOutboxEntry second = pendingEntry(2L, 6L);
+        stubReady(first, second);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance, secondAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+        stubSendAll(message -> "Dishwasher".equals(message.subject())
+            ? new MailSendException("550 Mailbox unavailable") : null);
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verify(emailService, times(1)).sendAll(any());
+        assertEquals("SENT", first.getStatus());
+        assertEquals("RETRYING", second.getStatus());
+        assertEquals("550 Mailbox unavailable", second.getLastError());
+    }
+
+    @Test
+    void testDrain_StopsAtPerMinuteCeiling() {
+        // Arrange
+        alertProperties.getDelivery().setMaxPerMinute(1);
+        Appliance secondAppliance = Appliance.builder()
+            .id(6L)
+            .name("Dishwasher")
+            .alertDate(LocalDate.now())
+            .alertQueuedFor(LocalDate.now())
+            .userId(1L)
+            .build();
+        AlertOutboxEntry first = pendingEntry(1L, 5L);
+        AlertOutboxEntry second = pendingEntry(2L, 6L);
+        stubReady(first, second);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance, secondAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert - the second email waits for a later pass, untouched
+        verify(emailService, times(1)).sendAll(List.of(message("Test Refrigerator")));
+        assertEquals("SENT", first.getStatus());
+        assertEquals("PENDING", second.getStatus());
+        assertEquals(0, second.getAttempts());
+    }
+
+    @Test
+    void testDrain_BurstLimitsEmailsStartedAtOnce() {
+        // Arrange - plenty of per-minute allowance, but a bucket of two
+        alertProperties.getDelivery().setBurst(2);
+        List<AlertOutboxEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            entries.add(pendingEntry(id, 5L));
+        }
+        stubReady(entries.toArray(new AlertOutboxEntry[0]));
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        assertEquals("SENT", entries.get(0).getStatus());
+        assertEquals("SENT", entries.get(1).getStatus());
+        assertEquals("PENDING", entries.get(2).getStatus());
+    }
+
+    @Test
+    void testDrain_EntryClaimedByAnotherRelayNotSent() {
+        // Arrange - another relay claims entry 2 between this one reading and claiming it
+        AlertOutboxEntry ours = pendingEntry(1L, 5L);
+        AlertOutboxEntry theirs = pendingEntry(2L, 5L);
+        stubReady(ours, theirs);
+        when(alertOutboxRepository.claim(eq(2L), any(), anyInt(), any())).thenReturn(0);
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert - only the claimed entry is sent and saved
+        verify(emailService, times(1)).sendAll(List.of(message("Test Refrigerator")));
+        verify(alertOutboxRepository).saveAll(List.of(ours));
+        assertEquals("SENT", ours.getStatus());
+        assertEquals("PENDING", theirs.getStatus());
+    }
+
+    @Test
+    void testRequestDrain_DrainsOnRelayThread() throws Exception {
+        // Arrange
+        CompletableFuture<String> drainThread = new CompletableFuture<>();
+        when(alertOutboxRepository.findSendableUserIds(any(), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any(), anyLong(), any(Limit.class)))
+            .thenAnswer(invocation -> {
+                drainThread.complete(Thread.currentThread().getName());
+                return Arrays.asList();
+            });
+
+        // Act
+        alertOutboxRelay.requestDrain();
+
+        // Assert - the caller isn't held up; the drain happens on the relay thread
+        assertTrue(drainThread.get(2, TimeUnit.SECONDS).startsWith("alert-relay-"));
+        alertOutboxRelay.shutdown();
+    }
+
+    @Test
+    void testDrainNow_SendsEntriesBeforeTheirSendTime() {
+        // Arrange - only a drain that ignores send times (a null one) finds the entry
+        AlertOutboxEntry entry = pendingEntry(1L, 5L);
+        entry.setSendAfter(LocalDateTime.now().plusHours(6));
+        when(alertOutboxRepository.findSendableUserIds(any(), isNull(), any(LocalDateTime.class), anyInt(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(1L));
+        when(alertOutboxRepository.findSendable(any(), any(), isNull(), any(LocalDateTime.class))).thenReturn(Arrays.asList(entry));
+        when(applianceRepository.findAllById(any())).thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any())).thenReturn(Arrays.asList(testUser));
+
+        // Act
+        AlertOutboxRelay.DrainResult result = alertOutboxRelay.drainNow();
+
+        // Assert - sent on the caller's thread, and reported
+        assertEquals("SENT", entry.getStatus());
+        verify(emailService, times(1)).sendAll(List.of(message("Test Refrigerator")));
+        assertEquals(new AlertOutboxRelay.DrainResult(1, 0, 0, true), result);
+    }
+
+    @Test
+    void testDrainNow_ReportsEntriesLeftWhileTransportDown() {
+        // Arrange
+        when(emailService.isTransportRefusing()).thenReturn(true);
+
+        // Act
+        AlertOutboxRelay.DrainResult result = alertOutboxRelay.drainNow();
+
+        // Assert
+        assertEquals(new AlertOutboxRelay.DrainResult(0, 0, 0, false), result);
+        verify(emailService, never()).sendAll(any());
+    }
+
+    @Test
+    void testDrain_NothingWithoutPartitions() {
+        // Arrange
+        when(alertPartitionService.ownedPartitions()).thenReturn(List.of());
+        stubReady(pendingEntry(1L, 5L));
+
+        // Act
+        alertOutboxRelay.drain();
+
+        // Assert
+        verifyNoInteractions(alertOutboxRepository, emailService);
+    }
+
+    private void stubReady(AlertOutboxEntry... entries) {
+        when(alertOutboxRepository.findSendableUserIds(any(), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(entries.length == 0 ? Arrays.asList() : Arrays.asList(1L));
+        when(alertOutboxRepository.findSendable(any(), any(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(Arrays.asList(entries));
+    }
+
+    private void stubSendAll(Function<AlertEmail, Exception> outcome) {
+        doAnswer(invocation -> {
+            List<Exception> failures = new ArrayList<>();
+            for (AlertEmail message : invocation.<List<AlertEmail>>getArgument(0)) {
+                failures.add(outcome.apply(message));
+            }
+            return failures;
+        }).when(emailService).sendAll(any());
+    }
+
+    private static AlertEmail message(String subject) {
+        return new AlertEmail("test@example.com", subject, "", null);
+    }
+
+    private static AlertOutboxEntry pendingEntry(Long id, Long applianceId) {
+        return AlertOutboxEntry.builder()
+            .id(id)
+            .applianceId(applianceId)
+            .userId(1L)
+            .dueDate(LocalDate.now())
+            .status("PENDING")
+            .build();
+    }
+}
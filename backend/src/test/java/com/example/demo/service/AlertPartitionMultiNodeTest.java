@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Two application contexts sharing one SQLite file, standing in for two backend nodes; and one
+ * node whose alert run outlasts its leases.
+ */
+class AlertPartitionMultiNodeTest {
+
+    private static final long LEASE_MS = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void testNodesSplitPartitionsAndTakeOverFromDeadNode() throws Exception {
+        Path db = tempDir.resolve("alerts.db");
+        ConfigurableApplicationContext nodeA = startNode("node-a", db);
+        ConfigurableApplicationContext nodeB = startNode("node-b", db);
+        AlertPartitionService partitionsA = nodeA.getBean(AlertPartitionService.class);
+        AlertPartitionService partitionsB = nodeB.getBean(AlertPartitionService.class);
+
+        // A couple of heartbeat rounds settle the partitions two apiece, without overlap
+        heartbeatRound(partitionsA, partitionsB);
+        heartbeatRound(partitionsA, partitionsB);
+        List<Integer> heldByA = partitionsA.ownedPartitions();
+        List<Integer> heldByB = partitionsB.ownedPartitions();
+        assertEquals(2, heldByA.size());
+        assertEquals(2, heldByB.size());
+        Set<Integer> all = new HashSet<>(heldByA);
+        all.addAll(heldByB);
+        assertEquals(Set.of(0, 1, 2, 3), all);
+
+        // Both nodes run the alert check; every occurrence is queued exactly once, by its partition's node
+        seedDueAlerts(nodeA, 8);
+        heartbeatRound(partitionsA, partitionsB);
+        nodeA.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+        Set<Long> queuedByA = queuedUserIds(nodeA);
+        nodeB.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+        List<AlertOutboxEntry> queued = nodeA.getBean(AlertOutboxRepository.class).findAll();
+
+        assertEquals(8, queued.size());
+        assertEquals(8, queued.stream().map(AlertOutboxEntry::getApplianceId).distinct().count());
+        assertEquals(4, queuedByA.size());
+        assertTrue(queuedByA.stream().allMatch(userId -> heldByA.contains(partitionsA.partitionOf(userId))));
+
+        // node-a stops heartbeating; once its leases run out node-b picks up its partitions
+        Thread.sleep(LEASE_MS + 200);
+        partitionsB.heartbeat();
+        assertEquals(List.of(0, 1, 2, 3), partitionsB.ownedPartitions());
+        assertTrue(partitionsA.ownedPartitions().isEmpty());
+    }
+
+    @Test
+    void testRunLongerThanLeaseKeepsPartitions() throws Exception {
+        // Arrange - short leases, renewed on the node's own heartbeat
+        long leaseMs = 1500;
+        ConfigurableApplicationContext node = startNode("node-a", tempDir.resolve("alerts.db"), leaseMs, 300);
+        AlertPartitionService partitions = node.getBean(AlertPartitionService.class);
+        seedDueAlerts(node, 4);
+
+        // Act - the daily run executes on Spring's scheduler thread; keep that thread busy for twice the
+        // lease, as a long run would, then run the alert check on it
+        CompletableFuture<List<Integer>> heldAtEnd = new CompletableFuture<>();
+        node.getBean(TaskScheduler.class).schedule(() -> {
+            try {
+                Thread.sleep(2 * leaseMs);
+                node.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+                heldAtEnd.complete(partitions.ownedPartitions());
+            } catch (Throwable e) {
+                heldAtEnd.completeExceptionally(e);
+            }
+        }, Instant.now());
+
+        // Assert - the heartbeat kept the leases meanwhile, so the run went ahead
+        assertEquals(List.of(0, 1, 2, 3), heldAtEnd.get(30, TimeUnit.SECONDS));
+        assertEquals(4, node.getBean(AlertOutboxRepository.class).count());
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId, Path db) {
+        // Heartbeats are driven by the test
+        return startNode(nodeId, db, LEASE_MS, 3600000);
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId, Path db, long leaseMs, long heartbeatMs) {
+        // Nothing listens on the mail port, so sends fail fast and entries stay queued
+        ConfigurableApplicationContext context = SqliteTestApplication.start(db,
+            "--alerts.partitions.count=4",
+            "--node.id=" + nodeId,
+            "--alerts.partitions.lease-ms=" + leaseMs,
+            "--alerts.partitions.heartbeat-ms=" + heartbeatMs);
+        nodes.add(context);
+        return context;
+    }
+
+    private static void heartbeatRound(AlertPartitionService... nodes) {
+        for (AlertPartitionService node : nodes) {
+            node.heartbeat();
+        }
+    }
+
+    private static void seedDueAlerts(ConfigurableApplicationContext node, int users) {
+        UserRepository userRepository = node.getBean(UserRepository.class);
+        ApplianceRepository applianceRepository = node.getBean(ApplianceRepository.class);
+        for (int i = 0; i < users; i++) {
+            User user = userRepository.save(User.builder()
+                .name("User " + i)
+                .email("user" + i + "@example.com")
+                .password("secret")
+                .build());
+            applianceRepository.save(Appliance.builder()
+                .name("Appliance " + i)
+                .userId(user.getId())
+                .alertDate(LocalDate.now())
+                .build());
+        }
+    }
+
+    private static Set<Long> queuedUserIds(ConfigurableApplicationContext node) {
+        Set<Long> userIds = new HashSet<>();
+        node.getBean(AlertOutboxRepository.class).findAll().forEach(entry -> userIds.add(entry.getUserId()));
+        return userIds;
+    }
+}
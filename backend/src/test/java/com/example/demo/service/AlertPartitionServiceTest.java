@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.config.NodeProperties;
+import com.example.demo.model.AlertPartitionLease;
+import com.example.demo.repository.AlertNodeRepository;
+import com.example.demo.repository.AlertPartitionLeaseRepository;
+
+class AlertPartitionServiceTest {
+
+    @Mock
+    private AlertPartitionLeaseRepository leaseRepository;
+
+    @Mock
+    private AlertNodeRepository nodeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AlertProperties alertProperties;
+
+    private AlertPartitionService alertPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        alertProperties = new AlertProperties();
+        alertProperties.getPartitions().setCount(4);
+        NodeProperties nodeProperties = new NodeProperties();
+        nodeProperties.setId("node-a");
+        alertPartitionService = new AlertPartitionService(leaseRepository, nodeRepository, entityManager,
+            transactionManager, alertProperties, nodeProperties);
+
+        when(leaseRepository.claim(any(), eq("node-a"), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void testHeartbeat_OnlyNodeClaimsEveryPartition() {
+        // Arrange
+        when(nodeRepository.countByHeartbeatAtAfter(any())).thenReturn(1L);
+        stubLeases(null, null, null, null);
+
+        // Act
+        alertPartitionService.heartbeat();
+
+        // Assert
+        assertEquals(List.of(0, 1, 2, 3), alertPartitionService.ownedPartitions());
+        verify(leaseRepository, times(4)).claim(any(), eq("node-a"), any(), any());
+    }
+
+    @Test
+    void testHeartbeat_ReleasesSurplusWhenAnotherNodeJoins() {
+        // Arrange - node-a holds everything, then a second node starts heartbeating
+        when(nodeRepository.countByHeartbeatAtAfter(any())).thenReturn(2L);
+        stubLeases("node-a", "node-a", "node-a", "node-a");
+
+        // Act
+        alertPartitionService.heartbeat();
+
+        // Assert
+        assertEquals(List.of(0, 1), alertPartitionService.ownedPartitions());
+        verify(leaseRepository).release(List.of(2, 3), "node-a");
+    }
+
+    @Test
+    void testHeartbeat_LiveNodesLeasesLeftAlone() {
+        // Arrange - node-b holds two unexpired leases
+        when(nodeRepository.countByHeartbeatAtAfter(any())).thenReturn(2L);
+        stubLeases("node-b", "node-b", null, null);
+
+        // Act
+        alertPartitionService.heartbeat();
+
+        // Assert
+        assertEquals(List.of(2, 3), alertPartitionService.ownedPartitions());
+        verify(leaseRepository, never()).claim(eq(0), any(), any(), any());
+        verify(leaseRepository, never()).claim(eq(1), any(), any(), any());
+    }
+
+    @Test
+    void testHeartbeat_TakesOverExpiredLeases() {
+        // Arrange - node-b stopped heartbeating; its leases have run out
+        when(nodeRepository.countByHeartbeatAtAfter(any())).thenReturn(1L);
+        List<AlertPartitionLease> leases = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            leases.add(AlertPartitionLease.builder()
+                .partitionId(partition)
+                .owner("node-b")
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build());
+        }
+        when(leaseRepository.findAll(any(Sort.class))).thenReturn(leases);
+
+        // Act
+        alertPartitionService.heartbeat();
+
+        // Assert
+        assertEquals(List.of(0, 1, 2, 3), alertPartitionService.ownedPartitions());
+    }
+
+    @Test
+    void testOwnedPartitions_EmptyOnceLeaseLapses() {
+        // Arrange - leases that expire immediately, as if heartbeats had stopped
+        alertProperties.getPartitions().setLeaseMs(0);
+        when(nodeRepository.countByHeartbeatAtAfter(any())).thenReturn(1L);
+        stubLeases(null, null, null, null);
+
+        // Act
+        alertPartitionService.heartbeat();
+
+        // Assert
+        assertTrue(alertPartitionService.ownedPartitions().isEmpty());
+    }
+
+    @Test
+    void testPartitionOf_UserIdModCount() {
+        assertEquals(0, alertPartitionService.partitionOf(8L));
+        assertEquals(3, alertPartitionService.partitionOf(7L));
+    }
+
+    private void stubLeases(String... owners) {
+        List<AlertPartitionLease> leases = new ArrayList<>();
+        for (int partition = 0; partition < owners.length; partition++) {
+            leases.add(AlertPartitionLease.builder()
+                .partitionId(partition)
+                .owner(owners[partition])
+                .expiresAt(owners[partition] == null ? null : LocalDateTime.now().plusMinutes(1))
+                .build());
+        }
+        when(leaseRepository.findAll(any(Sort.class))).thenReturn(leases);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * End-to-end throughput of the alert pipeline: seeds users and appliances with overdue alerts in a
+ * fresh SQLite database, runs {@link AlertSchedulerService#checkAndSendAlerts()} and drains the
+ * outbox into a {@link FakeSmtpServer}, then reports emails per second, SMTP transaction latency
+ * (p50/p99, as seen by the server), database statements per alert from Hibernate's statistics and
+ * peak heap while queueing and while sending.
+ *
+ * <p>Not part of the normal build; run with {@code mvn test -Pbenchmark}. Sizes and the fake
+ * server's behavior come from system properties: {@code benchmark.users} (default 500),
+ * {@code benchmark.appliances} (5000), {@code benchmark.smtp.delay-ms} (per reply, 0) and
+ * {@code benchmark.smtp.reject-rate} (0); {@code benchmark.sql-log=DEBUG} logs every statement, to see
+ * which ones an alert costs. Peak heap depends on the heap size, so compare runs with the same
+ * {@code -DargLine=-Xmx...}.
+ */
+@Tag("benchmark")
+class AlertPipelineBenchmarkTest {
+
+    // Statement budget per queued alert, to catch a query creeping back into a per-appliance loop. The
+    // floor is 2: each outbox insert is its own statement plus a select of the SQLite identity; the
+    // relay's status updates and recurring reschedules go out in JDBC batches.
+    private static final double MAX_STATEMENTS_PER_ALERT = 2.25;
+
+    private static final int SEED_BATCH_SIZE = 10000;
+
+    @TempDir
+    Path tempDir;
+
+    private FakeSmtpServer smtpServer;
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (smtpServer != null) {
+            smtpServer.close();
+        }
+    }
+
+    @Test
+    void benchmarkAlertRun() throws Exception {
+        int users = Integer.getInteger("benchmark.users", 500);
+        int appliances = Integer.getInteger("benchmark.appliances", 5000);
+        double rejectRate = Double.parseDouble(System.getProperty("benchmark.smtp.reject-rate", "0"));
+
+        smtpServer = new FakeSmtpServer();
+        smtpServer.setKeepData(false);
+        smtpServer.setReplyDelayMillis(Long.getLong("benchmark.smtp.delay-ms", 0));
+        smtpServer.setRejectRate(rejectRate);
+        context = startApplication();
+        seed(users, appliances);
+
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        AlertSchedulerService scheduler = context.getBean(AlertSchedulerService.class);
+        AlertOutboxRelay relay = context.getBean(AlertOutboxRelay.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        statistics.clear();
+        System.gc();
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        scheduler.checkAndSendAlerts();
+        long queuedAt = System.nanoTime();
+        long queueStatements = statistics.getPrepareStatementCount();
+        long queuePeakHeap = peakHeap(false);
+        long queuePeakOld = peakHeap(true);
+        resetPeakHeap();
+        // The run asked the relay thread for a drain; drain() is synchronized, so this waits for it and
+        // then picks up anything it left
+        relay.drain();
+        long end = System.nanoTime();
+        long sendPeakHeap = peakHeap(false);
+        long sendPeakOld = peakHeap(true);
+
+        int queued = jdbc.queryForObject("SELECT COUNT(*) FROM alert_outbox", Integer.class);
+        int sent = jdbc.queryForObject("SELECT COUNT(*) FROM alert_outbox WHERE status = 'SENT'", Integer.class);
+        int emails = smtpServer.receivedCount();
+        double seconds = (end - start) / 1e9;
+        double sendSeconds = (end - queuedAt) / 1e9;
+        long[] latencies = smtpServer.getReceived().stream().mapToLong(FakeSmtpServer.Received::transactionNanos).toArray();
+        Arrays.sort(latencies);
+        double statementsPerAlert = (double) statistics.getPrepareStatementCount() / queued;
+
+        System.out.printf("Alert pipeline: %d users, %d appliances, %d alerts queued, %d sent in %d emails (%d rejected)%n",
+            users, appliances, queued, sent, emails, smtpServer.rejectedCount());
+        System.out.printf("  total %.2f s (queue %.2f s, send %.2f s): %.0f emails/s overall, %.0f emails/s sending%n",
+            seconds, seconds - sendSeconds, sendSeconds, emails / seconds, emails / sendSeconds);
+        System.out.printf("  SMTP transaction latency p50 %.2f ms, p99 %.2f ms over %d connections%n",
+            percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, smtpServer.connectionCount());
+        System.out.printf("  %d statements (%d queueing, %d sending): %.3f per alert; %d entities loaded%n",
+            statistics.getPrepareStatementCount(), queueStatements, statistics.getPrepareStatementCount() - queueStatements,
+            statementsPerAlert, statistics.getEntityLoadCount());
+        System.out.printf("  peak heap %.0f MB queueing (old generation %.0f MB), %.0f MB sending (%.0f MB); max heap %.0f MB%n",
+            queuePeakHeap / 1e6, queuePeakOld / 1e6, sendPeakHeap / 1e6, sendPeakOld / 1e6,
+            Runtime.getRuntime().maxMemory() / 1e6);
+
+        assertEquals(appliances, queued);
+        if (rejectRate == 0) {
+            assertEquals(queued, sent);
+        }
+        assertTrue(statementsPerAlert < MAX_STATEMENTS_PER_ALERT,
+            "Alert pipeline used " + statementsPerAlert + " statements per alert, budget " + MAX_STATEMENTS_PER_ALERT);
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        return SqliteTestApplication.start(tempDir.resolve("benchmark.db"),
+            "--logging.level.org.hibernate.SQL=" + System.getProperty("benchmark.sql-log", "WARN"),
+            "--logging.level.com.example.demo=WARN",
+            "--spring.jpa.properties.hibernate.generate_statistics=true",
+            "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+            "--spring.mail.host=localhost",
+            "--spring.mail.port=" + smtpServer.getPort(),
+            // Measure the pipeline, not the rate limit; only the benchmark triggers runs and drains
+            "--alerts.delivery.max-per-minute=100000000",
+            "--alerts.delivery.burst=100000000",
+            "--alerts.outbox.relay-interval-ms=3600000",
+            "--alerts.cron=0 0 0 1 1 *",
+            // Seeding a million rows can hold the write lock through several heartbeats; keep the
+            // partitions leased regardless
+            "--alerts.partitions.lease-ms=86400000");
+    }
+
+    /**
+     * Users with appliances overdue since yesterday (so they are sent straight away), a quarter of
+     * them monthly recurring and every fourth user on digests, spread evenly over the users. Written
+     * in batches, a transaction each, so a million rows don't all sit in one persistence context.
+     */
+    private void seed(int users, int appliances) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ApplianceRepository applianceRepository = context.getBean(ApplianceRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+
+        long[] ownerIds = new long[users];
+        for (int from = 0; from < users; from += SEED_BATCH_SIZE) {
+            int first = from;
+            int last = Math.min(from + SEED_BATCH_SIZE, users);
+            transaction.executeWithoutResult(status -> {
+                List<User> batch = new ArrayList<>();
+                for (int i = first; i < last; i++) {
+                    batch.add(User.builder()
+                        .name("User " + i)
+                        .email("user" + i + "@example.com")
+                        .password("secret")
+                        .alertDigest(i % 4 == 0)
+                        .build());
+                }
+                List<User> saved = userRepository.saveAll(batch);
+                for (int i = first; i < last; i++) {
+                    ownerIds[i] = saved.get(i - first).getId();
+                }
+            });
+        }
+        for (int from = 0; from < appliances; from += SEED_BATCH_SIZE) {
+            int first = from;
+            int last = Math.min(from + SEED_BATCH_SIZE, appliances);
+            transaction.executeWithoutResult(status -> {
+                List<Appliance> batch = new ArrayList<>();
+                for (int i = first; i < last; i++) {
+                    batch.add(Appliance.builder()
+                        .name("Appliance " + i)
+                        .description("Replace the filter")
+                        .userId(ownerIds[i % users])
+                        .alertDate(yesterday)
+                        .recurringInterval(i % 4 == 0 ? "MONTHLY" : null)
+                        .build());
+                }
+                applianceRepository.saveAll(batch);
+            });
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // Sum of the heap pools' peaks since the last reset: an upper bound, as the pools needn't peak
+    // together. With oldOnly, just the old generation, where what a run keeps for its whole length ends up
+    // while the garbage of each chunk is collected young.
+    private static long peakHeap(boolean oldOnly) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            boolean old = pool.getName().contains("Old") || pool.getName().contains("Tenured");
+            if (pool.getType() == MemoryType.HEAP && (old || !oldOnly)) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.controller.ApplianceController;
+import com.example.demo.model.AlertOutboxEntry;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * AlertSchedulerService.checkAndSendAlerts on SQLite: which alerts the run's own query picks up, now
+ * that cancelled, snoozed and already queued alerts are filtered out in SQL rather than in Java; and
+ * what the relay does with what was queued.
+ */
+class AlertRunSqliteTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigurableApplicationContext context;
+    private ApplianceRepository applianceRepository;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        context = SqliteTestApplication.start(tempDir.resolve("alerts.db"));
+        applianceRepository = context.getBean(ApplianceRepository.class);
+        owner = context.getBean(UserRepository.class).save(User.builder()
+            .name("Owner")
+            .email("owner@example.com")
+            .password("secret")
+            .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testCancelledAlertNotQueued() {
+        // Arrange
+        Appliance active = save("Active", LocalDate.now(), "ACTIVE", null);
+        save("Cancelled", LocalDate.now(), "CANCELLED", null);
+        save("Cancelled long ago", LocalDate.now().minusDays(30), "CANCELLED", null);
+
+        // Act
+        context.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+
+        // Assert
+        assertEquals(Set.of(active.getId()), queuedApplianceIds());
+    }
+
+    @Test
+    void testSnoozedAlertQueuedOnlyOnceSnoozeEnds() {
+        // Arrange
+        save("Still snoozed", LocalDate.now().minusDays(2), "SNOOZED", LocalDate.now().plusDays(1));
+        Appliance snoozeEndsToday = save("Snooze ends today", LocalDate.now().minusDays(2), "SNOOZED", LocalDate.now());
+        Appliance snoozeEnded = save("Snooze ended", LocalDate.now().minusDays(2), "SNOOZED", LocalDate.now().minusDays(1));
+
+        // Act
+        context.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+
+        // Assert
+        assertEquals(Set.of(snoozeEndsToday.getId(), snoozeEnded.getId()), queuedApplianceIds());
+    }
+
+    @Test
+    void testQueuedOneTimeAlertNotSelectedBySecondRun() {
+        // Arrange
+        Appliance oneTime = save("One-time", LocalDate.now().minusDays(3), null, null);
+        AlertSchedulerService scheduler = context.getBean(AlertSchedulerService.class);
+        scheduler.checkAndSendAlerts();
+
+        // Act
+        oneTime = applianceRepository.findById(oneTime.getId()).orElseThrow();
+        List<Appliance> secondRun = applianceRepository.findDueAlerts(LocalDate.now(), null, 0L, Limit.of(10));
+        scheduler.checkAndSendAlerts();
+
+        // Assert: marked queued in the first run, so the second one doesn't read it and queues nothing more
+        assertEquals(LocalDate.now().minusDays(3), oneTime.getAlertQueuedFor());
+        assertNull(oneTime.getNextFireDate());
+        assertEquals(List.of(), secondRun);
+        assertEquals(1, context.getBean(AlertOutboxRepository.class).count());
+
+        // Act & Assert: a new alert date is a new occurrence, which the next run queues
+        oneTime.setAlertDate(LocalDate.now());
+        applianceRepository.save(oneTime);
+        scheduler.checkAndSendAlerts();
+        assertEquals(2, context.getBean(AlertOutboxRepository.class).count());
+    }
+
+    @Test
+    void testDrainNowSendsWithoutWaitingForSendTime() {
+        // Arrange - an alert queued for the owner's send window, hours away
+        queue(save("Due", LocalDate.now(), null, null));
+
+        // Act
+        AlertOutboxRelay.DrainResult result = context.getBean(AlertOutboxRelay.class).drainNow();
+
+        // Assert - tried straight away; nothing listens on the mail port, so it waits for a retry
+        AlertOutboxEntry entry = context.getBean(AlertOutboxRepository.class).findAll().get(0);
+        assertEquals(1, entry.getAttempts());
+        assertEquals("RETRYING", entry.getStatus());
+        assertEquals(new AlertOutboxRelay.DrainResult(0, 1, 0, true), result);
+    }
+
+    @Test
+    void testAlertCancelledAfterQueueingIsSkipped() {
+        // Arrange
+        Appliance due = queue(save("Due", LocalDate.now(), null, null));
+
+        // Act - the user cancels before the relay gets to it
+        context.getBean(ApplianceController.class).cancelAlert(owner.getId(), due.getId());
+        AlertOutboxRelay.DrainResult result = context.getBean(AlertOutboxRelay.class).drainNow();
+
+        // Assert - dropped without an attempt
+        AlertOutboxEntry entry = context.getBean(AlertOutboxRepository.class).findAll().get(0);
+        assertEquals("SKIPPED", entry.getStatus());
+        assertEquals(0, entry.getAttempts());
+        assertEquals(new AlertOutboxRelay.DrainResult(0, 0, 0, true), result);
+    }
+
+    @Test
+    void testAlertDatedTodayQueuedAtItsSendTime() {
+        // Arrange
+        ApplianceController controller = context.getBean(ApplianceController.class);
+
+        // Act - created after the day's run, one of them for next week; then the timer reaches the end of the day
+        controller.createAppliance(owner.getId(), Appliance.builder().name("Due today").alertDate(LocalDate.now()).build());
+        controller.createAppliance(owner.getId(), Appliance.builder().name("Due next week").alertDate(LocalDate.now().plusDays(7)).build());
+        context.getBean(AlertTimerService.class).fireDue(LocalDate.now().atTime(23, 59));
+
+        // Assert - queued without waiting for the next run
+        List<AlertOutboxEntry> entries = context.getBean(AlertOutboxRepository.class).findAll();
+        assertEquals(1, entries.size());
+        assertEquals(LocalDate.now(), entries.get(0).getDueDate());
+        assertEquals(LocalDate.now(), applianceRepository.findById(entries.get(0).getApplianceId()).orElseThrow().getAlertQueuedFor());
+    }
+
+    @Test
+    void testEntryClaimedByAnotherRelayLeftToIt() {
+        // Arrange - one entry held by a relay still sending it, one left by a relay that stopped mid-send
+        AlertOutboxRepository outbox = context.getBean(AlertOutboxRepository.class);
+        queue(save("Held", LocalDate.now(), null, null));
+        queue(save("Abandoned", LocalDate.now(), null, null));
+        List<AlertOutboxEntry> entries = outbox.findAll();
+        entries.forEach(entry -> entry.setStatus("SENDING"));
+        entries.get(0).setSendAfter(LocalDateTime.now().plusMinutes(5));
+        entries.get(1).setSendAfter(LocalDateTime.now().minusMinutes(1));
+        outbox.saveAll(entries);
+
+        // Act
+        AlertOutboxRelay.DrainResult result = context.getBean(AlertOutboxRelay.class).drainNow();
+
+        // Assert - the held entry isn't touched; the abandoned one is tried again (and fails: no mail server)
+        AlertOutboxEntry held = outbox.findById(entries.get(0).getId()).orElseThrow();
+        AlertOutboxEntry abandoned = outbox.findById(entries.get(1).getId()).orElseThrow();
+        assertEquals("SENDING", held.getStatus());
+        assertEquals(0, held.getAttempts());
+        assertEquals("RETRYING", abandoned.getStatus());
+        assertEquals(1, abandoned.getAttempts());
+        assertEquals(new AlertOutboxRelay.DrainResult(0, 1, 0, true), result);
+    }
+
+    @Test
+    void testClaimOnlyWinsWhileEntryUnchanged() {
+        // Arrange - two relays read the same pending entry
+        AlertOutboxRepository outbox = context.getBean(AlertOutboxRepository.class);
+        queue(save("Due", LocalDate.now(), null, null));
+        AlertOutboxEntry entry = outbox.findAll().get(0);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        LocalDateTime claimUntil = LocalDateTime.now().plusMinutes(10);
+
+        // Act
+        Integer first = transactionTemplate.execute(status -> outbox.claim(entry.getId(), "PENDING", 0, claimUntil));
+        Integer second = transactionTemplate.execute(status -> outbox.claim(entry.getId(), "PENDING", 0, claimUntil));
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals("SENDING", outbox.findById(entry.getId()).orElseThrow().getStatus());
+    }
+
+    // What the alert run does for a due alert, with the entry's send time hours away so no relay pass sends it
+    private Appliance queue(Appliance appliance) {
+        appliance.setAlertQueuedFor(appliance.alertDueDate());
+        context.getBean(AlertOutboxRepository.class).save(AlertOutboxEntry.builder()
+            .applianceId(appliance.getId())
+            .userId(owner.getId())
+            .dueDate(appliance.alertDueDate())
+            .status("PENDING")
+            .createdAt(LocalDateTime.now())
+            .sendAfter(LocalDateTime.now().plusHours(6))
+            .build());
+        return applianceRepository.save(appliance);
+    }
+
+    private Appliance save(String name, LocalDate alertDate, String status, LocalDate snoozeUntil) {
+        return applianceRepository.save(Appliance.builder()
+            .name(name)
+            .userId(owner.getId())
+            .alertDate(alertDate)
+            .alertStatus(status)
+            .snoozeUntil(snoozeUntil)
+            .build());
+    }
+
+    private Set<Long> queuedApplianceIds() {
+        return context.getBean(AlertOutboxRepository.class).findAll().stream()
+            .map(AlertOutboxEntry::getApplianceId)
+            .collect(Collectors.toSet());
+    }
+}
@@ -1,20 +1,41 @@
 package com.example.demo.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+import jakarta.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.AlertOutboxEntry;
 import com.example.demo.model.Appliance;
 import com.example.demo.model.User;
+import com.example.demo.repository.AlertOutboxRepository;
 import com.example.demo.repository.ApplianceRepository;
 import com.example.demo.repository.UserRepository;
 
@@ -27,7 +48,25 @@ class AlertSchedulerServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private EmailService emailService;
+    private AlertOutboxRepository alertOutboxRepository;
+
+    @Mock
+    private AlertOutboxRelay alertOutboxRelay;
+
+    @Mock
+    private AlertPartitionService alertPartitionService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private AlertProperties alertProperties = new AlertProperties();
 
     @InjectMocks
     private AlertSchedulerService alertSchedulerService;
@@ -35,6 +74,11 @@ class AlertSchedulerServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+
+        // Single node holding the only partition
+        when(alertPartitionService.ownedPartitions()).thenReturn(List.of(0));
+        when(alertPartitionService.partitionCount()).thenReturn(1);
+        when(alertPartitionService.partitionOf(anyLong())).thenReturn(0);
     }
 
     @Test
@@ -54,32 +98,34 @@ class AlertSchedulerServiceTest {
             .userId(1L)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(testAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(applianceRepository, times(1)).findByAlertDateBefore(any(LocalDate.class));
-        verify(userRepository, times(1)).findById(1L);
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, testAppliance);
+        verify(applianceRepository, times(1)).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class));
+        verify(userRepository, times(1)).findAllById(Collections.singleton(1L));
+        assertEquals(List.of(1L), queuedApplianceIds());
+        verify(alertOutboxRelay, times(1)).requestDrain();
     }
 
     @Test
     void testCheckAndSendAlerts_NoAlerts() {
         // Arrange
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList());
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(applianceRepository, times(1)).findByAlertDateBefore(any(LocalDate.class));
-        verify(emailService, never()).sendMaintenanceAlert(any(), any());
+        verify(applianceRepository, times(1)).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class));
+        verify(alertOutboxRepository, never()).saveAll(any());
+        verify(alertOutboxRelay, times(1)).requestDrain(); // Still delivers anything left pending
     }
 
     @Test
@@ -91,16 +137,16 @@ class AlertSchedulerServiceTest {
             .userId(999L)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(testAppliance));
-        when(userRepository.findById(999L))
-            .thenReturn(Optional.empty());
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList());
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, never()).sendMaintenanceAlert(any(), any());
+        verify(alertOutboxRepository, never()).saveAll(any());
     }
 
     @Test
@@ -142,24 +188,22 @@ class AlertSchedulerServiceTest {
             .userId(1L)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(appliance1, appliance2, appliance3));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(user1));
-        when(userRepository.findById(2L))
-            .thenReturn(Optional.of(user2));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(user1, user2));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(applianceRepository, times(1)).findByAlertDateBefore(any(LocalDate.class));
-        verify(userRepository, times(2)).findById(1L); // User 1 has 2 appliances
-        verify(userRepository, times(1)).findById(2L); // User 2 has 1 appliance
-        verify(emailService, times(1)).sendMaintenanceAlert(user1, appliance1);
-        verify(emailService, times(1)).sendMaintenanceAlert(user2, appliance2);
-        verify(emailService, times(1)).sendMaintenanceAlert(user1, appliance3);
-        verify(emailService, times(3)).sendMaintenanceAlert(any(), any()); // Total 3 emails sent
+        verify(applianceRepository, times(1)).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class));
+        // Owners are resolved in one batch; user 1 is fetched once despite owning 2 appliances
+        verify(userRepository, times(1)).findAllById(argThat(ids -> ids != null
+            && ((Collection<Long>) ids).size() == 2
+            && ((Collection<Long>) ids).containsAll(Arrays.asList(1L, 2L))));
+        verify(userRepository, never()).findById(any());
+        assertEquals(List.of(1L, 2L, 3L), queuedApplianceIds()); // Total 3 emails queued
     }
 
     @Test
@@ -174,6 +218,7 @@ class AlertSchedulerServiceTest {
         Appliance validAppliance = Appliance.builder()
             .id(1L)
             .name("Working Appliance")
+            .alertDate(LocalDate.now())
             .userId(1L)
             .build();
 
@@ -183,19 +228,16 @@ class AlertSchedulerServiceTest {
             .userId(999L)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(validAppliance, orphanedAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(validUser));
-        when(userRepository.findById(999L))
-            .thenReturn(Optional.empty());
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(validUser)); // userId 999 has no row
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(validUser, validAppliance);
-        verify(emailService, times(1)).sendMaintenanceAlert(any(), any()); // Only 1 email sent
+        assertEquals(List.of(1L), queuedApplianceIds()); // Only 1 email queued
         // Orphaned appliance should not trigger email
     }
 
@@ -217,18 +259,18 @@ class AlertSchedulerServiceTest {
             .recurringInterval("MONTHLY")
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(monthlyAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, monthlyAppliance);
-        verify(applianceRepository, times(1)).save(argThat(appliance ->
-            appliance.getAlertDate().equals(originalAlertDate.plusMonths(1)) &&
+        assertEquals(List.of(1L), queuedApplianceIds());
+        verify(applianceRepository, times(1)).saveAll(batchMatching(1, appliance ->
+            appliance.getAlertDate().equals(firstAfterToday(k -> originalAlertDate.plusMonths(k))) &&
             "ACTIVE".equals(appliance.getAlertStatus()) &&
             appliance.getSnoozeUntil() == null
         ));
@@ -252,18 +294,18 @@ class AlertSchedulerServiceTest {
             .recurringInterval("YEARLY")
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(yearlyAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, yearlyAppliance);
-        verify(applianceRepository, times(1)).save(argThat(appliance ->
-            appliance.getAlertDate().equals(originalAlertDate.plusYears(1)) &&
+        assertEquals(List.of(1L), queuedApplianceIds());
+        verify(applianceRepository, times(1)).saveAll(batchMatching(1, appliance ->
+            appliance.getAlertDate().equals(firstAfterToday(k -> originalAlertDate.plusYears(k))) &&
             "ACTIVE".equals(appliance.getAlertStatus())
         ));
     }
@@ -287,18 +329,18 @@ class AlertSchedulerServiceTest {
             .recurringIntervalDays(90)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(customAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, customAppliance);
-        verify(applianceRepository, times(1)).save(argThat(appliance ->
-            appliance.getAlertDate().equals(originalAlertDate.plusDays(90)) &&
+        assertEquals(List.of(1L), queuedApplianceIds());
+        verify(applianceRepository, times(1)).saveAll(batchMatching(1, appliance ->
+            appliance.getAlertDate().equals(firstAfterToday(k -> originalAlertDate.plusDays(90L * k))) &&
             "ACTIVE".equals(appliance.getAlertStatus())
         ));
     }
@@ -321,18 +363,20 @@ class AlertSchedulerServiceTest {
             .recurringInterval("NONE")
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(noneAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, noneAppliance);
-        // Should not save the appliance (no recurring scheduling)
-        verify(applianceRepository, never()).save(any());
+        assertEquals(List.of(1L), queuedApplianceIds());
+        // Not rescheduled, only marked queued so the next run doesn't read it again
+        assertEquals(originalAlertDate, noneAppliance.getAlertDate());
+        assertEquals(originalAlertDate, noneAppliance.getAlertQueuedFor());
+        verify(applianceRepository, times(1)).saveAll(any());
     }
 
     @Test
@@ -353,95 +397,511 @@ class AlertSchedulerServiceTest {
             .recurringInterval(null)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
             .thenReturn(Arrays.asList(nullIntervalAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, nullIntervalAppliance);
-        // Should not save the appliance (no recurring scheduling)
-        verify(applianceRepository, never()).save(any());
+        assertEquals(List.of(1L), queuedApplianceIds());
+        // Not rescheduled, only marked queued so the next run doesn't read it again
+        assertEquals(originalAlertDate, nullIntervalAppliance.getAlertDate());
+        assertEquals(originalAlertDate, nullIntervalAppliance.getAlertQueuedFor());
+        verify(applianceRepository, times(1)).saveAll(any());
     }
 
     @Test
-    void testCheckAndSendAlerts_CancelledAlertNotSent() {
-        // Arrange
-        Appliance cancelledAppliance = Appliance.builder()
+    void testCheckAndSendAlerts_ExpiredSnoozeLeftAsIs() {
+        // Arrange - Snooze period has ended
+        User testUser = User.builder()
             .id(1L)
-            .name("Cancelled Appliance")
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        Appliance snoozedAppliance = Appliance.builder()
+            .id(1L)
+            .name("Snoozed Appliance")
             .alertDate(LocalDate.now())
             .userId(1L)
-            .alertStatus("CANCELLED")
+            .alertStatus("SNOOZED")
+            .snoozeUntil(LocalDate.now().minusDays(1)) // Snooze ended yesterday
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
-            .thenReturn(Arrays.asList(cancelledAppliance));
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(snoozedAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
-        // Assert
-        verify(emailService, never()).sendMaintenanceAlert(any(), any());
-        verify(applianceRepository, never()).save(any());
+        // Assert - the expired snooze is evaluated, not reset to ACTIVE; only the queued mark is written
+        assertEquals("SNOOZED", snoozedAppliance.getAlertStatus());
+        assertEquals(LocalDate.now().minusDays(1), snoozedAppliance.getSnoozeUntil());
+        assertEquals(LocalDate.now(), snoozedAppliance.getAlertQueuedFor());
+        assertEquals(List.of(1L), queuedApplianceIds());
     }
 
     @Test
-    void testCheckAndSendAlerts_SnoozedAlertReactivated() {
-        // Arrange - Snooze period has ended
+    void testCheckAndSendAlerts_ExpiredSnoozeKeepsItsDueDate() {
+        // Arrange - snoozed past the alert date; the occurrence is keyed on the snooze end on every run
         User testUser = User.builder()
             .id(1L)
             .name("Test User")
             .email("test@example.com")
             .build();
 
-        Appliance snoozedAppliance = Appliance.builder()
+        LocalDate snoozeEnded = LocalDate.now().minusDays(2);
+        Appliance appliance = Appliance.builder()
             .id(1L)
             .name("Snoozed Appliance")
-            .alertDate(LocalDate.now())
+            .alertDate(LocalDate.now().minusDays(10))
             .userId(1L)
             .alertStatus("SNOOZED")
-            .snoozeUntil(LocalDate.now().minusDays(1)) // Snooze ended yesterday
+            .snoozeUntil(snoozeEnded)
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
-            .thenReturn(Arrays.asList(snoozedAppliance));
-        when(userRepository.findById(1L))
-            .thenReturn(Optional.of(testUser));
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(appliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+        when(alertOutboxRepository.findByApplianceIdInAndDueDateIn(any(), any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(AlertOutboxEntry.builder().applianceId(1L).dueDate(snoozeEnded).build()));
+
+        // Act - two runs, as on consecutive days
+        alertSchedulerService.checkAndSendAlerts();
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert - queued once, for the snooze end date
+        List<AlertOutboxEntry> queued = queuedEntries();
+        assertEquals(1, queued.size());
+        assertEquals(snoozeEnded, queued.get(0).getDueDate());
+        assertEquals(snoozeEnded, appliance.getAlertQueuedFor());
+    }
+
+    @Test
+    void testCheckAndSendAlerts_WalksDueAlertsInChunks() {
+        // Arrange - chunk size 2: a full chunk means another one is fetched after the last (next fire date, id)
+        alertProperties.setChunkSize(2);
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        Appliance first = Appliance.builder().id(3L).name("Washer").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+        Appliance second = Appliance.builder().id(7L).name("Dryer").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+        Appliance third = Appliance.builder().id(9L).name("Oven").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), isNull(), eq(0L), any(Limit.class)))
+            .thenReturn(Arrays.asList(first, second));
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), eq(LocalDate.now()), eq(7L), any(Limit.class)))
+            .thenReturn(Arrays.asList(third));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(applianceRepository, times(1)).save(argThat(appliance ->
-            "ACTIVE".equals(appliance.getAlertStatus()) &&
-            appliance.getSnoozeUntil() == null
-        ));
-        verify(emailService, times(1)).sendMaintenanceAlert(testUser, snoozedAppliance);
+        verify(applianceRepository, times(1)).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), isNull(), eq(0L), eq(Limit.of(2)));
+        verify(applianceRepository, times(1)).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), eq(LocalDate.now()), eq(7L), eq(Limit.of(2)));
+        assertEquals(List.of(3L, 7L, 9L), queuedApplianceIds());
+        verify(userRepository, times(1)).findAllById(any()); // The owner is read once, not again for the second chunk
+        verify(entityManager, times(2)).clear(); // Persistence context cleared after each chunk
     }
 
     @Test
-    void testCheckAndSendAlerts_SnoozedAlertStillActive() {
-        // Arrange - Snooze period still active
-        Appliance snoozedAppliance = Appliance.builder()
+    void testCheckAndSendAlerts_ReadsOnlyOwnersNewToTheRun() {
+        // Arrange - user 1 owns appliances in both chunks, user 2 only in the second
+        alertProperties.setChunkSize(2);
+        User first = User.builder().id(1L).name("First").email("first@example.com").build();
+        User second = User.builder().id(2L).name("Second").email("second@example.com").build();
+
+        Appliance washer = Appliance.builder().id(3L).name("Washer").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+        Appliance dryer = Appliance.builder().id(7L).name("Dryer").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+        Appliance oven = Appliance.builder().id(9L).name("Oven").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(1L).build();
+        Appliance fridge = Appliance.builder().id(11L).name("Fridge").alertDate(LocalDate.now()).nextFireDate(LocalDate.now()).userId(2L).build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), isNull(), eq(0L), any(Limit.class)))
+            .thenReturn(Arrays.asList(washer, dryer));
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), eq(LocalDate.now()), eq(7L), any(Limit.class)))
+            .thenReturn(Arrays.asList(oven, fridge));
+        when(userRepository.findAllById(Set.of(1L))).thenReturn(List.of(first));
+        when(userRepository.findAllById(Set.of(2L))).thenReturn(List.of(second));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert
+        assertEquals(List.of(3L, 7L, 9L, 11L), queuedApplianceIds());
+        verify(userRepository, times(1)).findAllById(Set.of(1L));
+        verify(userRepository, times(1)).findAllById(Set.of(2L));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void testCheckAndSendAlerts_ExpiredSnoozeRecurringAlertWrittenOnce() {
+        // Arrange - snooze ended and the alert recurs: the reschedule clears the snooze in the same write
+        User testUser = User.builder()
             .id(1L)
-            .name("Snoozed Appliance")
-            .alertDate(LocalDate.now())
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        Appliance appliance = Appliance.builder()
+            .id(1L)
+            .name("Snoozed Monthly Appliance")
+            .alertDate(LocalDate.of(2024, 1, 15))
             .userId(1L)
             .alertStatus("SNOOZED")
-            .snoozeUntil(LocalDate.now().plusDays(3)) // Snoozed until 3 days from now
+            .snoozeUntil(LocalDate.now().minusDays(1))
+            .recurringInterval("MONTHLY")
             .build();
 
-        when(applianceRepository.findByAlertDateBefore(any(LocalDate.class)))
-            .thenReturn(Arrays.asList(snoozedAppliance));
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(appliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
 
         // Act
         alertSchedulerService.checkAndSendAlerts();
 
         // Assert
-        verify(emailService, never()).sendMaintenanceAlert(any(), any());
+        verify(applianceRepository, times(1)).saveAll(batchMatching(1, saved ->
+            saved.getAlertDate().equals(firstAfterToday(k -> LocalDate.of(2024, 1, 15).plusMonths(k))) &&
+            "ACTIVE".equals(saved.getAlertStatus()) &&
+            saved.getSnoozeUntil() == null
+        ));
+        verify(applianceRepository, never()).save(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testCheckAndSendAlerts_QueuesPendingEntryForOccurrence() {
+        // Arrange
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        LocalDate alertDate = LocalDate.now().minusDays(2);
+        Appliance testAppliance = Appliance.builder()
+            .id(4L)
+            .name("Furnace")
+            .alertDate(alertDate)
+            .userId(1L)
+            .build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert
+        List<AlertOutboxEntry> queued = queuedEntries();
+        assertEquals(1, queued.size());
+        assertEquals(4L, queued.get(0).getApplianceId());
+        assertEquals(1L, queued.get(0).getUserId());
+        assertEquals(alertDate, queued.get(0).getDueDate());
+        assertEquals("PENDING", queued.get(0).getStatus());
+        assertEquals(0, queued.get(0).getAttempts());
+    }
+
+    @Test
+    void testCheckAndSendAlerts_AlreadyQueuedOccurrenceSkipped() {
+        // Arrange - a previous run (or /trigger-alerts) already queued this occurrence
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        LocalDate originalAlertDate = LocalDate.of(2024, 1, 15);
+        Appliance monthlyAppliance = Appliance.builder()
+            .id(1L)
+            .name("Monthly Maintenance Appliance")
+            .alertDate(originalAlertDate)
+            .userId(1L)
+            .recurringInterval("MONTHLY")
+            .build();
+
+        AlertOutboxEntry existing = AlertOutboxEntry.builder()
+            .id(10L)
+            .applianceId(1L)
+            .userId(1L)
+            .dueDate(originalAlertDate)
+            .status("SENT")
+            .build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(monthlyAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+        when(alertOutboxRepository.findByApplianceIdInAndDueDateIn(any(), any()))
+            .thenReturn(Arrays.asList(existing));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert - neither queued again nor rescheduled a second time, only marked queued
+        verify(alertOutboxRepository, never()).saveAll(any());
+        assertEquals(originalAlertDate, monthlyAppliance.getAlertDate());
+        assertEquals(originalAlertDate, monthlyAppliance.getAlertQueuedFor());
+        verify(alertOutboxRelay, times(1)).requestDrain();
+    }
+
+    @Test
+    void testRecurringAlert_RescheduleIsPublished() {
+        // Arrange
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        LocalDate originalAlertDate = LocalDate.of(2024, 1, 15);
+        Appliance monthlyAppliance = Appliance.builder()
+            .id(1L)
+            .name("Monthly Maintenance Appliance")
+            .alertDate(originalAlertDate)
+            .userId(1L)
+            .recurringInterval("MONTHLY")
+            .build();
+        Appliance oneOffAppliance = Appliance.builder()
+            .id(2L)
+            .name("One-off Appliance")
+            .alertDate(originalAlertDate)
+            .userId(1L)
+            .build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(monthlyAppliance, oneOffAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert - both updates are announced: the reschedule with its new date, the one-off marked queued
+        ArgumentCaptor<ApplianceChangedEvent> captor = ArgumentCaptor.forClass(ApplianceChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertEquals(1L, captor.getAllValues().get(0).applianceId());
+        assertEquals(firstAfterToday(k -> originalAlertDate.plusMonths(k)), captor.getAllValues().get(0).appliance().getAlertDate());
+        assertEquals(2L, captor.getAllValues().get(1).applianceId());
+        assertEquals(originalAlertDate, captor.getAllValues().get(1).appliance().getAlertQueuedFor());
+    }
+
+    @Test
+    void testCheckAndSendAlerts_EntryWaitsForOwnersSendWindow() {
+        // Arrange - owner in Tokyo wants alerts at 07:00 local
+        alertProperties.getDelivery().setJitterMinutes(0);
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .timeZone("Asia/Tokyo")
+            .alertHour(7)
+            .build();
+
+        LocalDate dueDate = LocalDate.now().plusDays(1);
+        Appliance testAppliance = Appliance.builder()
+            .id(1L)
+            .name("Test Refrigerator")
+            .alertDate(dueDate)
+            .userId(1L)
+            .build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(testAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert - stored in server time
+        LocalDateTime expected = dueDate.atTime(7, 0).atZone(ZoneId.of("Asia/Tokyo"))
+            .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        assertEquals(expected, queuedEntries().get(0).getSendAfter());
+    }
+
+    @Test
+    void testCheckAndSendAlertsByIds_QueuesOnlyAlertsDueByTheGivenDate() {
+        // Arrange
+        User testUser = User.builder().id(1L).name("Test User").email("test@example.com").build();
+        LocalDate today = LocalDate.now();
+        Appliance dueToday = Appliance.builder().id(3L).name("Washer").alertDate(today).nextFireDate(today).userId(1L).build();
+        Appliance dueTomorrow = Appliance.builder().id(4L).name("Dryer").alertDate(today.plusDays(1))
+            .nextFireDate(today.plusDays(1)).userId(1L).build();
+        when(applianceRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(dueToday, dueTomorrow));
+        when(userRepository.findAllById(any())).thenReturn(List.of(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts(List.of(3L, 4L), today);
+
+        // Assert
+        assertEquals(List.of(3L), queuedApplianceIds());
+        verify(alertOutboxRelay, times(1)).requestDrain();
+    }
+
+    @Test
+    void testCheckAndSendAlertsByIds_RecurringAlertDueTomorrowMovesPastIt() {
+        // Arrange - an owner ahead of server time, whose send time for tomorrow's occurrence has come
+        User testUser = User.builder().id(1L).name("Test User").email("test@example.com").build();
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        Appliance appliance = Appliance.builder().id(3L).name("Washer").alertDate(tomorrow).nextFireDate(tomorrow)
+            .recurringInterval("MONTHLY").userId(1L).build();
+        when(applianceRepository.findAllById(List.of(3L))).thenReturn(List.of(appliance));
+        when(userRepository.findAllById(any())).thenReturn(List.of(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts(List.of(3L), tomorrow);
+
+        // Assert - queued for tomorrow, and the alert moves on to the following occurrence
+        assertEquals(tomorrow, queuedEntries().get(0).getDueDate());
+        assertEquals(tomorrow.plusMonths(1), appliance.getAlertDate());
+        assertEquals(tomorrow, appliance.getAlertQueuedFor());
+    }
+
+    @Test
+    void testSendAfter_JitterIsStablePerUserAndWithinWindow() {
+        // Arrange
+        LocalDate dueDate = LocalDate.of(2024, 3, 1);
+        LocalDateTime windowStart = dueDate.atTime(9, 0);
+        List<LocalDateTime> sendTimes = new ArrayList<>();
+
+        // Act
+        for (long id = 1; id <= 20; id++) {
+            sendTimes.add(alertSchedulerService.sendAfter(User.builder().id(id).build(), dueDate));
+        }
+
+        // Assert - same user, same minute; consecutive users spread over the hour
+        assertEquals(sendTimes.get(0), alertSchedulerService.sendAfter(User.builder().id(1L).build(), dueDate));
+        assertTrue(sendTimes.stream().allMatch(t -> !t.isBefore(windowStart) && t.isBefore(windowStart.plusHours(1))));
+        assertTrue(sendTimes.stream().distinct().count() > 10);
+    }
+
+    @Test
+    void testSendAfter_LateHourStaysOnDueDay() {
+        // Arrange
+        User lateUser = User.builder().id(7L).alertHour(23).build();
+        LocalDate dueDate = LocalDate.of(2024, 3, 1);
+
+        // Act
+        LocalDateTime sendAfter = alertSchedulerService.sendAfter(lateUser, dueDate);
+
+        // Assert
+        assertEquals(dueDate, sendAfter.toLocalDate());
+        assertTrue(!sendAfter.isBefore(dueDate.atTime(23, 0)));
+    }
+
+    @Test
+    void testCheckAndSendAlerts_ScansOnlyHeldPartitions() {
+        // Arrange - this node holds partitions 1 and 3 of 4
+        when(alertPartitionService.ownedPartitions()).thenReturn(List.of(1, 3));
+        when(alertPartitionService.partitionCount()).thenReturn(4);
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList());
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert
+        verify(applianceRepository, times(1))
+            .findDueAlertsInPartitions(any(LocalDate.class), eq(4), eq(List.of(1, 3)), isNull(), eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void testCheckAndSendAlerts_SkippedWithoutPartitions() {
+        // Arrange - another node holds every partition
+        when(alertPartitionService.ownedPartitions()).thenReturn(List.of());
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert
+        verify(applianceRepository, never()).findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class));
+        verify(alertOutboxRelay, never()).requestDrain();
+    }
+
+    @Test
+    void testRecurringAlert_FarBehindCatchesUpWithOneOverdueEntry() {
+        // Arrange - monthly alert last handled over two years ago
+        User testUser = User.builder()
+            .id(1L)
+            .name("Test User")
+            .email("test@example.com")
+            .build();
+
+        LocalDate originalAlertDate = LocalDate.now().minusMonths(25).minusDays(3);
+        Appliance monthlyAppliance = Appliance.builder()
+            .id(1L)
+            .name("Monthly Maintenance Appliance")
+            .alertDate(originalAlertDate)
+            .userId(1L)
+            .recurringInterval("MONTHLY")
+            .build();
+
+        when(applianceRepository.findDueAlertsInPartitions(any(LocalDate.class), anyInt(), any(), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(monthlyAppliance));
+        when(userRepository.findAllById(any()))
+            .thenReturn(Arrays.asList(testUser));
+
+        // Act
+        alertSchedulerService.checkAndSendAlerts();
+
+        // Assert - one entry for the original occurrence noting the 25 skipped, and one write to next month
+        List<AlertOutboxEntry> entries = queuedEntries();
+        assertEquals(1, entries.size());
+        assertEquals(originalAlertDate, entries.get(0).getDueDate());
+        assertEquals(25, entries.get(0).getMissedOccurrences());
+        verify(applianceRepository, times(1)).saveAll(batchMatching(1, appliance ->
+            appliance.getAlertDate().equals(originalAlertDate.plusMonths(26))
+        ));
+    }
+
+    /**
+     * Reference for the closed-form catch-up: the first of {@code occurrence(1), occurrence(2), ...} after today.
+     */
+    private static LocalDate firstAfterToday(LongFunction<LocalDate> occurrence) {
+        LocalDate today = LocalDate.now();
+        long k = 1;
+        while (!occurrence.apply(k).isAfter(today)) {
+            k++;
+        }
+        return occurrence.apply(k);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AlertOutboxEntry> queuedEntries() {
+        ArgumentCaptor<Iterable<AlertOutboxEntry>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(alertOutboxRepository, atLeastOnce()).saveAll(captor.capture());
+        List<AlertOutboxEntry> entries = new ArrayList<>();
+        captor.getAllValues().forEach(batch -> batch.forEach(entries::add));
+        return entries;
+    }
+
+    private List<Long> queuedApplianceIds() {
+        List<Long> ids = new ArrayList<>();
+        queuedEntries().forEach(entry -> ids.add(entry.getApplianceId()));
+        return ids;
+    }
+
+    private static Iterable<Appliance> batchMatching(int size, Predicate<Appliance> condition) {
+        return argThat(batch -> {
+            List<Appliance> saved = new ArrayList<>();
+            batch.forEach(saved::add);
+            return saved.size() == size && saved.stream().allMatch(condition);
+        });
     }
 }
@@ -0,0 +1,190 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+class AlertTimerServiceTest {
+
+    @Mock
+    private ApplianceRepository applianceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AlertSchedulerService alertSchedulerService;
+
+    @Spy
+    private AlertProperties alertProperties = new AlertProperties();
+
+    @InjectMocks
+    private AlertTimerService alertTimerService;
+
+    private LocalDate today;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        today = LocalDate.now();
+        owner = User.builder().id(1L).name("Test User").email("test@example.com").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(userRepository.findAllById(any())).thenReturn(List.of(owner));
+        // The owner's send time: 09:00 on the due date
+        when(alertSchedulerService.sendAfter(any(), any()))
+            .thenAnswer(invocation -> invocation.<LocalDate>getArgument(1).atTime(9, 0));
+    }
+
+    @Test
+    void testOnStartup_ArmsEachAlertAtItsOwnersSendTime() {
+        // Arrange
+        Appliance overdue = appliance(1L, today.minusDays(3));
+        Appliance tomorrow = appliance(2L, today.plusDays(1));
+        when(applianceRepository.findDueAlerts(any(LocalDate.class), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList(overdue, tomorrow));
+
+        // Act
+        alertTimerService.onStartup();
+
+        // Assert - everything due by the end of the horizon, overdue alerts at their own (past) time
+        verify(applianceRepository).findDueAlerts(eq(today.plusDays(1)), isNull(), eq(0L), any(Limit.class));
+        verify(userRepository, times(1)).findAllById(any());
+        assertEquals(2, alertTimerService.size());
+        assertEquals(today.minusDays(3).atTime(9, 0), alertTimerService.fireTimeOf(1L));
+        assertEquals(today.plusDays(1).atTime(9, 0), alertTimerService.fireTimeOf(2L));
+    }
+
+    @Test
+    void testTick_LoadsOnlyTheDaysEnteringTheHorizon() {
+        // Arrange
+        when(applianceRepository.findDueAlerts(any(LocalDate.class), any(), anyLong(), any(Limit.class)))
+            .thenReturn(Arrays.asList());
+        alertTimerService.onStartup();
+        alertProperties.getTimer().setHorizonDays(2);
+
+        // Act
+        alertTimerService.tick();
+
+        // Assert - the rows dated after the last day loaded, up to the new end of the horizon
+        verify(applianceRepository).findDueAlerts(eq(today.plusDays(2)), eq(today.plusDays(1)), eq(Long.MAX_VALUE),
+            any(Limit.class));
+    }
+
+    @Test
+    void testFireDue_FiresEachAlertOnceItsTimeComes() {
+        // Arrange
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(3L, today)));
+        LocalDateTime fireAt = today.atTime(9, 0);
+
+        // Act
+        alertTimerService.fireDue(fireAt.minusMinutes(1));
+        alertTimerService.fireDue(fireAt);
+        alertTimerService.fireDue(fireAt.plusMinutes(1));
+
+        // Assert
+        verify(alertSchedulerService, times(1)).checkAndSendAlerts(any(), any());
+        verify(alertSchedulerService).checkAndSendAlerts(List.of(3L), today);
+        assertEquals(0, alertTimerService.size());
+    }
+
+    @Test
+    void testFireDue_AlertFiringTheDayBeforeItsDueDateQueuedAsDueThen() {
+        // Arrange - an owner ahead of server time: tomorrow's 07:00 for them is 23:00 today here
+        LocalDate tomorrow = today.plusDays(1);
+        doReturn(today.atTime(23, 0)).when(alertSchedulerService).sendAfter(any(), eq(tomorrow));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(3L, tomorrow)));
+
+        // Act
+        alertTimerService.fireDue(today.atTime(23, 0));
+
+        // Assert
+        verify(alertSchedulerService).checkAndSendAlerts(List.of(3L), tomorrow);
+    }
+
+    @Test
+    void testOnApplianceChanged_MovesOrDropsTheTimer() {
+        // Arrange
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(3L, today)));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(4L, today)));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(5L, today)));
+        Appliance cancelled = appliance(4L, today);
+        cancelled.setAlertStatus("CANCELLED");
+
+        // Act - re-dated, cancelled, and moved beyond the horizon
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(3L, today.plusDays(1))));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(cancelled));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(5L, today.plusDays(7))));
+
+        // Assert - superseded timers don't fire
+        assertEquals(today.plusDays(1).atTime(9, 0), alertTimerService.fireTimeOf(3L));
+        assertNull(alertTimerService.fireTimeOf(4L));
+        assertNull(alertTimerService.fireTimeOf(5L));
+        alertTimerService.fireDue(today.atTime(23, 59));
+        verify(alertSchedulerService, never()).checkAndSendAlerts(any(), any());
+    }
+
+    @Test
+    void testOnApplianceChanged_DeletedOrQueuedAlertDropped() {
+        // Arrange
+        Appliance queued = appliance(3L, today);
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(queued));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(4L, today)));
+        queued.setAlertQueuedFor(today);
+
+        // Act
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(queued));
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.deleted(appliance(4L, today)));
+
+        // Assert
+        assertEquals(0, alertTimerService.size());
+    }
+
+    @Test
+    void testFireDue_RetriesAlertsThatCouldNotBeQueued() {
+        // Arrange
+        alertTimerService.onApplianceChanged(ApplianceChangedEvent.saved(appliance(3L, today)));
+        doThrow(new RuntimeException("database is locked"))
+            .when(alertSchedulerService).checkAndSendAlerts(any(), any());
+        LocalDateTime fireAt = today.atTime(9, 0);
+
+        // Act
+        alertTimerService.fireDue(fireAt);
+
+        // Assert
+        assertEquals(fireAt.plusMinutes(1), alertTimerService.fireTimeOf(3L));
+    }
+
+    private static Appliance appliance(Long id, LocalDate alertDate) {
+        Appliance appliance = Appliance.builder()
+            .id(id)
+            .name("Appliance " + id)
+            .alertDate(alertDate)
+            .userId(1L)
+            .build();
+        appliance.setNextFireDate(appliance.computeNextFireDate());
+        return appliance;
+    }
+}
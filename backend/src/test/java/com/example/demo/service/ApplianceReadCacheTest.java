@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+
+class ApplianceReadCacheTest {
+
+    private ApplianceProperties applianceProperties = new ApplianceProperties();
+
+    private ApplianceReadCache cache;
+
+    // Database reads per user, by user id
+    private final AtomicInteger[] loads = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+
+    @BeforeEach
+    void setUp() {
+        applianceProperties.getCache().setMaxAppliances(10);
+        cache = new ApplianceReadCache(applianceProperties);
+    }
+
+    @Test
+    void testServesRepeatReadsFromMemory() {
+        assertThat(getAll(1L, 3)).hasSize(3);
+        assertThat(getAll(1L, 3)).hasSize(3);
+        assertThat(cache.find(1L, 12L, () -> Optional.empty())).map(Appliance::getName).contains("Appliance 12");
+        assertThat(cache.find(1L, 99L, () -> Optional.of(appliance(1L, 99L)))).isEmpty();
+        // Not cached: goes to the database, and isn't cached on its own
+        assertThat(cache.find(2L, 21L, () -> Optional.of(appliance(2L, 21L)))).isPresent();
+
+        assertThat(loads[1].get()).isEqualTo(1);
+        ApplianceReadCache.Stats stats = cache.getStats();
+        assertThat(stats.hits()).isEqualTo(3);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.users()).isEqualTo(1);
+        assertThat(stats.appliances()).isEqualTo(4);
+    }
+
+    @Test
+    void testChangesDropOnlyTheirUser() {
+        getAll(1L, 2);
+        getAll(2L, 2);
+
+        cache.onApplianceChanged(ApplianceChangedEvent.saved(appliance(1L, 11L)));
+        getAll(1L, 2);
+        getAll(2L, 2);
+
+        assertThat(loads[1].get()).isEqualTo(2);
+        assertThat(loads[2].get()).isEqualTo(1);
+        assertThat(cache.getStats().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadOverlappingAChangeIsNotStored() {
+        // The change lands after the read has loaded the old list but before it is stored
+        List<Appliance> read = cache.getAll(1L, () -> {
+            List<Appliance> stale = appliances(1L, 2);
+            cache.onApplianceChanged(ApplianceChangedEvent.deleted(appliance(1L, 11L)));
+            return stale;
+        });
+
+        assertThat(read).hasSize(2);
+        assertThat(cache.getStats().users()).isZero();
+        getAll(1L, 1);
+        assertThat(loads[1].get()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedToStayWithinSize() {
+        getAll(1L, 3);
+        getAll(2L, 3);
+        getAll(1L, 3);
+        // 4 + 4 + 4 appliance slots is over 10: user 2 was used least recently
+        getAll(3L, 3);
+
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.getStats().appliances()).isEqualTo(8);
+        getAll(1L, 3);
+        getAll(2L, 3);
+        assertThat(loads[1].get()).isEqualTo(1);
+        assertThat(loads[2].get()).isEqualTo(2);
+
+        // Bigger than the whole cache: never stored, and evicts no one
+        cache.invalidate(3L);
+        getAll(3L, 20);
+        getAll(3L, 20);
+        assertThat(loads[3].get()).isEqualTo(3);
+        assertThat(cache.getStats().users()).isEqualTo(2);
+    }
+
+    @Test
+    void testRereadsAfterTtl() throws InterruptedException {
+        applianceProperties.getCache().setTtlMs(20);
+        getAll(1L, 1);
+        Thread.sleep(40);
+        getAll(1L, 1);
+
+        assertThat(loads[1].get()).isEqualTo(2);
+        assertThat(cache.getStats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    void testZeroSizeTurnsCachingOff() {
+        applianceProperties.getCache().setMaxAppliances(0);
+        getAll(1L, 1);
+        getAll(1L, 1);
+
+        assertThat(loads[1].get()).isEqualTo(2);
+    }
+
+    private List<Appliance> getAll(Long userId, int count) {
+        return cache.getAll(userId, () -> {
+            loads[userId.intValue()].incrementAndGet();
+            return appliances(userId, count);
+        });
+    }
+
+    private static List<Appliance> appliances(Long userId, int count) {
+        List<Appliance> appliances = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            appliances.add(appliance(userId, userId * 10 + i));
+        }
+        return appliances;
+    }
+
+    private static Appliance appliance(Long userId, Long id) {
+        return Appliance.builder().id(id).userId(userId).name("Appliance " + id).build();
+    }
+}
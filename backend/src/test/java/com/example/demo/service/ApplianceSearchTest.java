@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSummary;
+import com.example.demo.repository.ApplianceRepository;
+
+/**
+ * ApplianceService.searchAppliances against the appliances_fts index on SQLite: ranking, stemming,
+ * the owner restriction, and the triggers keeping the index in step with saves and deletes, also
+ * after a restart on the same database.
+ */
+class ApplianceSearchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testSearchRanksMatchesAndFollowsWrites() {
+        // Arrange
+        context = startApplication();
+        ApplianceRepository applianceRepository = context.getBean(ApplianceRepository.class);
+        Appliance dishwasher = applianceRepository.save(Appliance.builder().name("Dishwasher").brand("Whirlpool")
+            .description("Kitchen dishwasher").notes("Clean the filter monthly").userId(1L).build());
+        Appliance waterFilter = applianceRepository.save(Appliance.builder().name("Water filter").brand("Brita")
+            .userId(1L).build());
+        Appliance fridge = applianceRepository.save(Appliance.builder().name("Fridge").brand("Whirlpool")
+            .description("Café-style doors").userId(1L).build());
+        applianceRepository.save(Appliance.builder().name("Water filter").userId(2L).build());
+
+        // Act & Assert: a name match outranks one in the notes, and only the user's own appliances match
+        assertEquals(List.of(waterFilter.getId(), dishwasher.getId()), search("filters"));
+        assertEquals(List.of(dishwasher.getId()), search("whirlpool DISHWASHERS"));
+        assertEquals(List.of(fridge.getId()), search("cafe"));
+        assertEquals(List.of(), search("\"filter\" OR user_id"));
+
+        // Act & Assert: edits and deletes reach the index, also when made after a restart
+        fridge.setNotes("Has a water filter");
+        applianceRepository.save(fridge);
+        applianceRepository.delete(waterFilter);
+        assertEquals(List.of(dishwasher.getId(), fridge.getId()), search("filter"));
+
+        context.close();
+        context = startApplication();
+        applianceRepository = context.getBean(ApplianceRepository.class);
+        applianceRepository.deleteById(dishwasher.getId());
+        assertEquals(List.of(fridge.getId()), search("filter"));
+    }
+
+    private List<Long> search(String query) {
+        return context.getBean(ApplianceService.class).searchAppliances(1L, query, null, null).items().stream()
+            .map(ApplianceSummary::id)
+            .toList();
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        return SqliteTestApplication.start(tempDir.resolve("search.db"));
+    }
+}
@@ -1,19 +1,29 @@
 package com.example.demo.service;
 
+import com.example.demo.config.ApplianceProperties;
 import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+import com.example.demo.model.AppliancePage;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.model.ApplianceSummary;
 import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.ApplianceRepositoryCustom.After;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class ApplianceServiceTest {
@@ -21,6 +31,12 @@ class ApplianceServiceTest {
     @Mock
     private ApplianceRepository applianceRepository;
 
+    @Spy
+    private ApplianceProperties applianceProperties = new ApplianceProperties();
+
+    @Spy
+    private ApplianceReadCache applianceReadCache = new ApplianceReadCache(new ApplianceProperties());
+
     @InjectMocks
     private ApplianceService applianceService;
 
@@ -58,6 +74,116 @@ class ApplianceServiceTest {
         verify(applianceRepository, times(1)).findAllByUserId(userId);
     }
 
+    @Test
+    void testGetDueAlerts_QueriesForToday() {
+        Appliance due = Appliance.builder().id(1L).name("Washer").userId(1L).alertDate(LocalDate.now()).build();
+        when(applianceRepository.findDueAlertsByUserId(1L, LocalDate.now())).thenReturn(List.of(due));
+
+        assertThat(applianceService.getDueAlerts(1L)).containsExactly(due);
+        verify(applianceRepository, never()).findAllByUserId(any());
+    }
+
+    @Test
+    void testGetAppliancePage_MoreRowsGiveNextCursor() {
+        when(applianceRepository.findSummaries(any(), eq(ApplianceSort.ID), eq(false), isNull(), eq(3)))
+                .thenReturn(List.of(summary(4L, "Washer"), summary(9L, "Dryer"), summary(12L, "Oven")));
+
+        AppliancePage page = applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, null, 2);
+
+        assertThat(page.items()).extracting(ApplianceSummary::id).containsExactly(4L, 9L);
+        assertThat(page.nextCursor()).isEqualTo("9");
+    }
+
+    @Test
+    void testGetAppliancePage_LastPageHasNoCursor() {
+        when(applianceRepository.findSummaries(any(), eq(ApplianceSort.ID), eq(false), eq(new After(null, 9L)), eq(3)))
+                .thenReturn(List.of(summary(12L, "Oven")));
+
+        AppliancePage page = applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, "9", 2);
+
+        assertThat(page.items()).extracting(ApplianceSummary::id).containsExactly(12L);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void testGetAppliancePage_CursorCarriesSortValue() {
+        when(applianceRepository.findSummaries(any(), eq(ApplianceSort.NAME), eq(true), isNull(), eq(2)))
+                .thenReturn(List.of(summary(4L, "Wäscher"), summary(9L, "Dryer")));
+        when(applianceRepository.findSummaries(any(), eq(ApplianceSort.BRAND), eq(false), isNull(), eq(2)))
+                .thenReturn(List.of(summary(4L, "Washer"), summary(9L, "Dryer")));
+
+        String byName = applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.NAME, true, null, 1)
+                .nextCursor();
+        String byBrand = applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.BRAND, false, null, 1)
+                .nextCursor();
+        applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.NAME, true, byName, 1);
+        applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.BRAND, false, byBrand, 1);
+
+        // The next pages start after the last row's value and id; a row without a brand round-trips as null
+        verify(applianceRepository).findSummaries(any(), eq(ApplianceSort.NAME), eq(true), eq(new After("Wäscher", 4L)), eq(2));
+        verify(applianceRepository).findSummaries(any(), eq(ApplianceSort.BRAND), eq(false), eq(new After(null, 4L)), eq(2));
+    }
+
+    @Test
+    void testGetAppliancePage_SizeDefaultsAndIsCapped() {
+        applianceProperties.getPage().setDefaultSize(20);
+        applianceProperties.getPage().setMaxSize(100);
+
+        applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, null, null);
+        applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, null, 5000);
+
+        verify(applianceRepository).findSummaries(any(), eq(ApplianceSort.ID), eq(false), isNull(), eq(21));
+        verify(applianceRepository).findSummaries(any(), eq(ApplianceSort.ID), eq(false), isNull(), eq(101));
+    }
+
+    @Test
+    void testGetAppliancePage_RejectsBadCursorAndSize() {
+        assertThatThrownBy(() -> applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, "abc", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ALERT_DATE, false, "4:!!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> applianceService.getAppliancePage(1L, ApplianceFilter.NONE, ApplianceSort.ID, false, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testSearchAppliances_CursorIsOffset() {
+        when(applianceRepository.search(1L, "filter", 0, 3))
+                .thenReturn(List.of(summary(4L, "Water filter"), summary(9L, "Dishwasher"), summary(12L, "Fridge")));
+        when(applianceRepository.search(1L, "filter", 2, 3))
+                .thenReturn(List.of(summary(12L, "Fridge")));
+
+        AppliancePage first = applianceService.searchAppliances(1L, "filter", null, 2);
+        AppliancePage second = applianceService.searchAppliances(1L, "filter", first.nextCursor(), 2);
+
+        assertThat(first.items()).extracting(ApplianceSummary::id).containsExactly(4L, 9L);
+        assertThat(first.nextCursor()).isEqualTo("2");
+        assertThat(second.items()).extracting(ApplianceSummary::id).containsExactly(12L);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void testSearchAppliances_RejectsBlankQueryAndBadCursor() {
+        assertThatThrownBy(() -> applianceService.searchAppliances(1L, "  ", null, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Search query is required");
+        assertThatThrownBy(() -> applianceService.searchAppliances(1L, "filter", "-5", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> applianceService.searchAppliances(1L, "filter", "9:abc", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(applianceRepository, never()).search(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testFilterRejectsUnknownStatusAndWarranty() {
+        assertThat(new ApplianceFilter(" ", null, "snoozed", "expired"))
+                .isEqualTo(new ApplianceFilter(null, null, "SNOOZED", "EXPIRED"));
+        assertThatThrownBy(() -> new ApplianceFilter(null, null, "LATE", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ApplianceFilter(null, null, null, "SOON"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void testSaveAppliance() {
         Appliance appliance = Appliance.builder()
@@ -83,4 +209,8 @@ class ApplianceServiceTest {
 
         verify(applianceRepository, times(1)).save(appliance);
     }
+
+    private static ApplianceSummary summary(Long id, String name) {
+        return new ApplianceSummary(id, name, null, null, null, null, null, null, null, null);
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceFilter;
+import com.example.demo.model.ApplianceSort;
+import com.example.demo.repository.ApplianceRepository;
+
+/**
+ * The list's ACTIVE and NO_ALERT status filters (ApplianceSpecifications.withStatus) on SQLite,
+ * against Appliance.effectiveAlertStatus, for every combination of alert date, status and snooze.
+ */
+class ApplianceStatusFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testActiveAndNoAlertFiltersAgreeWithEffectiveStatus() {
+        // Arrange
+        context = SqliteTestApplication.start(tempDir.resolve("status.db"));
+        ApplianceRepository applianceRepository = context.getBean(ApplianceRepository.class);
+        LocalDate today = LocalDate.now();
+
+        List<LocalDate> dates = Arrays.asList(null, today.minusDays(3), today, today.plusDays(3));
+        List<String> statuses = Arrays.asList(null, "ACTIVE", "SNOOZED", "CANCELLED");
+        List<Appliance> appliances = new ArrayList<>();
+        for (LocalDate alertDate : dates) {
+            for (String status : statuses) {
+                for (LocalDate snoozeUntil : dates) {
+                    appliances.add(Appliance.builder()
+                        .name(alertDate + " " + status + " " + snoozeUntil)
+                        .userId(1L)
+                        .alertDate(alertDate)
+                        .alertStatus(status)
+                        .snoozeUntil(snoozeUntil)
+                        .build());
+                }
+            }
+        }
+        appliances = applianceRepository.saveAll(appliances);
+        Set<Long> active = ids(appliances, appliance -> appliance.getAlertDate() != null
+            && "ACTIVE".equals(appliance.effectiveAlertStatus(today)));
+        Set<Long> noAlert = ids(appliances, appliance -> appliance.getAlertDate() == null);
+
+        // Act
+        Set<Long> activeFilter = filtered("ACTIVE");
+        Set<Long> noAlertFilter = filtered("NO_ALERT");
+
+        // Assert - an appliance without an alert date is NO_ALERT only, whatever its status column says
+        assertFalse(active.isEmpty());
+        assertEquals(active, activeFilter);
+        assertEquals(noAlert, noAlertFilter);
+        assertEquals(Set.of(), activeFilter.stream().filter(noAlertFilter::contains).collect(Collectors.toSet()));
+    }
+
+    private Set<Long> filtered(String status) {
+        return ids(context.getBean(ApplianceService.class)
+            .getAppliances(1L, new ApplianceFilter(null, null, status, null), ApplianceSort.ID, false), appliance -> true);
+    }
+
+    private static Set<Long> ids(List<Appliance> appliances, Predicate<Appliance> condition) {
+        return appliances.stream()
+            .filter(condition)
+            .map(Appliance::getId)
+            .collect(Collectors.toSet());
+    }
+}
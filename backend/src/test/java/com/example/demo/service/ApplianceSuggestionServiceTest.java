@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import com.example.demo.config.ApplianceProperties;
+import com.example.demo.event.ApplianceChangedEvent;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.ApplianceSuggestionValues;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.service.ApplianceSuggestionService.Field;
+
+class ApplianceSuggestionServiceTest {
+
+    @Mock
+    private ApplianceRepository applianceRepository;
+
+    private ApplianceProperties applianceProperties = new ApplianceProperties();
+
+    private ApplianceSuggestionService suggestionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        applianceProperties.getSuggestions().setMaxResults(2);
+        suggestionService = new ApplianceSuggestionService(applianceRepository, applianceProperties);
+
+        when(applianceRepository.findSuggestionValues(eq(0L), any(Limit.class)))
+            .thenReturn(List.of(
+                values(1L, 1L, "Kitchen", "Whirlpool", "WDT730"),
+                values(2L, 1L, "Kitchen", "Whirlpool", "WRF555"),
+                values(3L, 1L, "Laundry", "Westinghouse", null),
+                values(5L, 2L, "Garage", "Wen", "W56")));
+        suggestionService.rebuild();
+    }
+
+    @Test
+    void testSuggestsFromAppliancesInUse() {
+        assertThat(suggestionService.suggest(1L, Field.BRAND, "w", null)).containsExactly("Whirlpool", "Westinghouse");
+        assertThat(suggestionService.suggest(1L, Field.MODEL, "wd", null)).containsExactly("WDT730");
+        assertThat(suggestionService.suggest(1L, Field.CATEGORY, "", 1)).containsExactly("Kitchen");
+        assertThat(suggestionService.suggest(1L, Field.CATEGORY, null, 10)).hasSize(2);
+    }
+
+    @Test
+    void testFollowsApplianceChanges() {
+        suggestionService.onApplianceChanged(ApplianceChangedEvent.saved(
+            Appliance.builder().id(1L).userId(1L).name("Washer").category("Laundry").brand("Westinghouse").build()));
+        suggestionService.onApplianceChanged(ApplianceChangedEvent.saved(
+            Appliance.builder().id(4L).userId(2L).name("Dryer").category("Laundry").brand("Westinghouse").build()));
+        suggestionService.onApplianceChanged(ApplianceChangedEvent.deleted(
+            Appliance.builder().id(2L).userId(1L).name("Fridge").build()));
+
+        assertThat(suggestionService.suggest(1L, Field.BRAND, "w", null)).containsExactly("Westinghouse");
+        assertThat(suggestionService.suggest(1L, Field.MODEL, "w", null)).isEmpty();
+        assertThat(suggestionService.suggest(1L, Field.CATEGORY, "", null)).containsExactly("Laundry");
+    }
+
+    @Test
+    void testSuggestsOnlyTheUsersOwnValues() {
+        suggestionService.onApplianceChanged(ApplianceChangedEvent.saved(
+            Appliance.builder().id(6L).userId(2L).name("Freezer").category("Garage").brand("Whirlpool").build()));
+
+        assertThat(suggestionService.suggest(1L, Field.BRAND, "w", null)).containsExactly("Whirlpool", "Westinghouse");
+        assertThat(suggestionService.suggest(1L, Field.MODEL, "w", null)).containsExactly("WDT730", "WRF555");
+        assertThat(suggestionService.suggest(1L, Field.CATEGORY, "g", null)).isEmpty();
+        assertThat(suggestionService.suggest(2L, Field.BRAND, "w", null)).containsExactly("Wen", "Whirlpool");
+        assertThat(suggestionService.suggest(2L, Field.MODEL, "w", null)).containsExactly("W56");
+        assertThat(suggestionService.suggest(2L, Field.CATEGORY, "", null)).containsExactly("Garage");
+        assertThat(suggestionService.suggest(3L, Field.BRAND, "", null)).isEmpty();
+    }
+
+    @Test
+    void testAppliancesMovingOwnerMoveTheirValues() {
+        suggestionService.onApplianceChanged(ApplianceChangedEvent.saved(
+            Appliance.builder().id(5L).userId(1L).name("Saw").category("Garage").brand("Wen").model("W56").build()));
+
+        assertThat(suggestionService.suggest(1L, Field.BRAND, "we", null)).containsExactly("Wen", "Westinghouse");
+        assertThat(suggestionService.suggest(2L, Field.BRAND, "", null)).isEmpty();
+        assertThat(suggestionService.suggest(2L, Field.CATEGORY, "", null)).isEmpty();
+    }
+
+    @Test
+    void testRejectsUnknownFieldAndBadLimit() {
+        assertThat(Field.fromParam(" Model ")).isEqualTo(Field.MODEL);
+        assertThatThrownBy(() -> Field.fromParam("serialNumber")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Field.fromParam(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> suggestionService.suggest(1L, Field.BRAND, "w", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ApplianceSuggestionValues values(Long id, Long userId, String category, String brand, String model) {
+        return new ApplianceSuggestionValues(id, userId, category, brand, model);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.controller.ApplianceController;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.service.ApplianceSuggestionService.Field;
+
+/**
+ * Two application contexts sharing one SQLite file, standing in for two backend nodes: a change made
+ * through one must reach the other's read cache and suggestions within the staleness bound.
+ */
+class CacheInvalidationMultiNodeTest {
+
+    private static final long POLL_MS = 100;
+
+    // Two poll intervals (the writer's and the reader's) plus slack for a slow machine
+    private static final long STALENESS_BOUND_MS = 2 * POLL_MS + 1000;
+
+    private static final int ROUND_TRIPS = 20;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void testChangesOnOneNodeReachTheOther() throws Exception {
+        Path db = tempDir.resolve("caches.db");
+        ConfigurableApplicationContext nodeA = startNode("node-a", db);
+        ConfigurableApplicationContext nodeB = startNode("node-b", db);
+
+        User user = nodeA.getBean(UserService.class).saveUser(User.builder()
+            .name("Multi Node")
+            .email("multi-node@example.com")
+            .password("secret")
+            .build());
+        ApplianceController controllerA = nodeA.getBean(ApplianceController.class);
+        Appliance appliance = (Appliance) controllerA.createAppliance(user.getId(),
+            Appliance.builder().name("Dryer").brand("Brand 0").build()).getBody();
+        ApplianceService serviceB = nodeB.getBean(ApplianceService.class);
+        ApplianceSuggestionService suggestionsB = nodeB.getBean(ApplianceSuggestionService.class);
+        awaitOrFail(() -> brandOnB(serviceB, user.getId()).equals("Brand 0"));
+
+        // Each edit on node A, then node B's cached list reread: how long until B serves the new brand
+        List<Double> roundTripsMs = new ArrayList<>();
+        for (int i = 1; i <= ROUND_TRIPS; i++) {
+            assertEquals("Brand " + (i - 1), brandOnB(serviceB, user.getId()));
+            String brand = "Brand " + i;
+            long start = System.nanoTime();
+            controllerA.patchAppliance(user.getId(), appliance.getId(), Appliance.builder().brand(brand).build());
+            awaitOrFail(() -> brandOnB(serviceB, user.getId()).equals(brand));
+            roundTripsMs.add((System.nanoTime() - start) / 1e6);
+        }
+        assertEquals(List.of("Brand " + ROUND_TRIPS), suggestionsB.suggest(user.getId(), Field.BRAND, "brand", null));
+
+        controllerA.deleteAppliance(user.getId(), appliance.getId());
+        awaitOrFail(() -> serviceB.getAppliance(user.getId(), appliance.getId()).isEmpty());
+        assertTrue(suggestionsB.suggest(user.getId(), Field.BRAND, "brand", null).isEmpty());
+
+        // Typically within two poll intervals; the slowest still inside the bound
+        Collections.sort(roundTripsMs);
+        double p50 = roundTripsMs.get(roundTripsMs.size() / 2);
+        double max = roundTripsMs.get(roundTripsMs.size() - 1);
+        assertTrue(p50 < 3 * POLL_MS, "median round trip " + p50 + " ms");
+        assertTrue(max < STALENESS_BOUND_MS, "slowest round trip " + max + " ms");
+    }
+
+    private static String brandOnB(ApplianceService serviceB, Long userId) {
+        List<Appliance> appliances = serviceB.getAllAppliancesByUser(userId);
+        return appliances.isEmpty() ? "" : appliances.get(0).getBrand();
+    }
+
+    private static void awaitOrFail(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + STALENESS_BOUND_MS * 1_000_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "not seen on the other node within " + STALENESS_BOUND_MS + " ms");
+            Thread.sleep(5);
+        }
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId, Path db) {
+        ConfigurableApplicationContext context = SqliteTestApplication.start(db,
+            "--node.id=" + nodeId,
+            "--appliances.invalidation.transport=change-log",
+            "--appliances.invalidation.poll-ms=" + POLL_MS);
+        nodes.add(context);
+        return context;
+    }
+}
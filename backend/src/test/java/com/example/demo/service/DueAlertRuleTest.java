@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import com.example.demo.SqliteTestApplication;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+import com.example.demo.repository.ApplianceRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * The /alerts view (ApplianceService.getDueAlerts) and the alert run (ApplianceRepository.findDueAlerts)
+ * against Appliance.alertDueOn, on SQLite, for every combination of alert date, status and snooze: both
+ * match it until the run queues the alerts, after which only the view still shows them.
+ */
+class DueAlertRuleTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testAlertsViewAndAlertRunAgreeWithAlertDueOn() {
+        // Arrange
+        context = SqliteTestApplication.start(tempDir.resolve("due.db"));
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ApplianceRepository applianceRepository = context.getBean(ApplianceRepository.class);
+        LocalDate today = LocalDate.now();
+        User owner = userRepository.save(User.builder().name("Owner").email("owner@example.com").password("secret").build());
+
+        List<LocalDate> dates = Arrays.asList(null, today.minusDays(3), today, today.plusDays(3));
+        // PAUSED: a status written before create started rejecting unknown ones, never due
+        List<String> statuses = Arrays.asList(null, "ACTIVE", "SNOOZED", "CANCELLED", "PAUSED");
+        List<Appliance> appliances = new ArrayList<>();
+        for (LocalDate alertDate : dates) {
+            for (String status : statuses) {
+                for (LocalDate snoozeUntil : dates) {
+                    appliances.add(Appliance.builder()
+                        .name(alertDate + " " + status + " " + snoozeUntil)
+                        .userId(owner.getId())
+                        .alertDate(alertDate)
+                        .alertStatus(status)
+                        .snoozeUntil(snoozeUntil)
+                        .build());
+                }
+            }
+        }
+        appliances = applianceRepository.saveAll(appliances);
+        Set<Long> expected = appliances.stream()
+            .filter(appliance -> appliance.alertDueOn(today))
+            .map(Appliance::getId)
+            .collect(Collectors.toSet());
+
+        // Act
+        Set<Long> alertsView = dueAlertIds(owner);
+        Set<Long> alertRun = applianceRepository.findDueAlerts(today, null, 0L, Limit.of(appliances.size())).stream()
+            .map(Appliance::getId)
+            .collect(Collectors.toSet());
+
+        // Assert
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, alertsView);
+        assertEquals(expected, alertRun);
+
+        // Act & Assert: once queued, the alerts stay in the view but leave the run's query
+        context.getBean(AlertSchedulerService.class).checkAndSendAlerts();
+        assertEquals(expected, dueAlertIds(owner));
+        assertEquals(List.of(), applianceRepository.findDueAlerts(today, null, 0L, Limit.of(appliances.size())));
+    }
+
+    private Set<Long> dueAlertIds(User owner) {
+        return context.getBean(ApplianceService.class).getDueAlerts(owner.getId()).stream()
+            .map(Appliance::getId)
+            .collect(Collectors.toSet());
+    }
+}
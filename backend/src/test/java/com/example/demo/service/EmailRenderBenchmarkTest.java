@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+
+/**
+ * Render cost per alert email (subject, plain text and HTML), so template changes that slow down
+ * large alert runs show up. Not part of the normal build; run with {@code mvn test -Pbenchmark}.
+ * The per-email budget can be raised with {@code -Dbenchmark.render.max-micros=...} on slow machines.
+ */
+@Tag("benchmark")
+class EmailRenderBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ALERTS = 100_000;
+    private static final int DIGESTS = 10_000;
+    private static final int DIGEST_SIZE = 10;
+
+    @Test
+    void benchmarkRender() throws Exception {
+        EmailService emailService = new EmailService(mock(JavaMailSender.class), new AlertProperties(), new MailTemplates());
+        User user = User.builder().id(1L).name("Jane Smith").email("jane@example.com").build();
+        User spanishUser = User.builder().id(2L).name("Ana").email("ana@example.com").locale("es").build();
+        List<Appliance> appliances = new ArrayList<>();
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            appliances.add(Appliance.builder()
+                .id((long) i)
+                .name("Appliance " + i)
+                .description("Replace the filter & check the seals")
+                .brand("Bosch")
+                .model("SHX" + i)
+                .purchaseDate(LocalDate.now().minusMonths(i * 3).toString())
+                .warrantyMonths(24)
+                .alertDate(LocalDate.now().plusMonths(1))
+                .recurringInterval("MONTHLY")
+                .build());
+        }
+        LocalDate overdue = LocalDate.now().minusMonths(2);
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += emailService.buildMaintenanceAlert(user, appliances.get(i % DIGEST_SIZE), overdue, 1).html().length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ALERTS; i++) {
+            User recipient = i % 2 == 0 ? user : spanishUser;
+            AlertEmail email = emailService.buildMaintenanceAlert(recipient, appliances.get(i % DIGEST_SIZE), overdue, i % 3);
+            checksum += email.text().length() + email.html().length();
+        }
+        double alertMicros = (System.nanoTime() - start) / 1000.0 / ALERTS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < DIGESTS; i++) {
+            checksum += emailService.buildMaintenanceDigest(user, appliances).html().length();
+        }
+        double digestMicros = (System.nanoTime() - start) / 1000.0 / DIGESTS;
+
+        System.out.printf("Alert email render: %.2f us/email (%d emails); %d-appliance digest: %.2f us/email (%d emails) [checksum %d]%n",
+            alertMicros, ALERTS, DIGEST_SIZE, digestMicros, DIGESTS, checksum);
+
+        double budget = Double.parseDouble(System.getProperty("benchmark.render.max-micros", "50"));
+        assertTrue(alertMicros < budget, "Alert render took " + alertMicros + " us per email, budget " + budget);
+        assertTrue(digestMicros < budget * DIGEST_SIZE / 2, "Digest render took " + digestMicros + " us per email");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.example.demo.config.AlertProperties;
+import com.example.demo.model.Appliance;
+import com.example.demo.model.User;
+
+/**
+ * EmailService over a real SMTP conversation, against {@link FakeSmtpServer}.
+ */
+class EmailServiceSmtpTest {
+
+    private FakeSmtpServer smtpServer;
+    private AlertProperties alertProperties;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "300");
+        mailSender.setJavaMailProperties(properties);
+
+        alertProperties = new AlertProperties();
+        emailService = new EmailService(mailSender, alertProperties, new MailTemplates());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtpServer.close();
+    }
+
+    @Test
+    void testSendAll_BatchGoesOverOneConnectionAsMultipart() {
+        // Act
+        List<Exception> failures = emailService.sendAll(alerts(3));
+
+        // Assert
+        assertEquals(List.of(), failures.stream().filter(failure -> failure != null).toList());
+        assertEquals(3, smtpServer.receivedCount());
+        assertEquals(1, smtpServer.connectionCount());
+        FakeSmtpServer.Received first = smtpServer.getReceived().get(0);
+        assertEquals("user0@example.com", first.recipient());
+        assertTrue(first.data().contains("multipart/alternative"));
+        assertTrue(first.data().contains("text/html"));
+    }
+
+    @Test
+    void testSendAll_RejectedRecipientsFailIndividually() {
+        // Arrange
+        smtpServer.setRejectRate(0.5);
+
+        // Act
+        List<Exception> failures = emailService.sendAll(alerts(10));
+
+        // Assert - the rest of the batch still goes out over the same connection
+        long failed = failures.stream().filter(failure -> failure != null).count();
+        assertTrue(failed > 0 && failed < 10, "Expected some but not all of the batch rejected, got " + failed);
+        assertEquals(smtpServer.rejectedCount(), failed);
+        assertEquals(10 - failed, smtpServer.receivedCount());
+        assertEquals(MailCircuitBreaker.State.CLOSED, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_EveryRecipientRejectedKeepsCircuitClosed() {
+        // Arrange
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        smtpServer.setRejectRate(1);
+
+        // Act
+        emailService.sendAll(alerts(3));
+        List<Exception> failures = emailService.sendAll(alerts(3));
+
+        // Assert - every message failed on its own, over a connection that worked
+        assertTrue(failures.stream().allMatch(failure -> failure != null
+            && !(failure instanceof MailCircuitBreaker.CircuitOpenException)));
+        assertEquals(MailCircuitBreaker.State.CLOSED, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_ServerDownOpensCircuitAndStopsConnecting() {
+        // Arrange
+        alertProperties.getMailBreaker().setFailureThreshold(2);
+        smtpServer.setRefuseConnections(true);
+        emailService.sendAll(alerts(1));
+        emailService.sendAll(alerts(1));
+        int connectionsBeforeOpen = smtpServer.connectionCount();
+
+        // Act
+        List<Exception> failures = emailService.sendAll(alerts(2));
+
+        // Assert
+        assertTrue(failures.stream().allMatch(MailCircuitBreaker.CircuitOpenException.class::isInstance));
+        assertEquals(connectionsBeforeOpen, smtpServer.connectionCount());
+    }
+
+    @Test
+    void testSendAll_StalledServerFailsAtReadTimeout() {
+        // Arrange - every reply takes longer than mail.smtp.timeout
+        smtpServer.setReplyDelayMillis(1000);
+
+        // Act
+        long start = System.nanoTime();
+        List<Exception> failures = emailService.sendAll(alerts(1));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertNotNull(failures.get(0));
+        assertTrue(elapsedMillis < 1000, "Send should give up at the read timeout, took " + elapsedMillis + " ms");
+        assertEquals(0, smtpServer.receivedCount());
+    }
+
+    private List<AlertEmail> alerts(int count) {
+        List<AlertEmail> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = User.builder().id((long) i).name("User " + i).email("user" + i + "@example.com").build();
+            Appliance appliance = Appliance.builder().id((long) i).name("Appliance " + i).build();
+            emails.add(emailService.buildMaintenanceAlert(user, appliance, null, 0));
+        }
+        return emails;
+    }
+}
@@ -1,19 +1,38 @@
 package com.example.demo.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
+import java.net.SocketTimeoutException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import com.example.demo.config.AlertProperties;
 import com.example.demo.model.Appliance;
 import com.example.demo.model.User;
 
@@ -22,16 +41,20 @@ class EmailServiceTest {
     @Mock
     private JavaMailSender mailSender;
 
-    @InjectMocks
+    private AlertProperties alertProperties;
+
     private EmailService emailService;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
+        alertProperties = new AlertProperties();
+        emailService = new EmailService(mailSender, alertProperties, new MailTemplates());
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
     }
 
     @Test
-    void testSendMaintenanceAlert() {
+    void testSendAll_MaintenanceAlert() {
         // Arrange
         User testUser = User.builder()
             .id(1L)
@@ -46,38 +69,15 @@ class EmailServiceTest {
             .build();
 
         // Act
-        emailService.sendMaintenanceAlert(testUser, testAppliance);
+        List<Exception> failures = emailService.sendAll(List.of(emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0)));
 
         // Assert
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        assertEquals(Arrays.asList((Exception) null), failures);
     }
 
     @Test
-    void testSendMaintenanceAlert_HandlesException() {
-        // Arrange
-        User testUser = User.builder()
-            .id(1L)
-            .name("John Doe")
-            .email("invalid-email")
-            .build();
-
-        Appliance testAppliance = Appliance.builder()
-            .id(1L)
-            .name("Refrigerator")
-            .build();
-
-        doThrow(new RuntimeException("Mail server error"))
-            .when(mailSender).send(any(SimpleMailMessage.class));
-
-        // Act - should not throw exception due to try-catch
-        emailService.sendMaintenanceAlert(testUser, testAppliance);
-
-        // Assert
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
-    }
-
-    @Test
-    void testSendMaintenanceAlert_EmailContentCorrect() {
+    void testSendAll_MaintenanceAlertContentCorrect() throws Exception {
         // Arrange
         User testUser = User.builder()
             .id(1L)
@@ -91,18 +91,14 @@ class EmailServiceTest {
             .description("Front-load washer in laundry room")
             .build();
 
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-
         // Act
-        emailService.sendMaintenanceAlert(testUser, testAppliance);
+        emailService.sendAll(List.of(emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0)));
 
         // Assert
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
+        MimeMessage sentMessage = sentMessage();
 
         // Verify email recipient
-        assertTrue(sentMessage.getTo()[0].equals("jane@example.com"),
+        assertTrue(sentMessage.getAllRecipients()[0].toString().equals("jane@example.com"),
             "Email should be sent to user's email");
 
         // Verify subject contains appliance name
@@ -112,7 +108,7 @@ class EmailServiceTest {
             "Subject should mention maintenance alert");
 
         // Verify message body contains user name and appliance details
-        String messageText = sentMessage.getText();
+        String messageText = textOf(sentMessage);
         assertTrue(messageText.contains("Jane Smith"),
             "Message should contain user's name");
         assertTrue(messageText.contains("Washing Machine"),
@@ -122,7 +118,7 @@ class EmailServiceTest {
     }
 
     @Test
-    void testSendMaintenanceAlert_WithNullDescription() {
+    void testSendAll_MaintenanceAlertWithNullDescription() throws Exception {
         // Arrange - Test that email works even when description is null/empty
         User testUser = User.builder()
             .id(1L)
@@ -136,23 +132,19 @@ class EmailServiceTest {
             .description(null) // No description provided
             .build();
 
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-
         // Act
-        emailService.sendMaintenanceAlert(testUser, testAppliance);
+        emailService.sendAll(List.of(emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0)));
 
         // Assert
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
+        MimeMessage sentMessage = sentMessage();
 
         // Verify email is still sent with valid content
-        assertTrue(sentMessage.getTo()[0].equals("bob@example.com"),
+        assertTrue(sentMessage.getAllRecipients()[0].toString().equals("bob@example.com"),
             "Email should be sent even without description");
         assertTrue(sentMessage.getSubject().contains("Microwave"),
             "Subject should contain appliance name");
 
-        String messageText = sentMessage.getText();
+        String messageText = textOf(sentMessage);
         assertTrue(messageText.contains("Bob Johnson"),
             "Message should contain user's name");
         assertTrue(messageText.contains("Microwave"),
@@ -161,4 +153,349 @@ class EmailServiceTest {
         assertTrue(!messageText.contains("Description: null"),
             "Message should not show 'Description: null'");
     }
+
+    @Test
+    void testBuildMaintenanceDigest_ListsAllAppliances() throws Exception {
+        // Arrange
+        User testUser = User.builder()
+            .id(1L)
+            .name("Jane Smith")
+            .email("jane@example.com")
+            .build();
+
+        Appliance washer = Appliance.builder()
+            .id(1L)
+            .name("Washing Machine")
+            .description("Clean the lint trap")
+            .build();
+
+        Appliance dryer = Appliance.builder()
+            .id(2L)
+            .name("Dryer")
+            .build();
+
+        // Act
+        emailService.sendAll(List.of(emailService.buildMaintenanceDigest(testUser, Arrays.asList(washer, dryer))));
+
+        // Assert - one message covering both appliances
+        MimeMessage sentMessage = sentMessage();
+        assertTrue(sentMessage.getAllRecipients()[0].toString().equals("jane@example.com"),
+            "Digest should be sent to user's email");
+        assertTrue(sentMessage.getSubject().contains("2 appliances"),
+            "Subject should mention the number of appliances");
+
+        String messageText = textOf(sentMessage);
+        assertTrue(messageText.contains("Jane Smith"),
+            "Message should contain user's name");
+        assertTrue(messageText.contains("Washing Machine: Clean the lint trap"),
+            "Message should list the first appliance with its description");
+        assertTrue(messageText.contains("- Dryer"),
+            "Message should list the second appliance");
+    }
+
+    @Test
+    void testBuildMaintenanceAlert_OverdueNoticeMentionsSkippedReminders() throws Exception {
+        // Arrange - a monthly alert that caught up over three missed months
+        User testUser = User.builder()
+            .id(1L)
+            .name("John Doe")
+            .email("john@example.com")
+            .build();
+
+        LocalDate nextAlertDate = LocalDate.now().plusDays(10);
+        Appliance testAppliance = Appliance.builder()
+            .id(1L)
+            .name("Water Heater")
+            .alertDate(nextAlertDate)
+            .recurringInterval("MONTHLY")
+            .build();
+        LocalDate dueDate = nextAlertDate.minusMonths(4);
+
+        // Act
+        emailService.sendAll(List.of(emailService.buildMaintenanceAlert(testUser, testAppliance, dueDate, 3)));
+
+        // Assert
+        String messageText = textOf(sentMessage());
+        assertTrue(messageText.contains("overdue: it was due on " + dueDate),
+            "Message should say when the alert was due");
+        assertTrue(messageText.contains("3 later reminders were skipped; the next one is on " + nextAlertDate),
+            "Message should mention the skipped reminders and the next date");
+    }
+
+    @Test
+    void testSendAll_SendsEveryMessageInOneCall() {
+        // Arrange
+        List<AlertEmail> messages = List.of(message("a@example.com"), message("b@example.com"));
+
+        // Act
+        List<Exception> failures = emailService.sendAll(messages);
+
+        // Assert - one send call, so one SMTP connection for the batch
+        ArgumentCaptor<MimeMessage[]> batchCaptor = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(1)).send(batchCaptor.capture());
+        assertEquals(2, batchCaptor.getValue().length);
+        assertEquals(Arrays.asList(null, null), failures);
+    }
+
+    @Test
+    void testSendAll_ReportsFailuresPerMessage() {
+        // Arrange - the server rejects the second recipient only
+        Exception rejection = new MessagingException("550 Mailbox unavailable");
+        rejectSecondMessage(rejection);
+
+        // Act
+        List<Exception> failures = emailService.sendAll(List.of(message("a@example.com"), message("b@example.com")));
+
+        // Assert
+        assertNull(failures.get(0));
+        assertSame(rejection, failures.get(1));
+    }
+
+    @Test
+    void testSendAll_ConnectionFailureFailsEveryMessage() {
+        // Arrange
+        MailAuthenticationException refused = new MailAuthenticationException("Authentication failed");
+        doThrow(refused).when(mailSender).send(any(MimeMessage[].class));
+
+        // Act
+        List<Exception> failures = emailService.sendAll(List.of(message("a@example.com"), message("b@example.com")));
+
+        // Assert
+        assertEquals(List.of(refused, refused), failures);
+    }
+
+    @Test
+    void testSendAll_CircuitOpensAfterConsecutiveFailures() {
+        // Arrange - the server is down for every attempt
+        alertProperties.getMailBreaker().setFailureThreshold(3);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+        for (int i = 0; i < 3; i++) {
+            emailService.sendAll(List.of(message("a@example.com")));
+        }
+
+        // Act
+        List<Exception> failures = emailService.sendAll(List.of(message("b@example.com"), message("c@example.com")));
+
+        // Assert - refused straight away, without another connection attempt
+        verify(mailSender, times(3)).send(any(MimeMessage[].class));
+        assertTrue(failures.stream().allMatch(MailCircuitBreaker.CircuitOpenException.class::isInstance));
+        assertTrue(emailService.isTransportRefusing());
+        assertEquals(MailCircuitBreaker.State.OPEN, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_PartialSuccessKeepsCircuitClosed() {
+        // Arrange - a rejected recipient says nothing about the transport
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        rejectSecondMessage(new MessagingException("550 Mailbox unavailable"));
+
+        // Act
+        emailService.sendAll(List.of(message("a@example.com"), message("b@example.com")));
+
+        // Assert
+        assertEquals(MailCircuitBreaker.State.CLOSED, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_RejectedRecipientsKeepCircuitClosed() {
+        // Arrange - the server answers every message with a rejection, batch after batch
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        SendFailedException rejection = new SendFailedException("550 Mailbox unavailable");
+        rejectEveryMessage(rejection);
+
+        // Act
+        emailService.sendAll(List.of(message("a@example.com"), message("b@example.com")));
+        List<Exception> failures = emailService.sendAll(List.of(message("c@example.com")));
+
+        // Assert - each message fails on its own, for the outbox to retry; the transport is fine
+        assertEquals(List.of(rejection), failures);
+        assertEquals(MailCircuitBreaker.State.CLOSED, emailService.getTransportStatus().state());
+        assertEquals(0, emailService.getTransportStatus().consecutiveFailures());
+    }
+
+    @Test
+    void testSendAll_ConnectFailureOpensCircuit() {
+        // Arrange - as JavaMailSenderImpl reports a server turning the connection away: listed against
+        // every message of the batch, with the connect error as the cause
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        MessagingException greeting = new MessagingException("Got bad greeting from SMTP host: 421 Service not available");
+        doAnswer(invocation -> {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (Object message : (MimeMessage[]) invocation.getRawArguments()[0]) {
+                failed.put(message, greeting);
+            }
+            throw new MailSendException("Mail server connection failed", greeting, failed);
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        // Act
+        emailService.sendAll(List.of(message("a@example.com"), message("b@example.com")));
+
+        // Assert
+        assertEquals(MailCircuitBreaker.State.OPEN, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_TimeoutCountsAsTransportFailure() {
+        // Arrange
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        rejectEveryMessage(new MessagingException("Read timed out", new SocketTimeoutException("Read timed out")));
+
+        // Act
+        emailService.sendAll(List.of(message("a@example.com")));
+
+        // Assert
+        assertEquals(MailCircuitBreaker.State.OPEN, emailService.getTransportStatus().state());
+    }
+
+    @Test
+    void testSendAll_HalfOpenProbeClosesCircuit() {
+        // Arrange - open with no wait, so the next send is the half-open probe
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        alertProperties.getMailBreaker().setOpenMs(0);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+        emailService.sendAll(List.of(message("a@example.com")));
+        doNothing().when(mailSender).send(any(MimeMessage[].class));
+
+        // Act
+        List<Exception> failures = emailService.sendAll(List.of(message("a@example.com")));
+
+        // Assert
+        assertNull(failures.get(0));
+        assertEquals(MailCircuitBreaker.State.CLOSED, emailService.getTransportStatus().state());
+        assertEquals(0, emailService.getTransportStatus().consecutiveFailures());
+    }
+
+    @Test
+    void testSendAll_FailedProbeReopensCircuit() {
+        // Arrange
+        alertProperties.getMailBreaker().setFailureThreshold(1);
+        alertProperties.getMailBreaker().setOpenMs(0);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+        emailService.sendAll(List.of(message("a@example.com")));
+        alertProperties.getMailBreaker().setOpenMs(60000);
+
+        // Act - the probe fails too
+        emailService.sendAll(List.of(message("a@example.com")));
+
+        // Assert - open again for a full period
+        verify(mailSender, times(2)).send(any(MimeMessage[].class));
+        assertTrue(emailService.isTransportRefusing());
+    }
+
+    @Test
+    void testBuildMaintenanceAlert_HtmlShowsDetailsWarrantyAndSnoozeLinks() {
+        // Arrange
+        alertProperties.setAppUrl("https://myappliancelogbook.com");
+        User testUser = User.builder().id(1L).name("Jane Smith").email("jane@example.com").build();
+        Appliance testAppliance = Appliance.builder()
+            .id(7L)
+            .name("Dishwasher <Bosch>")
+            .brand("Bosch")
+            .purchaseDate(LocalDate.now().minusMonths(6).toString())
+            .warrantyMonths(24)
+            .build();
+
+        // Act
+        AlertEmail email = emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0);
+
+        // Assert
+        assertEquals("jane@example.com", email.to());
+        assertEquals("Maintenance Alert: Dishwasher <Bosch>", email.subject());
+        assertTrue(email.html().contains("Dishwasher &lt;Bosch&gt;"), "HTML should escape appliance fields");
+        assertTrue(email.html().contains("Covered until " + LocalDate.now().plusMonths(18)));
+        assertTrue(email.html().contains("https://myappliancelogbook.com/list/appliances/7/view?snooze=7"));
+        assertTrue(email.text().contains("Warranty: covered until " + LocalDate.now().plusMonths(18)));
+        assertFalse(email.html().contains("{{"), "Every tag should be rendered");
+    }
+
+    @Test
+    void testBuildMaintenanceAlert_UsesUserLocaleWithFallback() {
+        // Arrange - es-MX has no variant of its own, so it gets the Spanish one
+        User testUser = User.builder().id(1L).name("Ana").email("ana@example.com").locale("es-MX").build();
+        Appliance testAppliance = Appliance.builder().id(1L).name("Horno").build();
+
+        // Act
+        AlertEmail email = emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0);
+
+        // Assert
+        assertEquals("Aviso de mantenimiento: Horno", email.subject());
+        assertTrue(email.text().startsWith("Hola Ana:"));
+        assertTrue(email.html().contains("lang=\"es\""));
+    }
+
+    @Test
+    void testSendAll_MaintenanceAlertHasPlainTextAndHtmlParts() throws Exception {
+        // Arrange
+        User testUser = User.builder().id(1L).name("John Doe").email("john@example.com").build();
+        Appliance testAppliance = Appliance.builder().id(1L).name("Refrigerator").build();
+
+        // Act
+        emailService.sendAll(List.of(emailService.buildMaintenanceAlert(testUser, testAppliance, null, 0)));
+
+        // Assert
+        MimeMessage sentMessage = sentMessage();
+        assertTrue(partOf(sentMessage, "text/plain").contains("Appliance: Refrigerator"));
+        assertTrue(partOf(sentMessage, "text/html").contains("<h2"));
+    }
+
+    private void rejectSecondMessage(Exception rejection) {
+        doAnswer(invocation -> {
+            MimeMessage[] batch = (MimeMessage[]) invocation.getRawArguments()[0];
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            failed.put(batch[1], rejection);
+            throw new MailSendException(failed);
+        }).when(mailSender).send(any(MimeMessage[].class));
+    }
+
+    private void rejectEveryMessage(Exception failure) {
+        doAnswer(invocation -> {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (Object message : (MimeMessage[]) invocation.getRawArguments()[0]) {
+                failed.put(message, failure);
+            }
+            throw new MailSendException(failed);
+        }).when(mailSender).send(any(MimeMessage[].class));
+    }
+
+    /**
+     * The only message of the only batch sent.
+     */
+    private MimeMessage sentMessage() {
+        ArgumentCaptor<MimeMessage[]> batchCaptor = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(1)).send(batchCaptor.capture());
+        assertEquals(1, batchCaptor.getValue().length);
+        return batchCaptor.getValue()[0];
+    }
+
+    private static AlertEmail message(String to) {
+        return new AlertEmail(to, "Maintenance Alert", "Hello", null);
+    }
+
+    private static String textOf(MimeMessage message) throws Exception {
+        return partOf(message, "text/plain");
+    }
+
+    private static String partOf(MimeMessage message, String mimeType) throws Exception {
+        // Fills in the Content-Type headers, as sending would
+        message.saveChanges();
+        return partOf((Part) message, mimeType);
+    }
+
+    /**
+     * Content of the first body part of the given type, searching nested multiparts.
+     */
+    private static String partOf(Part part, String mimeType) throws Exception {
+        if (part.isMimeType(mimeType)) {
+            return (String) part.getContent();
+        }
+        if (part.getContent() instanceof Multipart multipart) {
+            for (int i = 0; i < multipart.getCount(); i++) {
+                String content = partOf(multipart.getBodyPart(i), mimeType);
+                if (content != null) {
+                    return content;
+                }
+            }
+        }
+        return null;
+    }
 }
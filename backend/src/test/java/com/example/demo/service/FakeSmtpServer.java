@@ -0,0 +1,212 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process SMTP sink for tests and benchmarks. Speaks just enough SMTP for JavaMail (EHLO, MAIL,
+ * RCPT, DATA, RSET, NOOP, QUIT), accepts everything by default and can be told to:
+ * <ul>
+ *   <li>delay every reply, standing in for network and server latency ({@link #setReplyDelayMillis})</li>
+ *   <li>reject a share of recipients with a 550, picked by a seeded random so runs repeat ({@link #setRejectRate})</li>
+ *   <li>turn connections away with a 421, as a server that is down would ({@link #setRefuseConnections})</li>
+ * </ul>
+ * It records each accepted message and how long its transaction took, from MAIL FROM to the reply
+ * accepting the data.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    /**
+     * An accepted message: its recipient, the raw data (if kept) and its transaction time.
+     */
+    public record Received(String recipient, String data, long transactionNanos) {
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Received> received = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Random random = new Random(42);
+
+    private volatile long replyDelayMillis;
+    private volatile double rejectRate;
+    private volatile boolean refuseConnections;
+    private volatile boolean keepData = true;
+
+    public FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void setReplyDelayMillis(long replyDelayMillis) {
+        this.replyDelayMillis = replyDelayMillis;
+    }
+
+    public void setRejectRate(double rejectRate) {
+        this.rejectRate = rejectRate;
+    }
+
+    public void setRefuseConnections(boolean refuseConnections) {
+        this.refuseConnections = refuseConnections;
+    }
+
+    /**
+     * Whether to keep each message's raw data; turn off for large runs that only count messages.
+     */
+    public void setKeepData(boolean keepData) {
+        this.keepData = keepData;
+    }
+
+    public List<Received> getReceived() {
+        synchronized (received) {
+            return new ArrayList<>(received);
+        }
+    }
+
+    public int receivedCount() {
+        return received.size();
+    }
+
+    public int rejectedCount() {
+        return rejected.get();
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    public void reset() {
+        received.clear();
+        rejected.set(0);
+        connectionCount.set(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        connectionCount.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+            if (refuseConnections) {
+                reply(out, "421 Service not available");
+                return;
+            }
+            reply(out, "220 fake-smtp ready");
+
+            String recipient = null;
+            long transactionStart = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-fake-smtp\r\n250-8BITMIME\r\n250 SIZE 10485760");
+                } else if (command.startsWith("HELO")) {
+                    reply(out, "250 fake-smtp");
+                } else if (command.startsWith("MAIL FROM")) {
+                    transactionStart = System.nanoTime();
+                    recipient = null;
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO")) {
+                    if (rejectRate > 0 && nextRandom() < rejectRate) {
+                        rejected.incrementAndGet();
+                        reply(out, "550 Mailbox unavailable");
+                    } else {
+                        recipient = line.substring(line.indexOf(':') + 1).trim().replaceAll("[<>]", "");
+                        reply(out, "250 OK");
+                    }
+                } else if (command.equals("DATA")) {
+                    if (recipient == null) {
+                        reply(out, "503 No valid recipients");
+                        continue;
+                    }
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    String data = readData(in);
+                    reply(out, "250 OK queued");
+                    received.add(new Received(recipient, keepData ? data : null, System.nanoTime() - transactionStart));
+                    recipient = null;
+                } else if (command.startsWith("RSET")) {
+                    recipient = null;
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private String readData(BufferedReader in) throws IOException {
+        StringBuilder data = keepData ? new StringBuilder() : null;
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            if (data != null) {
+                // Undo dot-stuffing
+                data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+            }
+        }
+        return data == null ? null : data.toString();
+    }
+
+    private synchronized double nextRandom() {
+        return random.nextDouble();
+    }
+
+    private void reply(OutputStream out, String response) throws IOException {
+        long delay = replyDelayMillis;
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
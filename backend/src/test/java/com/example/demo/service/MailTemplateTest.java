@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MailTemplateTest {
+
+    @Test
+    void testRender_VariablesAndMissingValues() {
+        MailTemplate template = MailTemplate.compile("t.txt", "Hello {{name}}, {{ missing }}!", false);
+
+        assertEquals("Hello Jane, !", template.render(Map.of("name", "Jane")));
+    }
+
+    @Test
+    void testRender_SectionsOnlyForPresentValues() {
+        MailTemplate template = MailTemplate.compile("t.txt",
+            "{{#overdue}}Overdue since {{dueDate}}.{{/overdue}}{{^overdue}}On time.{{/overdue}}", false);
+
+        assertEquals("Overdue since 2026-01-01.", template.render(Map.of("overdue", true, "dueDate", "2026-01-01")));
+        assertEquals("On time.", template.render(Map.of("overdue", false)));
+        assertEquals("On time.", template.render(Map.of()));
+    }
+
+    @Test
+    void testRender_ListSectionRepeatsWithItemInScope() {
+        MailTemplate template = MailTemplate.compile("t.txt",
+            "{{#items}}- {{name}} for {{user}}\n{{/items}}", false);
+        Map<String, Object> model = new HashMap<>();
+        model.put("user", "Jane");
+        model.put("items", List.of(Map.of("name", "Washer"), Map.of("name", "Dryer")));
+
+        assertEquals("- Washer for Jane\n- Dryer for Jane\n", template.render(model));
+    }
+
+    @Test
+    void testRender_HtmlTemplatesEscapeValues() {
+        MailTemplate html = MailTemplate.compile("t.html", "<b>{{name}}</b>", true);
+        MailTemplate text = MailTemplate.compile("t.txt", "{{name}}", false);
+
+        assertEquals("<b>Fridge &lt;&amp;&gt; &quot;Ice&quot;</b>", html.render(Map.of("name", "Fridge <&> \"Ice\"")));
+        assertEquals("Fridge <&>", text.render(Map.of("name", "Fridge <&>")));
+    }
+
+    @Test
+    void testRender_ReusedBufferDoesNotLeakBetweenRenders() {
+        MailTemplate template = MailTemplate.compile("t.txt", "{{name}}", false);
+
+        assertEquals("A much longer first value", template.render(Map.of("name", "A much longer first value")));
+        assertEquals("B", template.render(Map.of("name", "B")));
+    }
+
+    @Test
+    void testCompile_RejectsUnbalancedSections() {
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.txt", "{{#a}}x", false));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.txt", "{{#a}}x{{/b}}", false));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("t.txt", "{{name", false));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+
+    @Test
+    void testCompletesMostUsedFirstIgnoringCase() {
+        PrefixIndex index = new PrefixIndex(10);
+        add(index, "Whirlpool");
+        add(index, "whirlpool ");
+        add(index, "Westinghouse");
+        add(index, "LG");
+        add(index, "Whirlpool");
+
+        assertThat(index.complete("W", 10)).containsExactly("Whirlpool", "Westinghouse");
+        assertThat(index.complete("whi", 10)).containsExactly("Whirlpool");
+        assertThat(index.complete("", 1)).containsExactly("Whirlpool");
+        assertThat(index.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    void testShowsMostUsedSpelling() {
+        PrefixIndex index = new PrefixIndex(10);
+        add(index, "kitchenaid");
+        String kitchenAid = add(index, "KitchenAid");
+        add(index, "KitchenAid");
+
+        assertThat(index.complete("k", 10)).containsExactly("KitchenAid");
+
+        index.remove(kitchenAid);
+        index.remove(kitchenAid);
+        assertThat(index.complete("k", 10)).containsExactly("kitchenaid");
+    }
+
+    @Test
+    void testRemovalsMoveCountsAndDropUnusedValues() {
+        PrefixIndex index = new PrefixIndex(10);
+        String bosch = add(index, "Bosch");
+        add(index, "Bosch");
+        String brita = add(index, "Brita");
+
+        index.remove(bosch);
+        add(index, "Brita");
+        assertThat(index.complete("b", 10)).containsExactly("Brita", "Bosch");
+
+        index.remove(bosch);
+        index.remove(brita);
+        assertThat(index.complete("b", 10)).containsExactly("Brita");
+        assertThat(index.complete("bo", 10)).isEmpty();
+        assertThat(index.isEmpty()).isFalse();
+
+        index.remove(brita);
+        assertThat(index.complete("", 10)).isEmpty();
+        assertThat(index.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testBlankValuesCountAsNone() {
+        assertThat(PrefixIndex.spelling(" Miele ")).isEqualTo("Miele");
+        assertThat(PrefixIndex.spelling(" ")).isNull();
+        assertThat(PrefixIndex.spelling(null)).isNull();
+    }
+
+    @Test
+    void testAgreesWithCountingUnderRandomChanges() {
+        PrefixIndex index = new PrefixIndex(3);
+        Map<Long, String> values = new HashMap<>();
+        Random random = new Random(42);
+        String[] names = {"GE", "Ge", "Gaggenau", "Galanz", "Frigidaire", "Fisher", "Fisher & Paykel", "Maytag", "Miele", "Midea"};
+
+        for (long id = 1; id <= 1000; id++) {
+            String value = names[random.nextInt(names.length)];
+            index.add(value, false);
+            values.put(id, value);
+        }
+        index.rankAll();
+        for (int step = 0; step < 5000; step++) {
+            long id = 1 + random.nextInt(3000);
+            String value = random.nextInt(5) == 0 ? null : names[random.nextInt(names.length)];
+            String previous = values.put(id, value);
+            if (previous != null) {
+                index.remove(previous);
+            }
+            if (value != null) {
+                index.add(value, true);
+            }
+        }
+
+        for (String prefix : List.of("", "g", "ga", "f", "fisher", "m", "mi", "z")) {
+            assertThat(index.complete(prefix, 3)).as("prefix '%s'", prefix).isEqualTo(expected(values, prefix, 3));
+        }
+    }
+
+    private static String add(PrefixIndex index, String value) {
+        return index.add(PrefixIndex.spelling(value), true);
+    }
+
+    // Counts by lower-cased value; shows the most used spelling
+    private static List<String> expected(Map<Long, String> values, String prefix, int limit) {
+        Map<String, Integer> totals = new HashMap<>();
+        Map<String, Map<String, Integer>> spellings = new HashMap<>();
+        values.entrySet().stream()
+            .filter(entry -> entry.getValue() != null)
+            .forEach(entry -> {
+                String key = entry.getValue().toLowerCase(Locale.ROOT);
+                totals.merge(key, 1, Integer::sum);
+                spellings.computeIfAbsent(key, k -> new HashMap<>()).merge(entry.getValue(), 1, Integer::sum);
+            });
+        List<String> keys = new ArrayList<>(totals.keySet().stream().filter(key -> key.startsWith(prefix)).toList());
+        keys.sort(Comparator.comparing((String key) -> -totals.get(key)).thenComparing(key -> key));
+        return keys.stream()
+            .limit(limit)
+            .map(key -> spellings.get(key).entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElseThrow())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.Appliance;
+
+class RecurrenceCalculatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Test
+    void testNextOccurrence_MonthlyFarBehind() {
+        LocalDate anchor = LocalDate.of(2023, 1, 15);
+
+        assertEquals(LocalDate.of(2026, 3, 15), RecurrenceCalculator.nextOccurrence("MONTHLY", null, anchor, TODAY));
+        assertEquals(37, RecurrenceCalculator.missedOccurrences("MONTHLY", null, anchor, TODAY));
+    }
+
+    @Test
+    void testNextOccurrence_MonthlyOnTheSameDayMovesToNextMonth() {
+        LocalDate anchor = LocalDate.of(2025, 3, 10);
+
+        assertEquals(LocalDate.of(2026, 4, 10), RecurrenceCalculator.nextOccurrence("MONTHLY", null, anchor, TODAY));
+        assertEquals(12, RecurrenceCalculator.missedOccurrences("MONTHLY", null, anchor, TODAY));
+    }
+
+    @Test
+    void testNextOccurrence_MonthEndAnchorDoesNotDrift() {
+        // Jan 31 + k months stays on the last day of each month instead of sticking to the 28th
+        LocalDate anchor = LocalDate.of(2025, 1, 31);
+
+        assertEquals(LocalDate.of(2025, 2, 28), RecurrenceCalculator.nextOccurrence("MONTHLY", null, anchor, LocalDate.of(2025, 2, 1)));
+        assertEquals(LocalDate.of(2025, 3, 31), RecurrenceCalculator.nextOccurrence("MONTHLY", null, anchor, LocalDate.of(2025, 2, 28)));
+    }
+
+    @Test
+    void testNextOccurrence_SuccessiveRunsCountFromTheAnchor() {
+        // Each run moves alertDate to the next occurrence, as AlertSchedulerService does; the anchor stays
+        Appliance appliance = Appliance.builder()
+            .alertDate(LocalDate.of(2025, 1, 31))
+            .recurrenceAnchor(LocalDate.of(2025, 1, 31))
+            .recurringInterval("MONTHLY")
+            .build();
+
+        appliance.setAlertDate(RecurrenceCalculator.nextOccurrence(appliance, LocalDate.of(2025, 1, 31)));
+        assertEquals(LocalDate.of(2025, 2, 28), appliance.getAlertDate());
+
+        appliance.setAlertDate(RecurrenceCalculator.nextOccurrence(appliance, LocalDate.of(2025, 2, 28)));
+        assertEquals(LocalDate.of(2025, 3, 31), appliance.getAlertDate());
+    }
+
+    @Test
+    void testMissedOccurrences_CountsFromTheCurrentAlertDate() {
+        // Due Feb 28 (clamped from Jan 31) but run on Apr 5: only Mar 31 was skipped
+        Appliance appliance = Appliance.builder()
+            .alertDate(LocalDate.of(2025, 2, 28))
+            .recurrenceAnchor(LocalDate.of(2025, 1, 31))
+            .recurringInterval("MONTHLY")
+            .build();
+
+        assertEquals(1, RecurrenceCalculator.missedOccurrences(appliance, LocalDate.of(2025, 4, 5)));
+        assertEquals(LocalDate.of(2025, 4, 30), RecurrenceCalculator.nextOccurrence(appliance, LocalDate.of(2025, 4, 5)));
+    }
+
+    @Test
+    void testNextOccurrence_Yearly() {
+        LocalDate anchor = LocalDate.of(2020, 6, 1);
+
+        assertEquals(LocalDate.of(2026, 6, 1), RecurrenceCalculator.nextOccurrence("YEARLY", null, anchor, TODAY));
+        assertEquals(5, RecurrenceCalculator.missedOccurrences("YEARLY", null, anchor, TODAY));
+    }
+
+    @Test
+    void testNextOccurrence_CustomDays() {
+        LocalDate anchor = LocalDate.of(2025, 1, 1);
+
+        // 2025-01-01 + 90k: ... 2025-12-27, 2026-03-27
+        assertEquals(LocalDate.of(2026, 3, 27), RecurrenceCalculator.nextOccurrence("CUSTOM", 90, anchor, TODAY));
+        assertEquals(4, RecurrenceCalculator.missedOccurrences("CUSTOM", 90, anchor, TODAY));
+    }
+
+    @Test
+    void testNextOccurrence_NotYetDueTakesOneStep() {
+        LocalDate anchor = TODAY.plusDays(5);
+
+        assertEquals(anchor.plusMonths(1), RecurrenceCalculator.nextOccurrence("MONTHLY", null, anchor, TODAY));
+        assertEquals(0, RecurrenceCalculator.missedOccurrences("MONTHLY", null, anchor, TODAY));
+    }
+
+    @Test
+    void testNonRecurring() {
+        LocalDate anchor = LocalDate.of(2025, 1, 1);
+
+        assertNull(RecurrenceCalculator.nextOccurrence("NONE", null, anchor, TODAY));
+        assertNull(RecurrenceCalculator.nextOccurrence(null, null, anchor, TODAY));
+        assertNull(RecurrenceCalculator.nextOccurrence("CUSTOM", 0, anchor, TODAY));
+        assertEquals(0, RecurrenceCalculator.missedOccurrences("NONE", null, anchor, TODAY));
+        assertFalse(RecurrenceCalculator.isRecurring(Appliance.builder().recurringInterval("CUSTOM").build()));
+        assertTrue(RecurrenceCalculator.isRecurring(Appliance.builder().recurringInterval("YEARLY").build()));
+    }
+}
@@ -30,6 +30,19 @@ export default function ViewAppliancePage() {
         // eslint-disable-next-line react-hooks/exhaustive-deps
     }, [id]);
 
+    // Snooze links in alert emails open this page with ?snooze=<days>; apply it once the appliance has loaded
+    const emailSnoozeHandled = useRef(false);
+    useEffect(() => {
+        if (!appliance || emailSnoozeHandled.current) return;
+        emailSnoozeHandled.current = true;
+        const days = Number(new URLSearchParams(window.location.search).get('snooze'));
+        if (Number.isInteger(days) && days > 0) {
+            window.history.replaceState(null, '', window.location.pathname);
+            handleSnooze(days);
+        }
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [appliance]);
+
     // Close snooze dropdown when clicking outside
     useEffect(() => {
         function handleClickOutside(event: MouseEvent) {
@@ -128,7 +141,7 @@ export default function ViewAppliancePage() {
     if (!appliance) return <div className="text-gray-500 p-4">Loading…</div>;
 
     const getStatusBadge = () => {
-        const status = appliance.alertStatus || 'ACTIVE';
+        const status = appliance.effectiveAlertStatus || appliance.alertStatus || 'ACTIVE';
         return (
             <span className={`px-2 py-1 rounded text-sm font-medium ${getStatusBadgeColor(status)}`}>
                 {status}
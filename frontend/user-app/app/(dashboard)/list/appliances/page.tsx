@@ -21,6 +21,7 @@ const ITEMS_PER_PAGE = 10;
 
 export default function AppliancesPage() {
     const [items, setItems] = useState<Appliance[]>([]);
+    const [categories, setCategories] = useState<string[]>([]);
     const [loading, setLoading] = useState(true);
     const [deleteing, setDeleteing] = useState<number | null>(null);
     const [error, setError] = useState<string>();
@@ -39,7 +40,17 @@ export default function AppliancesPage() {
     async function refresh() {
         try {
             setLoading(true);
-            setItems(await service.list());
+            // Category, status and sort are applied by the backend; search is still done here
+            const list = await service.listFiltered({
+                category: selectedCategory === "all" ? undefined : selectedCategory,
+                status: selectedStatus === "all" ? undefined : selectedStatus,
+                sort: sortField,
+                order: sortOrder,
+            });
+            setItems(list);
+            if (selectedCategory === "all" && selectedStatus === "all") {
+                setCategories(Array.from(new Set(list.map(item => item.category).filter(Boolean))) as string[]);
+            }
         } catch (error: any) {
             setError(error.message);
         } finally {
@@ -85,10 +96,13 @@ export default function AppliancesPage() {
     }
 
     useEffect(() => {
-        refresh();
         checkAlerts();
     }, []);
 
+    useEffect(() => {
+        refresh();
+    }, [selectedCategory, selectedStatus, sortField, sortOrder]);
+
     // Reset to first page when search query changes
     useEffect(() => {
         setCurrentPage(1);
@@ -109,77 +123,22 @@ export default function AppliancesPage() {
         }
     }
 
-    // Get unique categories for filter dropdown
-    const uniqueCategories = Array.from(new Set(items.map(item => item.category).filter(Boolean))) as string[];
-
-    // Filter items based on search query, category, and status
+    // Filter items based on search query
     const filteredItems = items.filter((appliance) => {
-        // Search filter
         const query = searchQuery.toLowerCase();
-        const matchesSearch = !query || (
+        return !query || (
             appliance.name?.toLowerCase().includes(query) ||
             appliance.brand?.toLowerCase().includes(query) ||
             appliance.model?.toLowerCase().includes(query) ||
             appliance.category?.toLowerCase().includes(query)
         );
-
-        // Category filter
-        const matchesCategory = selectedCategory === "all" || appliance.category === selectedCategory;
-
-        // Status filter
-        let matchesStatus = true;
-        if (selectedStatus !== "all") {
-            if (selectedStatus === "ACTIVE") {
-                matchesStatus = appliance.alertStatus === "ACTIVE";
-            } else if (selectedStatus === "SNOOZED") {
-                matchesStatus = appliance.alertStatus === "SNOOZED";
-            } else if (selectedStatus === "CANCELLED") {
-                matchesStatus = appliance.alertStatus === "CANCELLED";
-            } else if (selectedStatus === "NO_ALERT") {
-                matchesStatus = !appliance.alertDate;
-            }
-        }
-
-        return matchesSearch && matchesCategory && matchesStatus;
-    });
-
-    // Sort filtered items
-    const sortedItems = [...filteredItems].sort((a, b) => {
-        let aValue: any;
-        let bValue: any;
-
-        switch (sortField) {
-            case 'name':
-                aValue = a.name?.toLowerCase() || '';
-                bValue = b.name?.toLowerCase() || '';
-                break;
-            case 'brand':
-                aValue = a.brand?.toLowerCase() || '';
-                bValue = b.brand?.toLowerCase() || '';
-                break;
-            case 'category':
-                aValue = a.category?.toLowerCase() || '';
-                bValue = b.category?.toLowerCase() || '';
-                break;
-            case 'alertDate':
-                aValue = a.alertDate ? new Date(a.alertDate).getTime() : 0;
-                bValue = b.alertDate ? new Date(b.alertDate).getTime() : 0;
-                break;
-            default:
-                aValue = a.name?.toLowerCase() || '';
-                bValue = b.name?.toLowerCase() || '';
-        }
-
-        if (aValue < bValue) return sortOrder === 'asc' ? -1 : 1;
-        if (aValue > bValue) return sortOrder === 'asc' ? 1 : -1;
-        return 0;
     });
 
     // Calculate pagination
-    const totalPages = Math.ceil(sortedItems.length / ITEMS_PER_PAGE);
+    const totalPages = Math.ceil(filteredItems.length / ITEMS_PER_PAGE);
     const startIndex = (currentPage - 1) * ITEMS_PER_PAGE;
     const endIndex = startIndex + ITEMS_PER_PAGE;
-    const paginatedItems = sortedItems.slice(startIndex, endIndex);
+    const paginatedItems = filteredItems.slice(startIndex, endIndex);
 
     const handlePageChange = (page: number) => {
         setCurrentPage(page);
@@ -218,7 +177,7 @@ export default function AppliancesPage() {
                 <TaskColorBadge
                     alertDate={appliance.alertDate}
                     snoozeUntil={appliance.snoozeUntil}
-                    alertStatus={appliance.alertStatus}
+                    alertStatus={appliance.effectiveAlertStatus ?? appliance.alertStatus}
                 />
             </td>
             <td className="p-4 align-middle text-right">
@@ -261,7 +220,7 @@ export default function AppliancesPage() {
                         onToggle={() => setShowFilterDropdown(!showFilterDropdown)}
                         selectedCategory={selectedCategory}
                         selectedStatus={selectedStatus}
-                        categories={uniqueCategories}
+                        categories={categories}
                         onCategoryChange={setSelectedCategory}
                         onStatusChange={setSelectedStatus}
                         onClearAll={() => {
@@ -1,8 +1,11 @@
 'use client';
 import { useState } from 'react';
 import { Appliance } from '@/lib/models/Appliance';
+import { ApplianceService } from '@/lib/services/ApplianceService';
 import Link from 'next/link';
 
+const service = new ApplianceService();
+
 export interface ApplianceFormProps {
     initial?: Appliance;
     onSubmit: (a: Appliance) => Promise<void>;
@@ -12,11 +15,22 @@ export function ApplianceForm({ initial, onSubmit }: ApplianceFormProps) {
     const [form, setForm] = useState<Appliance>(initial ?? new Appliance());
     const [saving, setSaving] = useState(false);
     const [errors, setErrors] = useState<string[]>([]);
+    const [suggestions, setSuggestions] = useState<Record<'brand' | 'model', string[]>>({ brand: [], model: [] });
 
     function set<K extends keyof Appliance>(k: K, v: Appliance[K]) {
         setForm(prev => Object.assign(new Appliance(), prev, { [k]: v }));
     }
 
+    // Typeahead from the brands and models already in use
+    async function suggest(field: 'brand' | 'model', prefix: string) {
+        try {
+            const values = await service.suggest(field, prefix);
+            setSuggestions(prev => ({ ...prev, [field]: values }));
+        } catch {
+            // Only a convenience; the fields still take any text
+        }
+    }
+
     // Get suggested recurring interval based on category
     function getSuggestion(): string | null {
         const category = form.category;
@@ -95,20 +109,32 @@ export function ApplianceForm({ initial, onSubmit }: ApplianceFormProps) {
                     <label htmlFor="brand" className={labelClass}>Brand</label>
                     <input
                         id="brand"
+                        list="brand-suggestions"
+                        autoComplete="off"
                         value={form.brand ?? ''}
-                        onChange={e => set('brand', e.target.value)}
+                        onFocus={() => suggest('brand', form.brand ?? '')}
+                        onChange={e => { set('brand', e.target.value); suggest('brand', e.target.value); }}
                         className={inputClass}
                     />
+                    <datalist id="brand-suggestions">
+                        {suggestions.brand.map(value => <option key={value} value={value} />)}
+                    </datalist>
                 </div>
 
                 <div>
                     <label htmlFor="model" className={labelClass}>Model</label>
                     <input
                         id="model"
+                        list="model-suggestions"
+                        autoComplete="off"
                         value={form.model ?? ''}
-                        onChange={e => set('model', e.target.value)}
+                        onFocus={() => suggest('model', form.model ?? '')}
+                        onChange={e => { set('model', e.target.value); suggest('model', e.target.value); }}
                         className={inputClass}
                     />
+                    <datalist id="model-suggestions">
+                        {suggestions.model.map(value => <option key={value} value={value} />)}
+                    </datalist>
                 </div>
 
                 <div>
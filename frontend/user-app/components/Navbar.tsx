@@ -140,8 +140,8 @@ const Navbar = () => {
                           </p>
                         </div>
                         <div className='flex-shrink-0'>
-                          <span className={`inline-block px-2 py-1 text-xs font-medium rounded ${getStatusBadgeColor(appliance.alertStatus)}`}>
-                            {appliance.alertStatus || 'ACTIVE'}
+                          <span className={`inline-block px-2 py-1 text-xs font-medium rounded ${getStatusBadgeColor(appliance.effectiveAlertStatus ?? appliance.alertStatus)}`}>
+                            {appliance.effectiveAlertStatus ?? appliance.alertStatus ?? 'ACTIVE'}
                           </span>
                         </div>
                       </div>
@@ -13,6 +13,7 @@ export class Appliance extends Entity<number> {
   alertDate?: string;      // yyyy-mm-dd
   alertStatus?: string;    // ACTIVE, SNOOZED, CANCELLED
   snoozeUntil?: string;    // yyyy-mm-dd
+  effectiveAlertStatus?: string;  // read-only: alertStatus with an expired snooze shown as ACTIVE
   recurringInterval?: string;  // NONE, MONTHLY, YEARLY, CUSTOM
   recurringIntervalDays?: number;  // For custom intervals
 
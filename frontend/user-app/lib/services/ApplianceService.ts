@@ -2,6 +2,16 @@ import { BaseService } from './Base';
 import { ApiClient } from './ApiClient';
 import { Appliance } from '@/lib/models/Appliance';
 
+/** Filters and sort for the appliance list; unset fields don't filter */
+export interface ApplianceListQuery {
+  category?: string;
+  brand?: string;
+  status?: string;    // ACTIVE, SNOOZED, CANCELLED, NO_ALERT
+  warranty?: string;  // ACTIVE, EXPIRED, NONE
+  sort?: string;      // id, name, brand, category, alertDate, warrantyExpires
+  order?: 'asc' | 'desc';
+}
+
 export class ApplianceService extends BaseService<Appliance> {
   private userId: number;
 
@@ -12,6 +22,18 @@ export class ApplianceService extends BaseService<Appliance> {
     this.userId = userId;
   }
 
+  /** The appliance list, filtered and sorted by the backend */
+  async listFiltered(query: ApplianceListQuery): Promise<Appliance[]> {
+    const response = await this.api.http.get(this.basePath, { params: query });
+    return (response.data as unknown[]).map(d => Appliance.fromJSON(d));
+  }
+
+  /** Brand, model or category values in use that start with prefix (any case), most used first */
+  async suggest(field: 'brand' | 'model' | 'category', prefix: string, limit?: number): Promise<string[]> {
+    const response = await this.api.http.get(`${this.basePath}/suggestions`, { params: { field, prefix, limit } });
+    return response.data as string[];
+  }
+
   async snoozeAlert(applianceId: number, days: number): Promise<Appliance> {
     const response = await this.api.http.post(`${this.basePath}/${applianceId}/alert/snooze?days=${days}`, {});
     return Appliance.fromJSON(response.data);